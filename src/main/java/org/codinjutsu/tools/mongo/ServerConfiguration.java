@@ -17,6 +17,7 @@
 package org.codinjutsu.tools.mongo;
 
 import com.mongodb.AuthenticationMechanism;
+import com.mongodb.MongoClientOptions;
 import com.mongodb.ReadPreference;
 import org.apache.commons.lang.StringUtils;
 
@@ -32,6 +33,21 @@ public class ServerConfiguration implements Cloneable {
     private static final String DEFAULT_URL = "localhost";
     public static final int DEFAULT_PORT = 27017;
 
+    /**
+     * The connection settings default to the ones of the driver, so that existing configurations keep behaving the same
+     */
+    private static final MongoClientOptions DRIVER_OPTIONS = MongoClientOptions.builder().build();
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = DRIVER_OPTIONS.getConnectionsPerHost();
+    public static final int DEFAULT_CONNECT_TIMEOUT = DRIVER_OPTIONS.getConnectTimeout();
+    public static final int DEFAULT_SOCKET_TIMEOUT = DRIVER_OPTIONS.getSocketTimeout();
+    public static final int DEFAULT_SERVER_SELECTION_TIMEOUT = DRIVER_OPTIONS.getServerSelectionTimeout();
+    public static final int DEFAULT_MAX_WAIT_TIME = DRIVER_OPTIONS.getMaxWaitTime();
+    public static final int DEFAULT_HEARTBEAT_FREQUENCY = DRIVER_OPTIONS.getHeartbeatFrequency();
+    public static final int DEFAULT_MAX_QUERY_TIME = 0;
+    public static final int DEFAULT_RESULT_HEAP_BUDGET = 64;
+    public static final int DEFAULT_RESULT_SIZE_LIMIT = 512;
+
 
     private String label;
 
@@ -40,6 +56,16 @@ public class ServerConfiguration implements Cloneable {
     private boolean sslConnection;
     private ReadPreference readPreference = ReadPreference.primary();
 
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+    private int serverSelectionTimeout = DEFAULT_SERVER_SELECTION_TIMEOUT;
+    private int maxWaitTime = DEFAULT_MAX_WAIT_TIME;
+    private int heartbeatFrequency = DEFAULT_HEARTBEAT_FREQUENCY;
+    private int maxQueryTime = DEFAULT_MAX_QUERY_TIME;
+    private int resultHeapBudget = DEFAULT_RESULT_HEAP_BUDGET;
+    private int resultSizeLimit = DEFAULT_RESULT_SIZE_LIMIT;
+
     private String username;
     private String password;
     private String authenticationDatabase;
@@ -85,6 +111,84 @@ public class ServerConfiguration implements Cloneable {
         this.readPreference = readPreference;
     }
 
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public int getServerSelectionTimeout() {
+        return serverSelectionTimeout;
+    }
+
+    public void setServerSelectionTimeout(int serverSelectionTimeout) {
+        this.serverSelectionTimeout = serverSelectionTimeout;
+    }
+
+    public int getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    public void setMaxWaitTime(int maxWaitTime) {
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public int getHeartbeatFrequency() {
+        return heartbeatFrequency;
+    }
+
+    public void setHeartbeatFrequency(int heartbeatFrequency) {
+        this.heartbeatFrequency = heartbeatFrequency;
+    }
+
+    public int getMaxQueryTime() {
+        return maxQueryTime;
+    }
+
+    public void setMaxQueryTime(int maxQueryTime) {
+        this.maxQueryTime = maxQueryTime;
+    }
+
+    /**
+     * @return how many MB of results are kept on the heap before the next documents are written to a temporary file
+     */
+    public int getResultHeapBudget() {
+        return resultHeapBudget;
+    }
+
+    public void setResultHeapBudget(int resultHeapBudget) {
+        this.resultHeapBudget = resultHeapBudget;
+    }
+
+    /**
+     * @return how many MB of documents a query result may hold before the fetching stops
+     */
+    public int getResultSizeLimit() {
+        return resultSizeLimit;
+    }
+
+    public void setResultSizeLimit(int resultSizeLimit) {
+        this.resultSizeLimit = resultSizeLimit;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -188,6 +292,15 @@ public class ServerConfiguration implements Cloneable {
 
         if (sslConnection != that.sslConnection) return false;
         if (connectOnIdeStartup != that.connectOnIdeStartup) return false;
+        if (maxConnectionsPerHost != that.maxConnectionsPerHost) return false;
+        if (connectTimeout != that.connectTimeout) return false;
+        if (socketTimeout != that.socketTimeout) return false;
+        if (serverSelectionTimeout != that.serverSelectionTimeout) return false;
+        if (maxWaitTime != that.maxWaitTime) return false;
+        if (heartbeatFrequency != that.heartbeatFrequency) return false;
+        if (maxQueryTime != that.maxQueryTime) return false;
+        if (resultHeapBudget != that.resultHeapBudget) return false;
+        if (resultSizeLimit != that.resultSizeLimit) return false;
         if (!label.equals(that.label)) return false;
         if (!serverUrls.equals(that.serverUrls)) return false;
         if (!readPreference.equals(that.readPreference)) return false;
@@ -210,6 +323,15 @@ public class ServerConfiguration implements Cloneable {
         result = 31 * result + serverUrls.hashCode();
         result = 31 * result + (sslConnection ? 1 : 0);
         result = 31 * result + readPreference.hashCode();
+        result = 31 * result + maxConnectionsPerHost;
+        result = 31 * result + connectTimeout;
+        result = 31 * result + socketTimeout;
+        result = 31 * result + serverSelectionTimeout;
+        result = 31 * result + maxWaitTime;
+        result = 31 * result + heartbeatFrequency;
+        result = 31 * result + maxQueryTime;
+        result = 31 * result + resultHeapBudget;
+        result = 31 * result + resultSizeLimit;
         result = 31 * result + (username != null ? username.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
         result = 31 * result + (authenticationDatabase != null ? authenticationDatabase.hashCode() : 0);
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.DBObject;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Groups the documents read from a cursor and hands them to a {@link MongoManager.ResultBatchListener}
+ * either when enough of them are pending or when the previous batch is getting old.
+ */
+class DocumentBatcher {
+
+    static final int MAX_BATCH_SIZE = 100;
+    static final long MAX_BATCH_DELAY_MS = 200;
+
+    private final MongoManager.ResultBatchListener listener;
+
+    private List<DBObject> pendingDocuments = new LinkedList<DBObject>();
+    private long lastFlushTime = System.currentTimeMillis();
+
+    DocumentBatcher(MongoManager.ResultBatchListener listener) {
+        this.listener = listener;
+    }
+
+    void add(DBObject document) {
+        if (listener == null) {
+            return;
+        }
+        pendingDocuments.add(document);
+        if (pendingDocuments.size() >= MAX_BATCH_SIZE || System.currentTimeMillis() - lastFlushTime >= MAX_BATCH_DELAY_MS) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (listener == null || pendingDocuments.isEmpty()) {
+            return;
+        }
+        listener.onBatch(pendingDocuments);
+        pendingDocuments = new LinkedList<DBObject>();
+        lastFlushTime = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smallest <code>$set</code>/<code>$unset</code> update turning a document into its edited version.
+ * <p/>
+ * Sub-documents are compared field by field and arrays element by element, with dotted paths. An array which got
+ * shorter is set as a whole since its trailing elements cannot be removed by path.
+ */
+class DocumentUpdate {
+
+    private static final DBObject MISSING = new BasicDBObject("$exists", false);
+
+    private final BasicDBObject setFields = new BasicDBObject();
+    private final BasicDBObject unsetFields = new BasicDBObject();
+    private final BasicDBObject originalValues = new BasicDBObject();
+
+    static DocumentUpdate diff(DBObject originalDocument, DBObject editedDocument) {
+        DocumentUpdate documentUpdate = new DocumentUpdate();
+        documentUpdate.diffDocuments(null, originalDocument, editedDocument);
+        return documentUpdate;
+    }
+
+    boolean isEmpty() {
+        return setFields.isEmpty() && unsetFields.isEmpty();
+    }
+
+    DBObject getUpdate() {
+        BasicDBObject update = new BasicDBObject();
+        if (!setFields.isEmpty()) {
+            update.append("$set", setFields);
+        }
+        if (!unsetFields.isEmpty()) {
+            update.append("$unset", unsetFields);
+        }
+        return update;
+    }
+
+    /**
+     * @return a filter matching the document only if the updated paths still have their original values
+     */
+    DBObject getFilter(Object _id) {
+        BasicDBObject filter = new BasicDBObject("_id", _id);
+        filter.putAll((DBObject) originalValues);
+        return filter;
+    }
+
+    private void diffDocuments(String parentPath, DBObject originalDocument, DBObject editedDocument) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> originalFields = originalDocument.toMap();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> editedFields = editedDocument.toMap();
+
+        for (Map.Entry<String, Object> originalField : originalFields.entrySet()) {
+            if (!editedFields.containsKey(originalField.getKey())) {
+                String path = getPath(parentPath, originalField.getKey());
+                unsetFields.put(path, "");
+                originalValues.put(path, originalField.getValue());
+            }
+        }
+        for (Map.Entry<String, Object> editedField : editedFields.entrySet()) {
+            String path = getPath(parentPath, editedField.getKey());
+            if (originalFields.containsKey(editedField.getKey())) {
+                diffValues(path, originalFields.get(editedField.getKey()), editedField.getValue());
+            } else {
+                setFields.put(path, editedField.getValue());
+                originalValues.put(path, MISSING);
+            }
+        }
+    }
+
+    private void diffValues(String path, Object originalValue, Object editedValue) {
+        if (originalValue instanceof List && editedValue instanceof List) {
+            diffArrays(path, (List) originalValue, (List) editedValue);
+        } else if (isDocument(originalValue) && isDocument(editedValue)) {
+            diffDocuments(path, (DBObject) originalValue, (DBObject) editedValue);
+        } else if (originalValue == null ? editedValue != null : !originalValue.equals(editedValue)) {
+            setFields.put(path, editedValue);
+            originalValues.put(path, originalValue);
+        }
+    }
+
+    private void diffArrays(String path, List originalElements, List editedElements) {
+        if (editedElements.size() < originalElements.size()) {
+            setFields.put(path, editedElements);
+            originalValues.put(path, originalElements);
+            return;
+        }
+        for (int i = 0; i < editedElements.size(); i++) {
+            String elementPath = getPath(path, String.valueOf(i));
+            if (i < originalElements.size()) {
+                diffValues(elementPath, originalElements.get(i), editedElements.get(i));
+            } else {
+                setFields.put(elementPath, editedElements.get(i));
+            }
+        }
+        if (editedElements.size() > originalElements.size()) {
+            originalValues.put(getPath(path, String.valueOf(originalElements.size())), MISSING);
+        }
+    }
+
+    private static boolean isDocument(Object value) {
+        return value instanceof DBObject && !(value instanceof List);
+    }
+
+    private static String getPath(String parentPath, String key) {
+        return parentPath == null ? key : parentPath + "." + key;
+    }
+}
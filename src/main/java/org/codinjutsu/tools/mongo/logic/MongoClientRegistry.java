@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.MongoClient;
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+
+import java.net.UnknownHostException;
+import java.util.*;
+
+/**
+ * Keeps one long-lived {@link MongoClient} (and thus one connection pool) per server configuration.
+ * Clients are created on first use and reference counted so that an invalidated client is only closed
+ * once the last operation using it has released it.
+ */
+class MongoClientRegistry {
+
+    interface MongoClientFactory {
+        MongoClient create(ServerConfiguration configuration) throws UnknownHostException;
+    }
+
+    private final MongoClientFactory clientFactory;
+
+    private final Map<ServerConfiguration, PooledClient> clientsByConfiguration = new HashMap<ServerConfiguration, PooledClient>();
+    private final Map<MongoClient, PooledClient> clientsInUse = new IdentityHashMap<MongoClient, PooledClient>();
+
+    MongoClientRegistry(MongoClientFactory clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    synchronized MongoClient acquire(ServerConfiguration configuration) throws UnknownHostException {
+        PooledClient pooledClient = clientsByConfiguration.get(configuration);
+        if (pooledClient == null) {
+            pooledClient = new PooledClient(clientFactory.create(configuration));
+            clientsByConfiguration.put(configuration.clone(), pooledClient);
+        }
+        pooledClient.referenceCount++;
+        clientsInUse.put(pooledClient.client, pooledClient);
+        return pooledClient.client;
+    }
+
+    synchronized void release(MongoClient client) {
+        if (client == null) {
+            return;
+        }
+        PooledClient pooledClient = clientsInUse.get(client);
+        if (pooledClient == null) {
+            return;
+        }
+        pooledClient.referenceCount--;
+        if (pooledClient.referenceCount == 0) {
+            clientsInUse.remove(client);
+            if (pooledClient.invalidated) {
+                pooledClient.client.close();
+            }
+        }
+    }
+
+    synchronized void invalidate(ServerConfiguration configuration) {
+        invalidate(clientsByConfiguration.remove(configuration));
+    }
+
+    synchronized void retainOnly(Collection<ServerConfiguration> configurations) {
+        Iterator<Map.Entry<ServerConfiguration, PooledClient>> iterator = clientsByConfiguration.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ServerConfiguration, PooledClient> entry = iterator.next();
+            if (!configurations.contains(entry.getKey())) {
+                iterator.remove();
+                invalidate(entry.getValue());
+            }
+        }
+    }
+
+    synchronized void closeAll() {
+        for (PooledClient pooledClient : clientsByConfiguration.values()) {
+            invalidate(pooledClient);
+        }
+        clientsByConfiguration.clear();
+    }
+
+    private static void invalidate(PooledClient pooledClient) {
+        if (pooledClient == null) {
+            return;
+        }
+        pooledClient.invalidated = true;
+        if (pooledClient.referenceCount == 0) {
+            pooledClient.client.close();
+        }
+    }
+
+    private static class PooledClient {
+        private final MongoClient client;
+        private int referenceCount = 0;
+        private boolean invalidated = false;
+
+        private PooledClient(MongoClient client) {
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.bson.BSONObject;
+import org.bson.BasicBSONDecoder;
+import org.bson.BasicBSONEncoder;
+import org.bson.BasicBSONObject;
+import org.bson.types.BasicBSONList;
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoDatabase;
+
+import java.io.*;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Last known databases and collections of each server, kept in a BSON file of the project configuration directory
+ * so that the explorer can show them at startup before the servers answer.
+ * <p/>
+ * The cache is best effort: a missing or unreadable file is the same as an empty cache.
+ */
+public class MongoExplorerCache {
+
+    private static final Logger LOG = Logger.getLogger(MongoExplorerCache.class);
+
+    static final String CACHE_FILE_NAME = "mongoExplorerCache.bson";
+
+    private final File cacheFile;
+
+    public static MongoExplorerCache getInstance(Project project) {
+        return ServiceManager.getService(project, MongoExplorerCache.class);
+    }
+
+    public MongoExplorerCache(Project project) {
+        this(getCacheFile(project));
+    }
+
+    MongoExplorerCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * @return the cached databases of the server with their collections, or null if the server is not cached
+     */
+    public synchronized List<MongoDatabase> load(ServerConfiguration configuration) {
+        BSONObject cachedServer = findServer(readServers(), getKey(configuration));
+        if (cachedServer == null) {
+            return null;
+        }
+
+        List<MongoDatabase> mongoDatabases = new LinkedList<MongoDatabase>();
+        for (Object cachedDatabaseObject : (List) cachedServer.get("databases")) {
+            BSONObject cachedDatabase = (BSONObject) cachedDatabaseObject;
+            MongoDatabase mongoDatabase = new MongoDatabase((String) cachedDatabase.get("name"));
+            List<MongoCollection> mongoCollections = new LinkedList<MongoCollection>();
+            for (Object collectionName : (List) cachedDatabase.get("collections")) {
+                mongoCollections.add(new MongoCollection((String) collectionName, mongoDatabase.getName()));
+            }
+            mongoDatabase.setCollections(mongoCollections);
+            mongoDatabases.add(mongoDatabase);
+        }
+        return mongoDatabases;
+    }
+
+    public synchronized void save(ServerConfiguration configuration, List<MongoDatabase> mongoDatabases) {
+        BasicBSONList cachedDatabases = new BasicBSONList();
+        for (MongoDatabase mongoDatabase : mongoDatabases) {
+            BasicBSONList collectionNames = new BasicBSONList();
+            for (MongoCollection mongoCollection : mongoDatabase.getCollections()) {
+                collectionNames.add(mongoCollection.getName());
+            }
+            cachedDatabases.add(new BasicBSONObject("name", mongoDatabase.getName()).append("collections", collectionNames));
+        }
+
+        String key = getKey(configuration);
+        BasicBSONList cachedServers = readServers();
+        BSONObject cachedServer = findServer(cachedServers, key);
+        if (cachedServer == null) {
+            cachedServer = new BasicBSONObject("key", key);
+            cachedServers.add(cachedServer);
+        }
+        cachedServer.put("savedAt", new Date());
+        cachedServer.put("databases", cachedDatabases);
+        writeServers(cachedServers);
+    }
+
+    /**
+     * Forgets the servers which are no longer configured
+     */
+    public synchronized void retainOnly(List<ServerConfiguration> configurations) {
+        Set<String> keys = new HashSet<String>();
+        for (ServerConfiguration configuration : configurations) {
+            keys.add(getKey(configuration));
+        }
+
+        BasicBSONList cachedServers = readServers();
+        boolean changed = false;
+        for (Iterator<Object> iterator = cachedServers.iterator(); iterator.hasNext(); ) {
+            if (!keys.contains(((BSONObject) iterator.next()).get("key"))) {
+                iterator.remove();
+                changed = true;
+            }
+        }
+        if (changed) {
+            writeServers(cachedServers);
+        }
+    }
+
+    private static BSONObject findServer(BasicBSONList cachedServers, String key) {
+        for (Object cachedServer : cachedServers) {
+            if (key.equals(((BSONObject) cachedServer).get("key"))) {
+                return (BSONObject) cachedServer;
+            }
+        }
+        return null;
+    }
+
+    private BasicBSONList readServers() {
+        BasicBSONList cachedServers = new BasicBSONList();
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return cachedServers;
+        }
+
+        InputStream inputStream = null;
+        try {
+            inputStream = new BufferedInputStream(new FileInputStream(cacheFile));
+            for (Object cachedServer : (List) new BasicBSONDecoder().readObject(inputStream).get("servers")) {
+                cachedServers.add(cachedServer);
+            }
+        } catch (Exception ex) {
+            LOG.warn("Unable to read the explorer cache " + cacheFile, ex);
+        } finally {
+            closeQuietly(inputStream);
+        }
+        return cachedServers;
+    }
+
+    private void writeServers(BasicBSONList cachedServers) {
+        if (cacheFile == null) {
+            return;
+        }
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicBSONObject("servers", cachedServers));
+        File temporaryFile = new File(cacheFile.getPath() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(temporaryFile);
+            outputStream.write(bytes);
+            outputStream.close();
+            outputStream = null;
+            if (!temporaryFile.renameTo(cacheFile) && !(cacheFile.delete() && temporaryFile.renameTo(cacheFile))) {
+                LOG.warn("Unable to replace the explorer cache " + cacheFile);
+            }
+        } catch (IOException ex) {
+            LOG.warn("Unable to write the explorer cache " + cacheFile, ex);
+        } finally {
+            closeQuietly(outputStream);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ex) {
+            LOG.debug("Unable to close the explorer cache", ex);
+        }
+    }
+
+    /**
+     * @return the key of the server of the configuration, shared by the configurations with the same label, hosts and user database
+     */
+    static String getKey(ServerConfiguration configuration) {
+        return String.format("%s|%s|%s", StringUtils.defaultString(configuration.getLabel()),
+                StringUtils.join(configuration.getServerUrls(), ","),
+                StringUtils.defaultString(configuration.getUserDatabase()));
+    }
+
+    private static File getCacheFile(Project project) {
+        String projectFilePath = project.getProjectFilePath();
+        if (projectFilePath == null) {
+            return null;
+        }
+        return new File(new File(projectFilePath).getParentFile(), CACHE_FILE_NAME);
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.codinjutsu.tools.mongo.logic;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import com.mongodb.*;
@@ -24,16 +25,34 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.codinjutsu.tools.mongo.ServerConfiguration;
 import org.codinjutsu.tools.mongo.model.*;
+import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class MongoManager {
+public class MongoManager implements Disposable {
 
     private static final Logger LOG = Logger.getLogger(MongoManager.class);
+
+    static final int COLLECTION_LOADING_THREAD_COUNT = 4;
+
     private final List<MongoServer> mongoServers = new LinkedList<MongoServer>();
 
+    private final MongoClientRegistry clientRegistry = new MongoClientRegistry(new MongoClientRegistry.MongoClientFactory() {
+        @Override
+        public MongoClient create(ServerConfiguration configuration) throws UnknownHostException {
+            return createMongoClient(configuration);
+        }
+    });
+
+    private final ThreadPoolExecutor collectionLoadingExecutor = createCollectionLoadingExecutor();
+
     public static MongoManager getInstance(Project project) {
         return ServiceManager.getService(project, MongoManager.class);
     }
@@ -64,6 +83,32 @@ public class MongoManager {
         }
     }
 
+    public void invalidateClients(List<ServerConfiguration> activeConfigurations) {
+        clientRegistry.retainOnly(activeConfigurations);
+    }
+
+    @Override
+    public void dispose() {
+        collectionLoadingExecutor.shutdownNow();
+        clientRegistry.closeAll();
+    }
+
+    private static ThreadPoolExecutor createCollectionLoadingExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(COLLECTION_LOADING_THREAD_COUNT, COLLECTION_LOADING_THREAD_COUNT,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Mongo collection loader " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public void cleanUpServers() {
         mongoServers.clear();
     }
@@ -76,30 +121,34 @@ public class MongoManager {
         return mongoServers;
     }
 
+    /**
+     * Lists the databases of the server without their collections, see {@link #loadCollections}.
+     * A server showing its cached databases stays marked as cached until they are listed.
+     */
     public void loadServer(MongoServer mongoServer) {
-        mongoServer.setStatus(MongoServer.Status.LOADING);
-        List<MongoDatabase> mongoDatabases = loadDatabaseCollections(mongoServer.getConfiguration());
+        if (!MongoServer.Status.CACHED.equals(mongoServer.getStatus())) {
+            mongoServer.setStatus(MongoServer.Status.LOADING);
+        }
+        List<MongoDatabase> mongoDatabases = loadDatabases(mongoServer.getConfiguration());
         mongoServer.setDatabases(mongoDatabases);
         mongoServer.setStatus(MongoServer.Status.OK);
     }
 
-    List<MongoDatabase> loadDatabaseCollections(ServerConfiguration configuration) {
+    List<MongoDatabase> loadDatabases(ServerConfiguration configuration) {
         MongoClient mongo = null;
         List<MongoDatabase> mongoDatabases = new LinkedList<MongoDatabase>();
         try {
             String userDatabase = configuration.getUserDatabase();
 
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
 
             if (StringUtils.isNotEmpty(userDatabase)) {
-                DB database = mongo.getDB(userDatabase);
-                mongoDatabases.add(createMongoDatabaseAndItsCollections(database));
+                mongoDatabases.add(new MongoDatabase(userDatabase));
             } else {
                 List<String> databaseNames = mongo.getDatabaseNames();
                 Collections.sort(databaseNames);
                 for (String databaseName : databaseNames) {
-                    DB database = mongo.getDB(databaseName);
-                    mongoDatabases.add(createMongoDatabaseAndItsCollections(database));
+                    mongoDatabases.add(new MongoDatabase(databaseName));
                 }
             }
 
@@ -109,28 +158,55 @@ public class MongoManager {
         } catch (UnknownHostException unknownHostEx) {
             throw new ConfigurationException(unknownHostEx);
         } finally {
-            if (mongo != null) {
-                mongo.close();
-            }
+            clientRegistry.release(mongo);
         }
     }
 
-    private MongoDatabase createMongoDatabaseAndItsCollections(DB database) {
-        MongoDatabase mongoDatabase = new MongoDatabase(database.getName());
+    /**
+     * Lists the collections of the databases concurrently, at most {@link #COLLECTION_LOADING_THREAD_COUNT} databases
+     * at a time and in their order. The listener is notified from the loading threads as each database completes.
+     */
+    public void loadCollections(final ServerConfiguration configuration, List<MongoDatabase> mongoDatabases, final CollectionsListener collectionsListener) {
+        for (final MongoDatabase mongoDatabase : mongoDatabases) {
+            collectionLoadingExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        loadCollections(configuration, mongoDatabase);
+                        collectionsListener.collectionsLoaded(mongoDatabase);
+                    } catch (Exception ex) {
+                        collectionsListener.collectionsLoadingFailed(mongoDatabase, ex);
+                    }
+                }
+            });
+        }
+    }
 
+    public void loadCollections(ServerConfiguration configuration, MongoDatabase mongoDatabase) {
+        MongoClient mongo = null;
+        try {
+            mongo = clientRegistry.acquire(configuration);
+            DB database = mongo.getDB(mongoDatabase.getName());
 
-        Set<String> collectionNames = database.getCollectionNames();
-        for (String collectionName : collectionNames) {
-            mongoDatabase.addCollection(new MongoCollection(collectionName, database.getName()));
+            List<MongoCollection> mongoCollections = new LinkedList<MongoCollection>();
+            for (String collectionName : database.getCollectionNames()) {
+                mongoCollections.add(new MongoCollection(collectionName, database.getName()));
+            }
+            mongoDatabase.setCollections(mongoCollections);
+        } catch (MongoException mongoEx) {
+            throw new ConfigurationException(mongoEx);
+        } catch (UnknownHostException unknownHostEx) {
+            throw new ConfigurationException(unknownHostEx);
+        } finally {
+            clientRegistry.release(mongo);
         }
-        return mongoDatabase;
     }
 
     public void update(ServerConfiguration configuration, MongoCollection mongoCollection, DBObject mongoDocument) {
         MongoClient mongo = null;
         try {
             String databaseName = mongoCollection.getDatabaseName();
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
 
             DB database = mongo.getDB(databaseName);
             DBCollection collection = database.getCollection(mongoCollection.getName());
@@ -139,9 +215,44 @@ public class MongoManager {
         } catch (UnknownHostException ex) {
             throw new ConfigurationException(ex);
         } finally {
-            if (mongo != null) {
-                mongo.close();
+            clientRegistry.release(mongo);
+        }
+    }
+
+    /**
+     * Applies the differences between the original document and its edited version with a <code>$set</code>/<code>$unset</code>
+     * update of the document with the same <code>_id</code>, or saves the edited document if there is no original one.
+     * The update only applies if the modified fields still have their original values.
+     *
+     * @throws DocumentModifiedException if the document has been modified or deleted since it was read
+     */
+    public void update(ServerConfiguration configuration, MongoCollection mongoCollection, DBObject originalDocument, DBObject mongoDocument) {
+        if (originalDocument == null) {
+            update(configuration, mongoCollection, mongoDocument);
+            return;
+        }
+
+        DocumentUpdate documentUpdate = DocumentUpdate.diff(originalDocument, mongoDocument);
+        if (documentUpdate.isEmpty()) {
+            return;
+        }
+
+        MongoClient mongo = null;
+        try {
+            String databaseName = mongoCollection.getDatabaseName();
+            mongo = clientRegistry.acquire(configuration);
+
+            DB database = mongo.getDB(databaseName);
+            DBCollection collection = database.getCollection(mongoCollection.getName());
+
+            WriteResult writeResult = collection.update(documentUpdate.getFilter(originalDocument.get("_id")), documentUpdate.getUpdate());
+            if (writeResult.getN() == 0) {
+                throw new DocumentModifiedException("The document has been modified or deleted since it was read");
             }
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
         }
     }
 
@@ -149,7 +260,7 @@ public class MongoManager {
         MongoClient mongo = null;
         try {
             String databaseName = mongoCollection.getDatabaseName();
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
 
             DB database = mongo.getDB(databaseName);
             DBCollection collection = database.getCollection(mongoCollection.getName());
@@ -158,9 +269,7 @@ public class MongoManager {
         } catch (UnknownHostException ex) {
             throw new ConfigurationException(ex);
         } finally {
-            if (mongo != null) {
-                mongo.close();
-            }
+            clientRegistry.release(mongo);
         }
     }
 
@@ -168,7 +277,7 @@ public class MongoManager {
         MongoClient mongo = null;
         try {
             String databaseName = mongoCollection.getDatabaseName();
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
 
             DB database = mongo.getDB(databaseName);
             DBCollection collection = database.getCollection(mongoCollection.getName());
@@ -177,56 +286,305 @@ public class MongoManager {
         } catch (UnknownHostException ex) {
             throw new ConfigurationException(ex);
         } finally {
-            if (mongo != null) {
-                mongo.close();
-            }
+            clientRegistry.release(mongo);
         }
     }
 
     public void dropDatabase(ServerConfiguration configuration, MongoDatabase selectedDatabase) {
         MongoClient mongo = null;
         try {
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
             mongo.dropDatabase(selectedDatabase.getName());
         } catch (UnknownHostException ex) {
             throw new ConfigurationException(ex);
         } finally {
-            if (mongo != null) {
-                mongo.close();
+            clientRegistry.release(mongo);
+        }
+    }
+
+    public List<MongoIndex> loadIndexes(ServerConfiguration configuration, MongoCollection mongoCollection) {
+        MongoClient mongo = null;
+        try {
+            String databaseName = mongoCollection.getDatabaseName();
+            mongo = clientRegistry.acquire(configuration);
+
+            DB database = mongo.getDB(databaseName);
+            DBCollection collection = database.getCollection(mongoCollection.getName());
+
+            Map<String, MongoIndex> indexesByName = new LinkedHashMap<String, MongoIndex>();
+            for (DBObject indexInfo : collection.getIndexInfo()) {
+                String indexName = (String) indexInfo.get("name");
+                boolean unique = Boolean.TRUE.equals(indexInfo.get("unique"));
+                indexesByName.put(indexName, new MongoIndex(indexName, (DBObject) indexInfo.get("key"), unique));
             }
+
+            CommandResult collectionStats = database.command(new BasicDBObject("collStats", mongoCollection.getName()));
+            if (collectionStats.ok()) {
+                mergeIndexSizes(indexesByName, collectionStats);
+            }
+
+            loadIndexAccesses(collection, indexesByName);
+
+            return new LinkedList<MongoIndex>(indexesByName.values());
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
+        }
+    }
+
+    private static void loadIndexAccesses(DBCollection collection, Map<String, MongoIndex> indexesByName) {
+        List<DBObject> pipeline = Collections.<DBObject>singletonList(new BasicDBObject("$indexStats", new BasicDBObject()));
+        Cursor cursor;
+        try {
+            cursor = collection.aggregate(pipeline, AggregationOptions.builder().outputMode(AggregationOptions.OutputMode.CURSOR).build());
+        } catch (MongoException ex) {
+            LOG.debug("$indexStats is not available: " + ex.getMessage());
+            return;
+        }
+
+        try {
+            while (cursor.hasNext()) {
+                mergeIndexAccesses(indexesByName, cursor.next());
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Sets the sizes of the <code>indexSizes</code> of the collStats output on the indexes
+     */
+    static void mergeIndexSizes(Map<String, MongoIndex> indexesByName, DBObject collectionStats) {
+        DBObject indexSizes = (DBObject) collectionStats.get("indexSizes");
+        if (indexSizes == null) {
+            return;
+        }
+        for (MongoIndex mongoIndex : indexesByName.values()) {
+            Object indexSize = indexSizes.get(mongoIndex.getName());
+            if (indexSize instanceof Number) {
+                mongoIndex.setSize(((Number) indexSize).longValue());
+            }
+        }
+    }
+
+    /**
+     * Adds the accesses of one <code>$indexStats</code> document to its index. A sharded collection or a replica set
+     * read from several members has one document per host and index, whose operations are summed up.
+     */
+    static void mergeIndexAccesses(Map<String, MongoIndex> indexesByName, DBObject indexStats) {
+        MongoIndex mongoIndex = indexesByName.get((String) indexStats.get("name"));
+        DBObject accesses = (DBObject) indexStats.get("accesses");
+        if (mongoIndex == null || accesses == null) {
+            return;
+        }
+        long operationCount = ((Number) accesses.get("ops")).longValue();
+        Date since = (Date) accesses.get("since");
+        if (mongoIndex.getAccesses() != MongoIndex.UNKNOWN) {
+            operationCount += mongoIndex.getAccesses();
+            if (mongoIndex.getAccessesSince() != null && (since == null || mongoIndex.getAccessesSince().before(since))) {
+                since = mongoIndex.getAccessesSince();
+            }
+        }
+        mongoIndex.setAccesses(operationCount, since);
+    }
+
+    public MongoSchema sampleSchema(ServerConfiguration configuration, MongoCollection mongoCollection, int sampleSize) {
+        MongoClient mongo = null;
+        try {
+            String databaseName = mongoCollection.getDatabaseName();
+            mongo = clientRegistry.acquire(configuration);
+
+            DB database = mongo.getDB(databaseName);
+            DBCollection collection = database.getCollection(mongoCollection.getName());
+
+            SchemaAnalyzer schemaAnalyzer = new SchemaAnalyzer();
+            boolean randomSample = true;
+            Cursor cursor;
+            try {
+                List<DBObject> pipeline = Collections.<DBObject>singletonList(new BasicDBObject("$sample", new BasicDBObject("size", sampleSize)));
+                cursor = collection.aggregate(pipeline, AggregationOptions.builder().outputMode(AggregationOptions.OutputMode.CURSOR).build());
+            } catch (MongoException ex) {
+                LOG.debug("$sample is not available, the first documents are sampled: " + ex.getMessage());
+                randomSample = false;
+                cursor = collection.find().limit(sampleSize);
+            }
+
+            try {
+                while (cursor.hasNext()) {
+                    schemaAnalyzer.add(cursor.next());
+                }
+            } finally {
+                cursor.close();
+            }
+
+            return schemaAnalyzer.toSchema(mongoCollection, randomSample, System.currentTimeMillis());
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
+        }
+    }
+
+    public void createIndex(ServerConfiguration configuration, MongoCollection mongoCollection, DBObject key, String indexName, boolean unique, boolean background) {
+        MongoClient mongo = null;
+        try {
+            String databaseName = mongoCollection.getDatabaseName();
+            mongo = clientRegistry.acquire(configuration);
+
+            DB database = mongo.getDB(databaseName);
+            DBCollection collection = database.getCollection(mongoCollection.getName());
+
+            BasicDBObject indexOptions = new BasicDBObject("background", background);
+            if (unique) {
+                indexOptions.put("unique", true);
+            }
+            if (StringUtils.isNotBlank(indexName)) {
+                indexOptions.put("name", indexName);
+            }
+            collection.createIndex(key, indexOptions);
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
+        }
+    }
+
+    public void dropIndex(ServerConfiguration configuration, MongoCollection mongoCollection, String indexName) {
+        MongoClient mongo = null;
+        try {
+            String databaseName = mongoCollection.getDatabaseName();
+            mongo = clientRegistry.acquire(configuration);
+
+            DB database = mongo.getDB(databaseName);
+            DBCollection collection = database.getCollection(mongoCollection.getName());
+
+            collection.dropIndex(indexName);
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
         }
     }
 
     public MongoCollectionResult loadCollectionValues(ServerConfiguration configuration, MongoCollection mongoCollection, MongoQueryOptions mongoQueryOptions) {
+        return loadCollectionValues(configuration, mongoCollection, mongoQueryOptions, null, new QueryCancellation());
+    }
+
+    public MongoCollectionResult loadCollectionValues(ServerConfiguration configuration, MongoCollection mongoCollection, MongoQueryOptions mongoQueryOptions, ResultBatchListener resultBatchListener, QueryCancellation queryCancellation) {
+        MongoCollectionResult mongoCollectionResult = new MongoCollectionResult(mongoCollection.getName(), configuration.getResultHeapBudget(), configuration.getResultSizeLimit());
+        return loadCollectionValues(configuration, mongoCollection, mongoQueryOptions, mongoCollectionResult, resultBatchListener, queryCancellation);
+    }
+
+    /**
+     * Reads the documents into the given result, which stays owned by the caller even if the query fails
+     */
+    public MongoCollectionResult loadCollectionValues(ServerConfiguration configuration, MongoCollection mongoCollection, MongoQueryOptions mongoQueryOptions, MongoCollectionResult mongoCollectionResult, ResultBatchListener resultBatchListener, QueryCancellation queryCancellation) {
         MongoClient mongo = null;
         try {
             String databaseName = mongoCollection.getDatabaseName();
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
 
             DB database = mongo.getDB(databaseName);
             DBCollection collection = database.getCollection(mongoCollection.getName());
 
-            MongoCollectionResult mongoCollectionResult = new MongoCollectionResult(mongoCollection.getName());
+            long startTime = System.currentTimeMillis();
+            int maxTime = getMaxTime(configuration, mongoQueryOptions);
+            Cursor cursor;
             if (mongoQueryOptions.isAggregate()) {
-                return aggregate(mongoQueryOptions, mongoCollectionResult, collection);
+                cursor = aggregate(mongoQueryOptions, collection, maxTime, queryCancellation);
+            } else {
+                cursor = find(mongoQueryOptions, collection, maxTime, queryCancellation);
             }
 
-            return find(mongoQueryOptions, mongoCollectionResult, collection);
+            readCursor(cursor, mongoCollectionResult, new DocumentBatcher(resultBatchListener), queryCancellation);
+            mongoCollectionResult.setFetchDuration(System.currentTimeMillis() - startTime);
+            return mongoCollectionResult;
 
         } catch (UnknownHostException ex) {
             throw new ConfigurationException(ex);
         } finally {
-            if (mongo != null) {
-                mongo.close();
+            clientRegistry.release(mongo);
+        }
+    }
+
+    public DBObject explain(ServerConfiguration configuration, MongoCollection mongoCollection, MongoQueryOptions mongoQueryOptions) {
+        MongoClient mongo = null;
+        try {
+            String databaseName = mongoCollection.getDatabaseName();
+            mongo = clientRegistry.acquire(configuration);
+
+            DB database = mongo.getDB(databaseName);
+            DBCollection collection = database.getCollection(mongoCollection.getName());
+            int maxTime = getMaxTime(configuration, mongoQueryOptions);
+
+            if (mongoQueryOptions.isSortUniquenessToCheck()) {
+                mongoQueryOptions.checkSortUniqueness(collection.getIndexInfo());
+            }
+            BasicDBObject explainedCommand = mongoQueryOptions.isAggregate() ?
+                    buildAggregateCommand(mongoQueryOptions, collection, maxTime) :
+                    buildFindCommand(mongoQueryOptions, collection, maxTime);
+            CommandResult explainResult = database.command(new BasicDBObject("explain", explainedCommand).append("verbosity", "executionStats"));
+            if (explainResult.ok()) {
+                return explainResult;
+            }
+
+            LOG.debug("explain command not supported, falling back to the query explain: " + explainResult.getErrorMessage());
+            if (mongoQueryOptions.isAggregate()) {
+                CommandResult aggregateExplainResult = database.command(explainedCommand.append("explain", true));
+                aggregateExplainResult.throwOnError();
+                return aggregateExplainResult;
+            }
+            DBCursor cursor = find(mongoQueryOptions, collection, maxTime, new QueryCancellation());
+            try {
+                return cursor.explain();
+            } finally {
+                cursor.close();
             }
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
+        }
+    }
+
+    private static BasicDBObject buildAggregateCommand(MongoQueryOptions mongoQueryOptions, DBCollection collection, int maxTime) {
+        BasicDBObject aggregateCommand = new BasicDBObject("aggregate", collection.getName())
+                .append("pipeline", buildPagedPipeline(mongoQueryOptions))
+                .append("allowDiskUse", mongoQueryOptions.isAllowDiskUse())
+                .append("cursor", new BasicDBObject());
+        if (maxTime > 0) {
+            aggregateCommand.append("maxTimeMS", maxTime);
+        }
+        return aggregateCommand;
+    }
+
+    private static BasicDBObject buildFindCommand(MongoQueryOptions mongoQueryOptions, DBCollection collection, int maxTime) {
+        BasicDBObject findCommand = new BasicDBObject("find", collection.getName())
+                .append("filter", mongoQueryOptions.getPageFilter());
+        if (mongoQueryOptions.getProjection() != null) {
+            findCommand.append("projection", mongoQueryOptions.getProjection());
+        }
+        if (mongoQueryOptions.getPageSort() != null) {
+            findCommand.append("sort", mongoQueryOptions.getPageSort());
+        }
+        if (mongoQueryOptions.getSkip() > 0) {
+            findCommand.append("skip", mongoQueryOptions.getSkip());
+        }
+        if (mongoQueryOptions.getResultLimit() > 0) {
+            findCommand.append("limit", mongoQueryOptions.getResultLimit());
+        }
+        if (maxTime > 0) {
+            findCommand.append("maxTimeMS", maxTime);
         }
+        return findCommand;
     }
 
     public DBObject findMongoDocument(ServerConfiguration configuration, MongoCollection mongoCollection, Object _id) {
         MongoClient mongo = null;
         try {
             String databaseName = mongoCollection.getDatabaseName();
-            mongo = createMongoClient(configuration);
+            mongo = clientRegistry.acquire(configuration);
 
             DB database = mongo.getDB(databaseName);
             DBCollection collection = database.getCollection(mongoCollection.getName());
@@ -235,26 +593,99 @@ public class MongoManager {
         } catch (UnknownHostException ex) {
             throw new ConfigurationException(ex);
         } finally {
-            if (mongo != null) {
-                mongo.close();
+            clientRegistry.release(mongo);
+        }
+    }
+
+    public void cancel(ServerConfiguration configuration, QueryCancellation queryCancellation) {
+        queryCancellation.cancel();
+
+        MongoClient mongo = null;
+        try {
+            mongo = clientRegistry.acquire(configuration);
+            DB adminDatabase = mongo.getDB("admin");
+
+            CommandResult currentOperations = adminDatabase.command(new BasicDBObject("currentOp", 1));
+            if (!currentOperations.ok()) {
+                LOG.warn("Unable to list the running operations: " + currentOperations.getErrorMessage());
+                return;
+            }
+
+            BasicDBList runningOperations = (BasicDBList) currentOperations.get("inprog");
+            if (runningOperations == null) {
+                return;
+            }
+            long currentTime = System.currentTimeMillis();
+            for (Object runningOperation : runningOperations) {
+                DBObject operation = (DBObject) runningOperation;
+                if (queryCancellation.isQueryOperation(operation, currentTime)) {
+                    adminDatabase.command(new BasicDBObject("killOp", 1).append("op", operation.get("opid")));
+                }
             }
+        } catch (UnknownHostException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            clientRegistry.release(mongo);
         }
     }
 
-    private MongoCollectionResult aggregate(MongoQueryOptions mongoQueryOptions, MongoCollectionResult mongoCollectionResult, DBCollection collection) {
-        AggregationOutput aggregate = collection.aggregate(mongoQueryOptions.getOperations());
-        int index = 0;
-        Iterator<DBObject> iterator = aggregate.results().iterator();
-        while (iterator.hasNext() && index < mongoQueryOptions.getResultLimit()) {
-            mongoCollectionResult.add(iterator.next());
+    private static int getMaxTime(ServerConfiguration configuration, MongoQueryOptions mongoQueryOptions) {
+        if (mongoQueryOptions.getMaxTime() > 0) {
+            return mongoQueryOptions.getMaxTime();
         }
-        return mongoCollectionResult;
+        return configuration.getMaxQueryTime();
     }
 
-    private MongoCollectionResult find(MongoQueryOptions mongoQueryOptions, MongoCollectionResult mongoCollectionResult, DBCollection collection) {
-        DBObject filter = mongoQueryOptions.getFilter();
+    private static void readCursor(Cursor cursor, MongoCollectionResult mongoCollectionResult, DocumentBatcher documentBatcher, QueryCancellation queryCancellation) {
+        queryCancellation.attach(cursor);
+        try {
+            while (!queryCancellation.isCancelled() && !mongoCollectionResult.isSizeLimitReached() && cursor.hasNext()) {
+                documentBatcher.add(mongoCollectionResult.add(cursor.next()));
+            }
+            documentBatcher.flush();
+        } finally {
+            queryCancellation.detach();
+            cursor.close();
+        }
+    }
+
+    private Cursor aggregate(MongoQueryOptions mongoQueryOptions, DBCollection collection, int maxTime, QueryCancellation queryCancellation) {
+        AggregationOptions aggregationOptions = AggregationOptions.builder()
+                .outputMode(AggregationOptions.OutputMode.CURSOR)
+                .allowDiskUse(mongoQueryOptions.isAllowDiskUse())
+                .batchSize(mongoQueryOptions.getBatchSize())
+                .maxTime(maxTime, TimeUnit.MILLISECONDS)
+                .build();
+
+        List<DBObject> pipeline = buildPagedPipeline(mongoQueryOptions);
+        queryCancellation.startAggregate(collection.getFullName(), pipeline);
+        return collection.aggregate(pipeline, aggregationOptions);
+    }
+
+    private static List<DBObject> buildPagedPipeline(MongoQueryOptions mongoQueryOptions) {
+        List<DBObject> pipeline = new LinkedList<DBObject>();
+        for (Object operation : mongoQueryOptions.getOperations()) {
+            pipeline.add((DBObject) operation);
+        }
+        if (mongoQueryOptions.getSkip() > 0) {
+            pipeline.add(new BasicDBObject("$skip", mongoQueryOptions.getSkip()));
+        }
+        if (mongoQueryOptions.getResultLimit() > 0) {
+            pipeline.add(new BasicDBObject("$limit", mongoQueryOptions.getResultLimit()));
+        }
+        return pipeline;
+    }
+
+    private DBCursor find(MongoQueryOptions mongoQueryOptions, DBCollection collection, int maxTime, QueryCancellation queryCancellation) {
+        if (mongoQueryOptions.isSortUniquenessToCheck()) {
+            mongoQueryOptions.checkSortUniqueness(collection.getIndexInfo());
+        }
+        if (mongoQueryOptions.isSeekRangeToCheck()) {
+            mongoQueryOptions.setSeekRangeUniform(isSeekRangeUniform(mongoQueryOptions, collection));
+        }
+        DBObject filter = mongoQueryOptions.getPageFilter();
         DBObject projection = mongoQueryOptions.getProjection();
-        DBObject sort = mongoQueryOptions.getSort();
+        DBObject sort = mongoQueryOptions.getPageSort();
 
         DBCursor cursor;
         if (projection == null) {
@@ -267,16 +698,38 @@ public class MongoManager {
             cursor = cursor.sort(sort);
         }
 
-        try {
-            int index = 0;
-            while (cursor.hasNext() && index < mongoQueryOptions.getResultLimit()) {
-                mongoCollectionResult.add(cursor.next());
-                index++;
+        cursor.setDecoderFactory(LazyDBDecoder.FACTORY);
+        cursor = cursor.skip(mongoQueryOptions.getSkip())
+                .limit(mongoQueryOptions.getResultLimit())
+                .batchSize(mongoQueryOptions.getBatchSize())
+                .comment(queryCancellation.getComment());
+
+        if (maxTime > 0) {
+            cursor = cursor.maxTime(maxTime, TimeUnit.MILLISECONDS);
+        }
+        return cursor;
+    }
+
+    /**
+     * Reads the lowest and the highest value of every sort key within the filter, which only costs an index bound
+     * when the key is indexed
+     */
+    private static boolean isSeekRangeUniform(MongoQueryOptions mongoQueryOptions, DBCollection collection) {
+        for (String key : mongoQueryOptions.getPageSort().keySet()) {
+            for (int direction : new int[]{1, -1}) {
+                DBCursor cursor = collection.find(mongoQueryOptions.getFilter(), new BasicDBObject(key, 1))
+                        .sort(new BasicDBObject(key, direction))
+                        .limit(1);
+                try {
+                    if (!mongoQueryOptions.isSeekRangeBoundary(key, cursor.hasNext() ? cursor.next() : null)) {
+                        return false;
+                    }
+                } finally {
+                    cursor.close();
+                }
             }
-        } finally {
-            cursor.close();
         }
-        return mongoCollectionResult;
+        return true;
     }
 
     private MongoClient createMongoClient(ServerConfiguration configuration) throws UnknownHostException {
@@ -294,6 +747,12 @@ public class MongoManager {
         MongoClientOptions options = MongoClientOptions.builder()
                 .sslEnabled(configuration.isSslConnection())
                 .readPreference(configuration.getReadPreference())
+                .connectionsPerHost(configuration.getMaxConnectionsPerHost())
+                .connectTimeout(configuration.getConnectTimeout())
+                .socketTimeout(configuration.getSocketTimeout())
+                .serverSelectionTimeout(configuration.getServerSelectionTimeout())
+                .maxWaitTime(configuration.getMaxWaitTime())
+                .heartbeatFrequency(configuration.getHeartbeatFrequency())
                 .build();
         if (StringUtils.isEmpty(configuration.getUsername())) {
             return new MongoClient(serverAddresses, options);
@@ -324,4 +783,15 @@ public class MongoManager {
         throw new IllegalArgumentException("Unsupported authentication macanism: " + authenticationMechanism);
     }
 
+    public interface ResultBatchListener {
+
+        void onBatch(List<DBObject> documents);
+    }
+
+    public interface CollectionsListener {
+
+        void collectionsLoaded(MongoDatabase mongoDatabase);
+
+        void collectionsLoadingFailed(MongoDatabase mongoDatabase, Exception ex);
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoSchema;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the schema of the collections and keeps the last one of each collection until it gets stale.
+ * <p/>
+ * A stale schema is still returned by {@link #getCachedSchema(ServerConfiguration, MongoCollection)} so that it can be
+ * displayed while a fresh one is sampled in the background.
+ */
+public class MongoSchemaService {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+
+    private final MongoManager mongoManager;
+    private final int sampleSize;
+    private final long timeToLive;
+
+    private final Map<String, MongoSchema> schemasByCollection = new ConcurrentHashMap<String, MongoSchema>();
+    /**
+     * Listeners of the collections being sampled in the background, by collection
+     */
+    private final Map<String, List<SchemaListener>> refreshingCollections = new HashMap<String, List<SchemaListener>>();
+
+    public static MongoSchemaService getInstance(Project project) {
+        return ServiceManager.getService(project, MongoSchemaService.class);
+    }
+
+    public MongoSchemaService(Project project) {
+        this(MongoManager.getInstance(project), DEFAULT_SAMPLE_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    MongoSchemaService(MongoManager mongoManager, int sampleSize, long timeToLive) {
+        this.mongoManager = mongoManager;
+        this.sampleSize = sampleSize;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @return the last sampled schema of the collection, stale or not, or null if it has never been sampled
+     */
+    public MongoSchema getCachedSchema(ServerConfiguration configuration, MongoCollection collection) {
+        return schemasByCollection.get(getKey(configuration, collection));
+    }
+
+    public boolean isStale(MongoSchema schema) {
+        return schema == null || currentTimeMillis() - schema.getSamplingTime() >= timeToLive;
+    }
+
+    /**
+     * Samples the schema of the collection in the calling thread and caches it
+     */
+    public MongoSchema sample(ServerConfiguration configuration, MongoCollection collection) {
+        MongoSchema schema = mongoManager.sampleSchema(configuration, collection, sampleSize);
+        schemasByCollection.put(getKey(configuration, collection), schema);
+        return schema;
+    }
+
+    /**
+     * Samples the schema of the collection in a pooled thread. When it is already being sampled, the listener
+     * is notified of that sampling instead of starting another one. The listeners are notified from that thread.
+     */
+    public void refreshInBackground(final ServerConfiguration configuration, final MongoCollection collection, SchemaListener schemaListener) {
+        final String key = getKey(configuration, collection);
+        synchronized (refreshingCollections) {
+            List<SchemaListener> schemaListeners = refreshingCollections.get(key);
+            if (schemaListeners != null) {
+                schemaListeners.add(schemaListener);
+                return;
+            }
+            schemaListeners = new LinkedList<SchemaListener>();
+            schemaListeners.add(schemaListener);
+            refreshingCollections.put(key, schemaListeners);
+        }
+
+        executeInBackground(new Runnable() {
+            @Override
+            public void run() {
+                MongoSchema schema = null;
+                Exception samplingException = null;
+                try {
+                    schema = sample(configuration, collection);
+                } catch (Exception ex) {
+                    samplingException = ex;
+                }
+
+                List<SchemaListener> schemaListeners;
+                synchronized (refreshingCollections) {
+                    schemaListeners = refreshingCollections.remove(key);
+                }
+                for (SchemaListener schemaListener : schemaListeners) {
+                    if (samplingException == null) {
+                        schemaListener.schemaSampled(schema);
+                    } else {
+                        schemaListener.samplingFailed(samplingException);
+                    }
+                }
+            }
+        });
+    }
+
+    public void invalidate(ServerConfiguration configuration, MongoCollection collection) {
+        schemasByCollection.remove(getKey(configuration, collection));
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    void executeInBackground(Runnable runnable) {
+        ApplicationManager.getApplication().executeOnPooledThread(runnable);
+    }
+
+    private static String getKey(ServerConfiguration configuration, MongoCollection collection) {
+        return MongoExplorerCache.getKey(configuration) + "/" + collection.getDatabaseName() + "/" + collection.getName();
+    }
+
+    public interface SchemaListener {
+
+        void schemaSampled(MongoSchema schema);
+
+        void samplingFailed(Exception ex);
+    }
+}
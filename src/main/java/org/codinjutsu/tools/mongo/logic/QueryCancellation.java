@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.Cursor;
+import com.mongodb.DBObject;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Handle on a running query which can be cancelled from another thread. A find is tagged with a unique comment
+ * and an aggregation, which cannot carry one, is recorded with its namespace, pipeline and start time, so that
+ * its server operation can be found and killed. Its cursor is closed as soon as the cancellation happens.
+ */
+public class QueryCancellation {
+
+    private final String comment = "mongo-plugin-" + UUID.randomUUID();
+
+    private volatile boolean cancelled = false;
+    private Cursor cursor;
+
+    private volatile String aggregateNamespace;
+    private volatile List<DBObject> aggregatePipeline;
+    private volatile long aggregateStartTime;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    String getComment() {
+        return comment;
+    }
+
+    /**
+     * Records the aggregation about to be sent, before the driver blocks waiting for its first batch
+     */
+    void startAggregate(String namespace, List<DBObject> pipeline) {
+        aggregatePipeline = pipeline;
+        aggregateStartTime = System.currentTimeMillis();
+        aggregateNamespace = namespace;
+    }
+
+    /**
+     * @param operation   an entry of the <code>currentOp</code> result
+     * @param currentTime the time at which the operations were listed
+     * @return true when the operation runs this query: it carries the comment of a find, or it is the recorded
+     * aggregation, which cannot have been running for longer than the time since it was sent
+     */
+    boolean isQueryOperation(DBObject operation, long currentTime) {
+        if (containsComment(operation, comment)) {
+            return true;
+        }
+        String namespace = aggregateNamespace;
+        if (namespace == null || !(operation.get("command") instanceof DBObject)) {
+            return false;
+        }
+        DBObject command = (DBObject) operation.get("command");
+        String databaseName = namespace.substring(0, namespace.indexOf('.'));
+        String collectionName = namespace.substring(databaseName.length() + 1);
+        Object operationNamespace = operation.get("ns");
+        if (!namespace.equals(operationNamespace) && !(databaseName + ".$cmd").equals(operationNamespace)) {
+            return false;
+        }
+        if (!collectionName.equals(command.get("aggregate")) || !aggregatePipeline.equals(command.get("pipeline"))) {
+            return false;
+        }
+        return getRunningTime(operation) <= currentTime - aggregateStartTime;
+    }
+
+    private static long getRunningTime(DBObject operation) {
+        if (operation.get("microsecs_running") instanceof Number) {
+            return ((Number) operation.get("microsecs_running")).longValue() / 1000;
+        }
+        if (operation.get("secs_running") instanceof Number) {
+            return ((Number) operation.get("secs_running")).longValue() * 1000;
+        }
+        return 0;
+    }
+
+    private static boolean containsComment(DBObject operation, String comment) {
+        for (String key : operation.keySet()) {
+            Object value = operation.get(key);
+            if (("$comment".equals(key) || "comment".equals(key)) && comment.equals(value)) {
+                return true;
+            }
+            if (value instanceof DBObject && containsComment((DBObject) value, comment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void attach(Cursor cursor) {
+        if (cancelled) {
+            cursor.close();
+            return;
+        }
+        this.cursor = cursor;
+    }
+
+    synchronized void detach() {
+        cursor = null;
+    }
+
+    synchronized void cancel() {
+        cancelled = true;
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+}
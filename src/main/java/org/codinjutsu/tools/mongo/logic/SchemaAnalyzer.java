@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.DBObject;
+import org.bson.types.BSONTimestamp;
+import org.bson.types.Binary;
+import org.bson.types.Code;
+import org.bson.types.CodeWScope;
+import org.bson.types.MaxKey;
+import org.bson.types.MinKey;
+import org.bson.types.ObjectId;
+import org.bson.types.Symbol;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoSchema;
+import org.codinjutsu.tools.mongo.model.MongoSchemaField;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Accumulates the field paths of the sampled documents with their types, presence, array lengths
+ * and number of distinct values.
+ */
+class SchemaAnalyzer {
+
+    static final int MAX_DISTINCT_VALUES = 10000;
+
+    private final Map<String, FieldStatistics> statisticsByPath = new LinkedHashMap<String, FieldStatistics>();
+    private int documentCount = 0;
+
+    void add(DBObject document) {
+        documentCount++;
+        addFields(null, document, new HashSet<String>());
+    }
+
+    MongoSchema toSchema(MongoCollection collection, boolean randomSample, long samplingTime) {
+        List<MongoSchemaField> fields = new ArrayList<MongoSchemaField>(statisticsByPath.size());
+        for (Map.Entry<String, FieldStatistics> entry : statisticsByPath.entrySet()) {
+            fields.add(entry.getValue().toField(entry.getKey(), documentCount));
+        }
+        return new MongoSchema(collection, documentCount, randomSample, samplingTime, fields);
+    }
+
+    private void addFields(String parentPath, DBObject document, Set<String> pathsOfDocument) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fields = document.toMap();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String path = parentPath == null ? field.getKey() : parentPath + "." + field.getKey();
+            addValue(path, field.getValue(), pathsOfDocument);
+        }
+    }
+
+    private void addValue(String path, Object value, Set<String> pathsOfDocument) {
+        FieldStatistics statistics = statisticsByPath.get(path);
+        if (statistics == null) {
+            statistics = new FieldStatistics();
+            statisticsByPath.put(path, statistics);
+        }
+        if (pathsOfDocument.add(path)) {
+            statistics.presenceCount++;
+        }
+        statistics.addType(getBsonType(value));
+
+        if (value instanceof List) {
+            List elements = (List) value;
+            statistics.addArrayLength(elements.size());
+            for (Object element : elements) {
+                if (element instanceof DBObject && !(element instanceof List)) {
+                    addFields(path, (DBObject) element, pathsOfDocument);
+                }
+            }
+        } else if (value instanceof DBObject) {
+            addFields(path, (DBObject) value, pathsOfDocument);
+        } else {
+            statistics.addValue(value);
+        }
+    }
+
+    static String getBsonType(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof List) {
+            return "array";
+        } else if (value instanceof DBObject) {
+            return "object";
+        } else if (value instanceof String) {
+            return "string";
+        } else if (value instanceof Integer) {
+            return "int";
+        } else if (value instanceof Long) {
+            return "long";
+        } else if (value instanceof Double) {
+            return "double";
+        } else if (value instanceof Boolean) {
+            return "bool";
+        } else if (value instanceof Date) {
+            return "date";
+        } else if (value instanceof ObjectId) {
+            return "objectId";
+        } else if (value instanceof Binary || value instanceof byte[] || value instanceof UUID) {
+            return "binData";
+        } else if (value instanceof Pattern) {
+            return "regex";
+        } else if (value instanceof BSONTimestamp) {
+            return "timestamp";
+        } else if (value instanceof CodeWScope) {
+            return "javascriptWithScope";
+        } else if (value instanceof Code) {
+            return "javascript";
+        } else if (value instanceof Symbol) {
+            return "symbol";
+        } else if (value instanceof MinKey) {
+            return "minKey";
+        } else if (value instanceof MaxKey) {
+            return "maxKey";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static class FieldStatistics {
+
+        private int presenceCount = 0;
+        private final Map<String, Integer> typeCounts = new HashMap<String, Integer>();
+        private int minArrayLength = MongoSchemaField.NOT_AN_ARRAY;
+        private int maxArrayLength = MongoSchemaField.NOT_AN_ARRAY;
+        private final Set<Integer> valueHashes = new HashSet<Integer>();
+        private boolean valueHashesCapped = false;
+
+        private void addType(String type) {
+            Integer count = typeCounts.get(type);
+            typeCounts.put(type, count == null ? 1 : count + 1);
+        }
+
+        private void addArrayLength(int length) {
+            minArrayLength = minArrayLength == MongoSchemaField.NOT_AN_ARRAY ? length : Math.min(minArrayLength, length);
+            maxArrayLength = Math.max(maxArrayLength, length);
+        }
+
+        private void addValue(Object value) {
+            if (valueHashes.size() < MAX_DISTINCT_VALUES) {
+                valueHashes.add(value == null ? 0 : value.hashCode());
+            } else {
+                valueHashesCapped = true;
+            }
+        }
+
+        private MongoSchemaField toField(String path, int sampleSize) {
+            List<Map.Entry<String, Integer>> sortedTypeCounts = new ArrayList<Map.Entry<String, Integer>>(typeCounts.entrySet());
+            Collections.sort(sortedTypeCounts, new Comparator<Map.Entry<String, Integer>>() {
+                @Override
+                public int compare(Map.Entry<String, Integer> typeCount1, Map.Entry<String, Integer> typeCount2) {
+                    return typeCount2.getValue().compareTo(typeCount1.getValue());
+                }
+            });
+            Map<String, Integer> orderedTypeCounts = new LinkedHashMap<String, Integer>();
+            for (Map.Entry<String, Integer> typeCount : sortedTypeCounts) {
+                orderedTypeCounts.put(typeCount.getKey(), typeCount.getValue());
+            }
+            return new MongoSchemaField(path, presenceCount, sampleSize, orderedTypeCounts,
+                    minArrayLength, maxArrayLength, valueHashes.size(), valueHashesCapped);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBObject;
+import org.bson.LazyBSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps documents as their raw BSON bytes, packed in large chunks with an offset index.
+ * A document is only decoded, field by field, when it is read: {@link #get(int)} returns a {@link LazyDBObject}
+ * over the stored bytes.
+ * <p/>
+ * Once the chunks reach the heap budget, the next documents are written to a {@link BsonSpillFile} and
+ * {@link #get(int)} returns a {@link SpilledDocument} that copies them back from the file each time it is read.
+ * <p/>
+ * The store is filled by the thread that reads the cursor while the UI already reads the first documents.
+ */
+class BsonDocumentStore {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final LazyDBCallback LAZY_CALLBACK = new LazyDBCallback(null);
+
+    private final long heapBudget;
+
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+    private int chunkPosition = 0;
+    private long heapSize = 0;
+
+    private BsonSpillFile spillFile;
+
+    /**
+     * Index of the chunk of every document, or <code>-(segment index + 1)</code> when it is in the spill file
+     */
+    private int[] chunkIndexes = new int[64];
+    private int[] offsets = new int[64];
+    private int size = 0;
+
+    private long byteSize = 0;
+    private boolean disposed = false;
+
+    BsonDocumentStore() {
+        this(Long.MAX_VALUE);
+    }
+
+    BsonDocumentStore(long heapBudget) {
+        this.heapBudget = heapBudget;
+    }
+
+    synchronized int add(DBObject document) {
+        checkNotDisposed();
+        long location = write(document);
+        if (size == offsets.length) {
+            chunkIndexes = Arrays.copyOf(chunkIndexes, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        chunkIndexes[size] = chunkIndexOf(location);
+        offsets[size] = offsetOf(location);
+        return size++;
+    }
+
+    /**
+     * Stores a new version of the document at the given index. The bytes of the previous version are left
+     * where they are, so the views already returned for it keep reading it.
+     */
+    synchronized void replace(int index, DBObject document) {
+        checkIndex(index);
+        byteSize -= documentSize(index);
+        long location = write(document);
+        chunkIndexes[index] = chunkIndexOf(location);
+        offsets[index] = offsetOf(location);
+    }
+
+    /**
+     * Removes the document at the given index, the next ones moving down by one. Its bytes are only released
+     * with the store.
+     */
+    synchronized void remove(int index) {
+        checkIndex(index);
+        byteSize -= documentSize(index);
+        System.arraycopy(chunkIndexes, index + 1, chunkIndexes, index, size - index - 1);
+        System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+        size--;
+    }
+
+    synchronized DBObject get(int index) {
+        checkIndex(index);
+        if (chunkIndexes[index] < 0) {
+            return new SpilledDocument(this, -chunkIndexes[index] - 1, offsets[index]);
+        }
+        return new LazyDBObject(chunks.get(chunkIndexes[index]), offsets[index], LAZY_CALLBACK);
+    }
+
+    /**
+     * @return the spilled document decoded from a copy of its bytes, which stays readable after the store is disposed
+     */
+    synchronized DBObject read(int segmentIndex, int offset) {
+        checkNotDisposed();
+        return new LazyDBObject(spillFile.read(segmentIndex, offset), LAZY_CALLBACK);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return the BSON size of the stored documents, which is roughly what they weighed on the wire
+     */
+    synchronized long getByteSize() {
+        return byteSize;
+    }
+
+    synchronized boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Releases the chunks and deletes the spill file. The documents cannot be read anymore afterwards.
+     */
+    synchronized void dispose() {
+        disposed = true;
+        chunks.clear();
+        if (spillFile != null) {
+            spillFile.close();
+        }
+    }
+
+    BsonSpillFile getSpillFile() {
+        return spillFile;
+    }
+
+    private ByteBuffer reserve(int documentSize) {
+        if (spillFile == null) {
+            byte[] chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (chunk != null && chunk.length - chunkPosition >= documentSize) {
+                return reserveInChunk(chunk, documentSize);
+            }
+            int newChunkSize = Math.max(CHUNK_SIZE, documentSize);
+            if (heapSize + newChunkSize <= heapBudget) {
+                chunks.add(new byte[newChunkSize]);
+                heapSize += newChunkSize;
+                chunkPosition = 0;
+                return reserveInChunk(chunks.get(chunks.size() - 1), documentSize);
+            }
+        }
+        try {
+            if (spillFile == null) {
+                spillFile = new BsonSpillFile();
+            }
+            return spillFile.reserve(documentSize);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to write the result to a temporary file", ex);
+        }
+    }
+
+    private ByteBuffer reserveInChunk(byte[] chunk, int documentSize) {
+        ByteBuffer documentBuffer = ByteBuffer.wrap(chunk, chunkPosition, documentSize);
+        chunkPosition += documentSize;
+        return documentBuffer;
+    }
+
+    /**
+     * Appends the BSON of the document to the chunks or to the spill file
+     *
+     * @return the location of the document, packing its chunk index in the high int and its offset in the low one
+     */
+    private long write(DBObject document) {
+        byte[] bson = null;
+        int documentSize;
+        if (document instanceof LazyBSONObject) {
+            documentSize = ((LazyBSONObject) document).getBSONSize();
+        } else {
+            bson = new DefaultDBEncoder().encode(document);
+            documentSize = bson.length;
+        }
+
+        ByteBuffer documentBuffer = reserve(documentSize);
+        int chunkIndex = spillFile == null ? chunks.size() - 1 : -(spillFile.getLastSegmentIndex() + 1);
+        int offset = documentBuffer.position();
+        if (bson != null) {
+            documentBuffer.put(bson);
+        } else {
+            try {
+                ((LazyBSONObject) document).pipe(new BufferOutputStream(documentBuffer));
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        byteSize += documentSize;
+        return ((long) chunkIndex << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int chunkIndexOf(long location) {
+        return (int) (location >> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private int documentSize(int index) {
+        if (chunkIndexes[index] < 0) {
+            return spillFile.read(-chunkIndexes[index] - 1, offsets[index]).length;
+        }
+        return ByteBuffer.wrap(chunks.get(chunkIndexes[index])).order(ByteOrder.LITTLE_ENDIAN).getInt(offsets[index]);
+    }
+
+    private void checkIndex(int index) {
+        checkNotDisposed();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, size));
+        }
+    }
+
+    private void checkNotDisposed() {
+        if (disposed) {
+            throw new IllegalStateException("The result has been disposed");
+        }
+    }
+
+    /**
+     * Writes into the space reserved for one document. {@link LazyBSONObject#pipe(OutputStream)} writes
+     * everything after the offset of the document, so the extra bytes are dropped.
+     */
+    private static class BufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            if (buffer.hasRemaining()) {
+                buffer.put((byte) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.put(bytes, offset, Math.min(length, buffer.remaining()));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Temporary file where the raw BSON of the documents is appended through memory-mapped segments,
+ * so that its pages are cached by the OS instead of living on the heap.
+ * A document never straddles two segments: one bigger than {@link #SEGMENT_SIZE} gets a segment of its own.
+ */
+class BsonSpillFile {
+
+    static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+    private long fileLength = 0;
+
+    BsonSpillFile() throws IOException {
+        file = File.createTempFile("mongo-result", ".bson");
+        file.deleteOnExit();
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * @return a buffer positioned where the next document of <code>documentSize</code> bytes should be written,
+     * in the last segment
+     */
+    ByteBuffer reserve(int documentSize) throws IOException {
+        if (segments.isEmpty() || segments.get(segments.size() - 1).remaining() < documentSize) {
+            int segmentSize = Math.max(SEGMENT_SIZE, documentSize);
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, fileLength, segmentSize));
+            fileLength += segmentSize;
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        ByteBuffer documentBuffer = segment.duplicate();
+        documentBuffer.limit(segment.position() + documentSize);
+        segment.position(segment.position() + documentSize);
+        return documentBuffer;
+    }
+
+    int getLastSegmentIndex() {
+        return segments.size() - 1;
+    }
+
+    /**
+     * @return a copy of the document written at the given place
+     */
+    byte[] read(int segmentIndex, int position) {
+        ByteBuffer segment = segments.get(segmentIndex).duplicate();
+        int documentSize = segment.order(ByteOrder.LITTLE_ENDIAN).getInt(position);
+        byte[] document = new byte[documentSize];
+        segment.position(position);
+        segment.get(document);
+        return document;
+    }
+
+    long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * Closes and deletes the file. Java 7 cannot unmap the segments, so on some platforms the deletion only
+     * succeeds once they are garbage collected, hence the deletion on exit as a fallback.
+     */
+    void close() {
+        segments.clear();
+        try {
+            channel.close();
+            randomAccessFile.close();
+        } catch (IOException ignored) {
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    File getFile() {
+        return file;
+    }
+}
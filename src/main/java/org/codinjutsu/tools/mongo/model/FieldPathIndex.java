@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Field paths of a collection sorted so that the ones starting with a prefix are found by a binary search
+ * and read as a contiguous range.
+ */
+public class FieldPathIndex {
+
+    private final String[] sortedPaths;
+
+    public FieldPathIndex(Collection<String> paths) {
+        sortedPaths = paths.toArray(new String[paths.size()]);
+        Arrays.sort(sortedPaths);
+    }
+
+    /**
+     * @return the paths starting with the prefix in alphabetical order, at most maxCount of them
+     */
+    public List<String> findByPrefix(String prefix, int maxCount) {
+        int index = Arrays.binarySearch(sortedPaths, prefix);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        List<String> paths = new ArrayList<String>();
+        while (index < sortedPaths.length && paths.size() < maxCount && sortedPaths[index].startsWith(prefix)) {
+            paths.add(sortedPaths[index++]);
+        }
+        return paths;
+    }
+
+    public int size() {
+        return sortedPaths.length;
+    }
+}
@@ -18,20 +18,93 @@ package org.codinjutsu.tools.mongo.model;
 
 import com.mongodb.DBObject;
 
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class MongoCollectionResult {
 
     private final String collectionName;
-    private final List<DBObject> mongoObjects = new LinkedList<DBObject>();
+    private final BsonDocumentStore documentStore;
+    private final long sizeLimit;
+    private long fetchDuration;
+    /**
+     * Index of the documents by <code>_id</code>, so that finding an edited document does not read the whole result
+     * back, which could be from the temporary file
+     */
+    private final Map<Object, Integer> indexById = new HashMap<Object, Integer>();
+    private final List<DBObject> mongoObjects = new AbstractList<DBObject>() {
+        @Override
+        public DBObject get(int index) {
+            return documentStore.get(index);
+        }
+
+        @Override
+        public int size() {
+            return documentStore.size();
+        }
+    };
 
     public MongoCollectionResult(String collectionName) {
         this.collectionName = collectionName;
+        this.documentStore = new BsonDocumentStore();
+        this.sizeLimit = Long.MAX_VALUE;
+    }
+
+    /**
+     * @param heapBudgetInMB size of the documents kept on the heap, the next ones being written to a temporary
+     *                       file. 0 means no limit
+     * @param sizeLimitInMB  size of the documents after which the fetching should stop. 0 means no limit
+     */
+    public MongoCollectionResult(String collectionName, int heapBudgetInMB, int sizeLimitInMB) {
+        this.collectionName = collectionName;
+        this.documentStore = new BsonDocumentStore(toBytes(heapBudgetInMB));
+        this.sizeLimit = toBytes(sizeLimitInMB);
+    }
+
+    /**
+     * Stores the raw BSON of the document.
+     *
+     * @return a lazily decoded view of the stored document, to be used instead of the given one
+     */
+    public synchronized DBObject add(DBObject dbObject) {
+        int index = documentStore.add(dbObject);
+        indexId(dbObject, index);
+        return documentStore.get(index);
+    }
+
+    /**
+     * Stores the new version of the document at the given index, e.g. once it has been edited.
+     *
+     * @return a lazily decoded view of the stored document
+     */
+    public synchronized DBObject replace(int index, DBObject dbObject) {
+        documentStore.replace(index, dbObject);
+        indexId(dbObject, index);
+        return documentStore.get(index);
+    }
+
+    public synchronized void remove(int index) {
+        documentStore.remove(index);
+        Iterator<Map.Entry<Object, Integer>> indexEntries = indexById.entrySet().iterator();
+        while (indexEntries.hasNext()) {
+            Map.Entry<Object, Integer> indexEntry = indexEntries.next();
+            if (indexEntry.getValue() == index) {
+                indexEntries.remove();
+            } else if (indexEntry.getValue() > index) {
+                indexEntry.setValue(indexEntry.getValue() - 1);
+            }
+        }
     }
 
-    public void add(DBObject dbObject) {
-        mongoObjects.add(dbObject);
+    /**
+     * @return the index of the document with the given <code>_id</code>, -1 if it is not in the result
+     */
+    public synchronized int indexOf(Object _id) {
+        Integer index = indexById.get(_id);
+        return index == null ? -1 : index;
     }
 
     public List<DBObject> getMongoObjects() {
@@ -41,4 +114,56 @@ public class MongoCollectionResult {
     public String getCollectionName() {
         return collectionName;
     }
+
+    /**
+     * @return the BSON size of the documents, roughly what they weighed on the wire
+     */
+    public long getByteSize() {
+        return documentStore.getByteSize();
+    }
+
+    /**
+     * @return true when some documents did not fit in the heap budget and are read back from a temporary file
+     */
+    public boolean isSpilled() {
+        return documentStore.isSpilled();
+    }
+
+    public long getSizeLimit() {
+        return sizeLimit;
+    }
+
+    /**
+     * @return true when the documents reached the size limit, the remaining ones being left unfetched
+     */
+    public boolean isSizeLimitReached() {
+        return documentStore.getByteSize() >= sizeLimit;
+    }
+
+    public long getFetchDuration() {
+        return fetchDuration;
+    }
+
+    public void setFetchDuration(long fetchDuration) {
+        this.fetchDuration = fetchDuration;
+    }
+
+    /**
+     * Releases the stored documents and deletes their temporary file if any.
+     */
+    public void dispose() {
+        documentStore.dispose();
+        indexById.clear();
+    }
+
+    private void indexId(DBObject dbObject, int index) {
+        Object _id = dbObject.get("_id");
+        if (_id != null && !indexById.containsKey(_id)) {
+            indexById.put(_id, index);
+        }
+    }
+
+    private static long toBytes(int sizeInMB) {
+        return sizeInMB > 0 ? sizeInMB * 1024L * 1024L : Long.MAX_VALUE;
+    }
 }
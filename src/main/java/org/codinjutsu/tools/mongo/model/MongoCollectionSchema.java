@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+/**
+ * Explorer folder showing the sampled schema of a collection, loaded when it is expanded.
+ */
+public class MongoCollectionSchema {
+
+    private final MongoCollection collection;
+    private MongoSchema schema;
+
+    public MongoCollectionSchema(MongoCollection collection) {
+        this.collection = collection;
+    }
+
+    public MongoCollection getCollection() {
+        return collection;
+    }
+
+    /**
+     * @return the displayed schema, null until it is loaded
+     */
+    public MongoSchema getSchema() {
+        return schema;
+    }
+
+    public void setSchema(MongoSchema schema) {
+        this.schema = schema;
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.codinjutsu.tools.mongo.model;
 
+import java.util.Collection;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -23,7 +24,8 @@ import java.util.TreeSet;
 public class MongoDatabase {
     private final String name;
 
-    private final SortedSet<MongoCollection> collections = new TreeSet<MongoCollection>();
+    private volatile SortedSet<MongoCollection> collections = new TreeSet<MongoCollection>();
+    private volatile boolean collectionsLoaded = false;
 
     public MongoDatabase(String name) {
         this.name = name;
@@ -40,4 +42,16 @@ public class MongoDatabase {
     public void addCollection(MongoCollection mongoCollection) {
         collections.add(mongoCollection);
     }
+
+    /**
+     * Replaces the collections once they have been listed, which may happen after the database is displayed
+     */
+    public void setCollections(Collection<MongoCollection> mongoCollections) {
+        collections = new TreeSet<MongoCollection>(mongoCollections);
+        collectionsLoaded = true;
+    }
+
+    public boolean isCollectionsLoaded() {
+        return collectionsLoaded;
+    }
 }
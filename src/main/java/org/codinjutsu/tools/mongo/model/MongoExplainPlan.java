@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Digest of an explain output (find or aggregation, executionStats verbosity): winning plan stages with their timings,
+ * indexes used, keys and documents examined versus returned, and whether the collection is scanned.
+ * <p/>
+ * On a sharded cluster the winning plan is a SINGLE_SHARD or SHARD_MERGE stage whose <code>shards</code> carry
+ * the plan of each shard, which are walked like input stages.
+ */
+public class MongoExplainPlan {
+
+    private static final String COLLECTION_SCAN_STAGE = "COLLSCAN";
+
+    private final DBObject queryPlanner;
+    private final DBObject executionStats;
+
+    public MongoExplainPlan(DBObject explainOutput) {
+        DBObject plannedQuery = findPlannedQuery(explainOutput);
+        this.queryPlanner = getObject(plannedQuery, "queryPlanner");
+        this.executionStats = getObject(plannedQuery, "executionStats");
+    }
+
+    public boolean isCollectionScan() {
+        return containsStage(getStageTree(), COLLECTION_SCAN_STAGE);
+    }
+
+    public Set<String> getIndexNames() {
+        Set<String> indexNames = new LinkedHashSet<String>();
+        collectIndexNames(getStageTree(), indexNames);
+        return indexNames;
+    }
+
+    public long getReturnedCount() {
+        return getLong(executionStats, "nReturned");
+    }
+
+    public long getKeysExaminedCount() {
+        return getLong(executionStats, "totalKeysExamined");
+    }
+
+    public long getDocsExaminedCount() {
+        return getLong(executionStats, "totalDocsExamined");
+    }
+
+    public long getExecutionTimeMillis() {
+        return getLong(executionStats, "executionTimeMillis");
+    }
+
+    /**
+     * Stages of the winning plan, taken from the execution stats when available so that each stage carries its counters
+     * and time estimate.
+     */
+    public DBObject getStageTree() {
+        DBObject executionStages = getObject(executionStats, "executionStages");
+        if (executionStages != null) {
+            return executionStages;
+        }
+        return getObject(queryPlanner, "winningPlan");
+    }
+
+    public DBObject toSummary() {
+        BasicDBObject summary = new BasicDBObject();
+        summary.put("collectionScan", isCollectionScan());
+        BasicDBList indexNames = new BasicDBList();
+        indexNames.addAll(getIndexNames());
+        summary.put("indexes", indexNames);
+        if (executionStats != null) {
+            summary.put("nReturned", getReturnedCount());
+            summary.put("totalKeysExamined", getKeysExaminedCount());
+            summary.put("totalDocsExamined", getDocsExaminedCount());
+            summary.put("executionTimeMillis", getExecutionTimeMillis());
+        }
+        DBObject stageTree = getStageTree();
+        if (stageTree != null) {
+            summary.put("winningPlan", summarizeStage(stageTree));
+        }
+        return summary;
+    }
+
+    private static DBObject findPlannedQuery(DBObject explainOutput) {
+        if (explainOutput.containsField("queryPlanner")) {
+            return explainOutput;
+        }
+        Object stages = explainOutput.get("stages");
+        if (stages instanceof BasicDBList) {
+            for (Object stage : (BasicDBList) stages) {
+                DBObject cursorStage = getObject((DBObject) stage, "$cursor");
+                if (cursorStage != null) {
+                    return cursorStage;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static DBObject summarizeStage(DBObject stage) {
+        BasicDBObject stageSummary = new BasicDBObject();
+        copyField(stage, stageSummary, "stage");
+        copyField(stage, stageSummary, "indexName");
+        copyField(stage, stageSummary, "keyPattern");
+        copyField(stage, stageSummary, "direction");
+        copyField(stage, stageSummary, "nReturned");
+        copyField(stage, stageSummary, "executionTimeMillisEstimate");
+        copyField(stage, stageSummary, "keysExamined");
+        copyField(stage, stageSummary, "docsExamined");
+
+        BasicDBList inputStages = new BasicDBList();
+        for (DBObject inputStage : getOwnInputStages(stage)) {
+            inputStages.add(summarizeStage(inputStage));
+        }
+        if (!inputStages.isEmpty()) {
+            stageSummary.put("inputStages", inputStages);
+        }
+
+        BasicDBList shardSummaries = new BasicDBList();
+        for (DBObject shard : getShards(stage)) {
+            DBObject shardStage = getShardStage(shard);
+            if (shardStage != null) {
+                BasicDBObject shardSummary = new BasicDBObject();
+                copyField(shard, shardSummary, "shardName");
+                shardSummary.put("winningPlan", summarizeStage(shardStage));
+                shardSummaries.add(shardSummary);
+            }
+        }
+        if (!shardSummaries.isEmpty()) {
+            stageSummary.put("shards", shardSummaries);
+        }
+        return stageSummary;
+    }
+
+    private static boolean containsStage(DBObject stage, String stageName) {
+        if (stage == null) {
+            return false;
+        }
+        if (stageName.equals(stage.get("stage"))) {
+            return true;
+        }
+        for (DBObject inputStage : getInputStages(stage)) {
+            if (containsStage(inputStage, stageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void collectIndexNames(DBObject stage, Set<String> indexNames) {
+        if (stage == null) {
+            return;
+        }
+        Object indexName = stage.get("indexName");
+        if (indexName != null) {
+            indexNames.add(indexName.toString());
+        }
+        for (DBObject inputStage : getInputStages(stage)) {
+            collectIndexNames(inputStage, indexNames);
+        }
+    }
+
+    /**
+     * @return the input stages of the stage, including the plans of the shards
+     */
+    private static List<DBObject> getInputStages(DBObject stage) {
+        List<DBObject> inputStages = getOwnInputStages(stage);
+        for (DBObject shard : getShards(stage)) {
+            DBObject shardStage = getShardStage(shard);
+            if (shardStage != null) {
+                inputStages.add(shardStage);
+            }
+        }
+        return inputStages;
+    }
+
+    private static List<DBObject> getOwnInputStages(DBObject stage) {
+        List<DBObject> inputStages = new LinkedList<DBObject>();
+        Object inputStage = stage.get("inputStage");
+        if (inputStage instanceof DBObject) {
+            inputStages.add((DBObject) inputStage);
+        }
+        Object multipleInputStages = stage.get("inputStages");
+        if (multipleInputStages instanceof BasicDBList) {
+            for (Object multipleInputStage : (BasicDBList) multipleInputStages) {
+                inputStages.add((DBObject) multipleInputStage);
+            }
+        }
+        return inputStages;
+    }
+
+    private static List<DBObject> getShards(DBObject stage) {
+        List<DBObject> shards = new LinkedList<DBObject>();
+        Object shardList = stage.get("shards");
+        if (shardList instanceof BasicDBList) {
+            for (Object shard : (BasicDBList) shardList) {
+                shards.add((DBObject) shard);
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * @return the execution stages of the shard when available, its winning plan otherwise
+     */
+    private static DBObject getShardStage(DBObject shard) {
+        DBObject executionStages = getObject(shard, "executionStages");
+        if (executionStages != null) {
+            return executionStages;
+        }
+        return getObject(shard, "winningPlan");
+    }
+
+    private static void copyField(DBObject source, DBObject destination, String field) {
+        if (source.containsField(field)) {
+            destination.put(field, source.get(field));
+        }
+    }
+
+    private static DBObject getObject(DBObject document, String field) {
+        if (document == null) {
+            return null;
+        }
+        Object value = document.get(field);
+        if (value instanceof DBObject) {
+            return (DBObject) value;
+        }
+        return null;
+    }
+
+    private static long getLong(DBObject document, String field) {
+        if (document == null) {
+            return 0;
+        }
+        Object value = document.get(field);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.DBObject;
+
+import java.util.Date;
+
+public class MongoIndex {
+
+    public static final long UNKNOWN = -1;
+
+    private final String name;
+    private final DBObject key;
+    private final boolean unique;
+
+    private long size = UNKNOWN;
+    private long accesses = UNKNOWN;
+    private Date accessesSince;
+
+    public MongoIndex(String name, DBObject key, boolean unique) {
+        this.name = name;
+        this.key = key;
+        this.unique = unique;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DBObject getKey() {
+        return key;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getAccesses() {
+        return accesses;
+    }
+
+    public Date getAccessesSince() {
+        return accessesSince;
+    }
+
+    public void setAccesses(long accesses, Date accessesSince) {
+        this.accesses = accesses;
+        this.accessesSince = accessesSince;
+    }
+}
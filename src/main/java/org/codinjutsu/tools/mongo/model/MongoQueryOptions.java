@@ -21,7 +21,10 @@ import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import com.mongodb.util.JSON;
 import org.apache.commons.lang.StringUtils;
+import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -30,6 +33,8 @@ public class MongoQueryOptions {
     private static final int DEFAULT_RESULT_LIMIT = 300;
 
     private static final BasicDBObject EMPTY_FILTER = new BasicDBObject();
+    private static final String ID_FIELD = "_id";
+    private static final int NOT_SEEKABLE = 0;
     private final List<Object> operations = new LinkedList<Object>();
 
     private DBObject filter = EMPTY_FILTER;
@@ -37,6 +42,25 @@ public class MongoQueryOptions {
     private DBObject sort;
 
     private int resultLimit = DEFAULT_RESULT_LIMIT;
+    private int page = 0;
+    private boolean allowDiskUse = false;
+    private int batchSize = 0;
+    private int maxTime = 0;
+    private DBObject lastPageKey = null;
+    /**
+     * Whether the sort keys of all the documents of the filter have the type of the keys of the first sought page,
+     * null until it has been checked
+     */
+    private Boolean seekRangeUniform = null;
+    /**
+     * Whether the user sort, with the <code>_id</code> tie-breaker if any, gives every document a unique position,
+     * null until the indexes of the collection have been checked
+     */
+    private Boolean sortUnique = null;
+    /**
+     * Direction of the <code>_id</code> appended to the user sort as a tie-breaker, 0 for none
+     */
+    private int idTieBreakerDirection = 0;
 
     public boolean isAggregate() {
         return !operations.isEmpty();
@@ -90,4 +114,311 @@ public class MongoQueryOptions {
     public void setResultLimit(int resultLimit) {
         this.resultLimit = resultLimit;
     }
+
+    public boolean isAllowDiskUse() {
+        return allowDiskUse;
+    }
+
+    public void setAllowDiskUse(boolean allowDiskUse) {
+        this.allowDiskUse = allowDiskUse;
+    }
+
+    /**
+     * Number of documents per cursor batch, the page size being used when it is not set.
+     */
+    public int getBatchSize() {
+        if (batchSize > 0 || resultLimit <= 0) {
+            return batchSize;
+        }
+        return resultLimit;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Server-side time budget of the query in milliseconds, 0 leaving the server configuration default.
+     */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    public void setMaxTime(int maxTime) {
+        this.maxTime = maxTime;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSkip() {
+        if (isSeeking()) {
+            return 0;
+        }
+        return page * resultLimit;
+    }
+
+    /**
+     * Sort applied when paging a find query: the user sort, with <code>_id</code> appended as a tie-breaker only
+     * when an index serves both so that the sort still uses it, see {@link #checkSortUniqueness(List)}.
+     * Without a user sort nor a filter, the documents are read in the order of the <code>_id</code> index.
+     */
+    public DBObject getPageSort() {
+        if (!isKeysetPageable()) {
+            return sort;
+        }
+        if (sort == null) {
+            return new BasicDBObject(ID_FIELD, 1);
+        }
+        if (idTieBreakerDirection == 0) {
+            return sort;
+        }
+        BasicDBObject pageSort = new BasicDBObject();
+        pageSort.putAll(sort);
+        pageSort.put(ID_FIELD, idTieBreakerDirection);
+        return pageSort;
+    }
+
+    /**
+     * Filter applied when paging a find query: when the previous page ended with a known sort key, the user filter
+     * is restricted to the documents placed after it, so a deep page costs the same as the first one.
+     * <p/>
+     * <code>$gt</code> and <code>$lt</code> only match values of the same type as the sort key while the sort order
+     * runs across types, so the page is only sought once {@link #setSeekRangeUniform(boolean)} confirmed that
+     * every document of the filter has sort keys of that type.
+     */
+    public DBObject getPageFilter() {
+        if (!isSeeking()) {
+            return filter;
+        }
+
+        DBObject pageSort = getPageSort();
+        BasicDBList seekConditions = new BasicDBList();
+        List<String> keys = new LinkedList<String>(lastPageKey.keySet());
+        for (int keyIndex = 0; keyIndex < keys.size(); keyIndex++) {
+            BasicDBObject seekCondition = new BasicDBObject();
+            for (int previousKeyIndex = 0; previousKeyIndex < keyIndex; previousKeyIndex++) {
+                String previousKey = keys.get(previousKeyIndex);
+                seekCondition.put(previousKey, lastPageKey.get(previousKey));
+            }
+            String key = keys.get(keyIndex);
+            String operator = getSortDirection(pageSort.get(key)) < 0 ? "$lt" : "$gt";
+            seekCondition.put(key, new BasicDBObject(operator, lastPageKey.get(key)));
+            seekConditions.add(seekCondition);
+        }
+
+        BasicDBObject seekFilter = new BasicDBObject("$or", seekConditions);
+        if (filter.keySet().isEmpty()) {
+            return seekFilter;
+        }
+        BasicDBList andConditions = new BasicDBList();
+        andConditions.add(filter);
+        andConditions.add(seekFilter);
+        return new BasicDBObject("$and", andConditions);
+    }
+
+    /**
+     * Options of the page following the one ending with the given document. The page is sought after the sort key
+     * of that document when possible and skipped to otherwise (aggregation, special sort or key left out by the projection).
+     */
+    public MongoQueryOptions nextPage(DBObject lastDocument) {
+        MongoQueryOptions nextPageQueryOptions = forPage(page + 1);
+        if (lastDocument == null || !isKeysetPageable() || !isSortUnique() || Boolean.FALSE.equals(seekRangeUniform)) {
+            return nextPageQueryOptions;
+        }
+
+        BasicDBObject nextPageKey = new BasicDBObject();
+        for (String key : getPageSort().keySet()) {
+            Object value = getFieldValue(lastDocument, key);
+            if (getSeekType(value) == NOT_SEEKABLE) {
+                return nextPageQueryOptions;
+            }
+            if (lastPageKey != null && getSeekType(value) != getSeekType(lastPageKey.get(key))) {
+                nextPageQueryOptions.seekRangeUniform = null;
+            }
+            nextPageKey.put(key, value);
+        }
+        nextPageQueryOptions.lastPageKey = nextPageKey;
+        return nextPageQueryOptions;
+    }
+
+    public MongoQueryOptions forPage(int page) {
+        MongoQueryOptions pageQueryOptions = new MongoQueryOptions();
+        pageQueryOptions.operations.addAll(operations);
+        pageQueryOptions.filter = filter;
+        pageQueryOptions.projection = projection;
+        pageQueryOptions.sort = sort;
+        pageQueryOptions.resultLimit = resultLimit;
+        pageQueryOptions.page = page;
+        pageQueryOptions.allowDiskUse = allowDiskUse;
+        pageQueryOptions.batchSize = batchSize;
+        pageQueryOptions.maxTime = maxTime;
+        pageQueryOptions.seekRangeUniform = seekRangeUniform;
+        pageQueryOptions.sortUnique = sortUnique;
+        pageQueryOptions.idTieBreakerDirection = idTieBreakerDirection;
+        return pageQueryOptions;
+    }
+
+    /**
+     * @return true when the pages could be sought after the key of the previous one if the user sort turns out
+     * to be unique, which depends on the indexes of the collection
+     */
+    public boolean isSortUniquenessToCheck() {
+        return isKeysetPageable() && sortUnique == null && !isSortUnique();
+    }
+
+    /**
+     * Looks for an index making the user sort unique without changing how the server runs it: either a unique index
+     * on some of the sort keys, or an index on the sort keys followed by <code>_id</code>, which is then appended
+     * to the sort as a tie-breaker. Without such an index the pages are skipped to.
+     *
+     * @param indexes the indexes of the collection, as listed by the server
+     */
+    public void checkSortUniqueness(List<DBObject> indexes) {
+        sortUnique = false;
+        idTieBreakerDirection = 0;
+        for (DBObject index : indexes) {
+            DBObject indexKey = (DBObject) index.get("key");
+            if (Boolean.TRUE.equals(index.get("unique")) && !Boolean.TRUE.equals(index.get("sparse"))
+                    && !index.containsField("partialFilterExpression") && sort.keySet().containsAll(indexKey.keySet())) {
+                sortUnique = true;
+                return;
+            }
+        }
+        for (DBObject index : indexes) {
+            int direction = getIdTieBreakerDirection((DBObject) index.get("key"));
+            if (direction != 0) {
+                sortUnique = true;
+                idTieBreakerDirection = direction;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the direction of <code>_id</code> in the sort when the index serves the user sort followed by it,
+     * walked forward or backward, 0 when it does not
+     */
+    private int getIdTieBreakerDirection(DBObject indexKey) {
+        List<String> indexFields = new ArrayList<String>(indexKey.keySet());
+        List<String> sortFields = new ArrayList<String>(sort.keySet());
+        if (indexFields.size() <= sortFields.size() || !ID_FIELD.equals(indexFields.get(sortFields.size()))) {
+            return 0;
+        }
+        int traversal = 0;
+        for (int fieldIndex = 0; fieldIndex < sortFields.size(); fieldIndex++) {
+            String field = sortFields.get(fieldIndex);
+            if (!field.equals(indexFields.get(fieldIndex))) {
+                return 0;
+            }
+            int fieldTraversal = getSortDirection(indexKey.get(field)) * getSortDirection(sort.get(field));
+            if (fieldTraversal == 0 || (traversal != 0 && fieldTraversal != traversal)) {
+                return 0;
+            }
+            traversal = fieldTraversal;
+        }
+        return getSortDirection(indexKey.get(ID_FIELD)) * traversal;
+    }
+
+    /**
+     * @return true when the page is sought after the key of the previous one but the types of the sort keys
+     * of the filter have not been checked yet
+     */
+    public boolean isSeekRangeToCheck() {
+        return lastPageKey != null && seekRangeUniform == null;
+    }
+
+    /**
+     * @param boundaryDocument first document of the filter when sorted by the given key alone, in either direction,
+     *                         null when the filter matches nothing
+     * @return true when the key of the boundary document has the type of the key the page is sought after.
+     * As the sort order groups the values by type, when both boundaries have that type so do all the documents in between.
+     */
+    public boolean isSeekRangeBoundary(String key, DBObject boundaryDocument) {
+        if (boundaryDocument == null) {
+            return true;
+        }
+        int seekType = getSeekType(getFieldValue(boundaryDocument, key));
+        return seekType != NOT_SEEKABLE && seekType == getSeekType(lastPageKey.get(key));
+    }
+
+    /**
+     * Records whether the sort keys of all the documents of the filter have the type of the keys the page is sought
+     * after. When they do not, this page and the next ones are skipped to instead of being sought.
+     */
+    public void setSeekRangeUniform(boolean seekRangeUniform) {
+        this.seekRangeUniform = seekRangeUniform;
+    }
+
+    private boolean isSeeking() {
+        return lastPageKey != null && Boolean.TRUE.equals(seekRangeUniform);
+    }
+
+    private boolean isSortUnique() {
+        return sort == null || sort.containsField(ID_FIELD) || Boolean.TRUE.equals(sortUnique);
+    }
+
+    private boolean isKeysetPageable() {
+        if (isAggregate()) {
+            return false;
+        }
+        if (sort == null) {
+            return filter.keySet().isEmpty();
+        }
+        for (String key : sort.keySet()) {
+            if (key.startsWith("$") || getSortDirection(sort.get(key)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getSortDirection(Object sortValue) {
+        if (!(sortValue instanceof Number)) {
+            return 0;
+        }
+        int direction = ((Number) sortValue).intValue();
+        if (direction != 1 && direction != -1) {
+            return 0;
+        }
+        return direction;
+    }
+
+    /**
+     * @return the group of BSON types the value is compared with by <code>$gt</code> and <code>$lt</code>,
+     * {@link #NOT_SEEKABLE} for missing, null, array and other values
+     */
+    private static int getSeekType(Object value) {
+        if (value instanceof Number) {
+            return 1;
+        } else if (value instanceof String) {
+            return 2;
+        } else if (value instanceof ObjectId) {
+            return 3;
+        } else if (value instanceof Boolean) {
+            return 4;
+        } else if (value instanceof Date) {
+            return 5;
+        }
+        return NOT_SEEKABLE;
+    }
+
+    private static Object getFieldValue(DBObject document, String fieldPath) {
+        Object value = document;
+        for (String fieldName : StringUtils.split(fieldPath, '.')) {
+            if (!(value instanceof DBObject) || value instanceof List) {
+                return null;
+            }
+            value = ((DBObject) value).get(fieldName);
+        }
+        if (value instanceof List) {
+            return null;
+        }
+        return value;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structure of a collection inferred from a sample of its documents.
+ */
+public class MongoSchema {
+
+    private final MongoCollection collection;
+    private final int sampleSize;
+    private final boolean randomSample;
+    private final long samplingTime;
+    private final List<MongoSchemaField> fields;
+    private FieldPathIndex fieldPathIndex;
+
+    public MongoSchema(MongoCollection collection, int sampleSize, boolean randomSample, long samplingTime, List<MongoSchemaField> fields) {
+        this.collection = collection;
+        this.sampleSize = sampleSize;
+        this.randomSample = randomSample;
+        this.samplingTime = samplingTime;
+        this.fields = fields;
+    }
+
+    public MongoCollection getCollection() {
+        return collection;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * @return true when the documents were picked with <code>$sample</code>, false when they are the first ones
+     * of the collection
+     */
+    public boolean isRandomSample() {
+        return randomSample;
+    }
+
+    /**
+     * @return when the sample was taken, in milliseconds since the epoch
+     */
+    public long getSamplingTime() {
+        return samplingTime;
+    }
+
+    public List<MongoSchemaField> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the paths of the fields, indexed for the completion in the query editors
+     */
+    public synchronized FieldPathIndex getFieldPathIndex() {
+        if (fieldPathIndex == null) {
+            List<String> paths = new ArrayList<String>(fields.size());
+            for (MongoSchemaField field : fields) {
+                paths.add(field.getPath());
+            }
+            fieldPathIndex = new FieldPathIndex(paths);
+        }
+        return fieldPathIndex;
+    }
+}
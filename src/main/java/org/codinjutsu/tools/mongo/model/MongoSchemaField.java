@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import java.util.Map;
+
+/**
+ * What the sampled documents tell about one field path (dotted for the fields of sub-documents,
+ * including the ones nested in arrays).
+ */
+public class MongoSchemaField {
+
+    public static final int NOT_AN_ARRAY = -1;
+
+    private final String path;
+    private final int presenceCount;
+    private final int sampleSize;
+    private final Map<String, Integer> typeCounts;
+    private final int minArrayLength;
+    private final int maxArrayLength;
+    private final int distinctValueCount;
+    private final boolean distinctValueCountCapped;
+
+    public MongoSchemaField(String path, int presenceCount, int sampleSize, Map<String, Integer> typeCounts,
+                            int minArrayLength, int maxArrayLength, int distinctValueCount, boolean distinctValueCountCapped) {
+        this.path = path;
+        this.presenceCount = presenceCount;
+        this.sampleSize = sampleSize;
+        this.typeCounts = typeCounts;
+        this.minArrayLength = minArrayLength;
+        this.maxArrayLength = maxArrayLength;
+        this.distinctValueCount = distinctValueCount;
+        this.distinctValueCountCapped = distinctValueCountCapped;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return in how many sampled documents the field is set, even to null
+     */
+    public int getPresenceCount() {
+        return presenceCount;
+    }
+
+    public double getPresence() {
+        return sampleSize == 0 ? 0 : (double) presenceCount / sampleSize;
+    }
+
+    /**
+     * @return how many values of each BSON type were seen, the most frequent type first
+     */
+    public Map<String, Integer> getTypeCounts() {
+        return typeCounts;
+    }
+
+    public boolean isArray() {
+        return maxArrayLength != NOT_AN_ARRAY;
+    }
+
+    public int getMinArrayLength() {
+        return minArrayLength;
+    }
+
+    public int getMaxArrayLength() {
+        return maxArrayLength;
+    }
+
+    /**
+     * @return an estimate of the number of distinct scalar values in the sample, based on their hash codes
+     */
+    public int getDistinctValueCount() {
+        return distinctValueCount;
+    }
+
+    /**
+     * @return true when there were too many distinct values to count them all
+     */
+    public boolean isDistinctValueCountCapped() {
+        return distinctValueCountCapped;
+    }
+}
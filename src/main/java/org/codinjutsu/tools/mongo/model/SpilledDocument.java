@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.DBObject;
+import org.bson.BSONObject;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only document of a {@link BsonDocumentStore} that lives in its spill file. Nothing is kept on the heap:
+ * every read copies the document back from the file, so callers needing several fields should use {@link #toMap()}.
+ */
+class SpilledDocument implements DBObject {
+
+    private final BsonDocumentStore documentStore;
+    private final int segmentIndex;
+    private final int offset;
+
+    SpilledDocument(BsonDocumentStore documentStore, int segmentIndex, int offset) {
+        this.documentStore = documentStore;
+        this.segmentIndex = segmentIndex;
+        this.offset = offset;
+    }
+
+    @Override
+    public Object get(String key) {
+        return read().get(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return read().containsField(key);
+    }
+
+    @Override
+    public boolean containsField(String key) {
+        return read().containsField(key);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return read().keySet();
+    }
+
+    @Override
+    public Map toMap() {
+        return read().toMap();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw new UnsupportedOperationException("Object is read only");
+    }
+
+    @Override
+    public void putAll(BSONObject document) {
+        throw new UnsupportedOperationException("Object is read only");
+    }
+
+    @Override
+    public void putAll(Map map) {
+        throw new UnsupportedOperationException("Object is read only");
+    }
+
+    @Override
+    public Object removeField(String key) {
+        throw new UnsupportedOperationException("Object is read only");
+    }
+
+    @Override
+    public void markAsPartialObject() {
+        throw new UnsupportedOperationException("Object is read only");
+    }
+
+    @Override
+    public boolean isPartialObject() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return read().toString();
+    }
+
+    private DBObject read() {
+        return documentStore.read(segmentIndex, offset);
+    }
+}
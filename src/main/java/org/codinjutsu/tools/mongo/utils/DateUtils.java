@@ -16,21 +16,35 @@
 
 package org.codinjutsu.tools.mongo.utils;
 
+import org.apache.commons.lang.time.FastDateFormat;
+
 import java.text.DateFormat;
+import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
 
 public class DateUtils {
 
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * Immutable, so it can be shared by every thread that renders or exports documents.
+     */
+    private static final FastDateFormat UTC_DATE_TIME_FORMAT = FastDateFormat.getDateTimeInstance(FastDateFormat.SHORT, FastDateFormat.LONG, UTC, Locale.getDefault());
+
+    public static String formatUtcDateTime(Date date) {
+        return UTC_DATE_TIME_FORMAT.format(date);
+    }
+
     public static DateFormat utcDateTime(Locale locale) {
         DateFormat format = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.LONG, locale);
-        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        format.setTimeZone(UTC);
         return format;
     }
 
     public static DateFormat utcTime(Locale locale) {
         DateFormat format = DateFormat.getTimeInstance(DateFormat.MEDIUM, locale);
-        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        format.setTimeZone(UTC);
         return format;
     }
 }
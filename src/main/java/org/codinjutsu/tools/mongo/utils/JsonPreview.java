@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.utils;
+
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.bson.LazyBSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the beginning of a document the same way {@link JSON#serialize(Object)} does, but stops as soon as
+ * the requested length is reached instead of serializing the whole document.
+ */
+public class JsonPreview {
+
+    private static final String ELLIPSIS = "...";
+
+    private JsonPreview() {
+    }
+
+    public static String preview(DBObject document, int maxLength) {
+        StringBuilder builder = new StringBuilder();
+        if (!append(builder, document, maxLength)) {
+            builder.setLength(maxLength - ELLIPSIS.length());
+            builder.append(ELLIPSIS);
+        }
+        return builder.toString();
+    }
+
+    private static boolean append(StringBuilder builder, Object value, int maxLength) {
+        if (value instanceof List) {
+            builder.append("[ ");
+            boolean first = true;
+            for (Object element : (List) value) {
+                if (!first) {
+                    builder.append(" , ");
+                }
+                first = false;
+                if (!append(builder, element, maxLength)) {
+                    return false;
+                }
+            }
+            builder.append("]");
+        } else if (value instanceof DBObject) {
+            DBObject document = (DBObject) value;
+            builder.append("{ ");
+            boolean first = true;
+            for (Map.Entry<String, Object> field : fieldsOf(document)) {
+                if (!first) {
+                    builder.append(" , ");
+                }
+                first = false;
+                builder.append(JSON.serialize(field.getKey())).append(" : ");
+                if (!append(builder, field.getValue(), maxLength)) {
+                    return false;
+                }
+            }
+            builder.append("}");
+        } else {
+            builder.append(JSON.serialize(value));
+        }
+        return builder.length() <= maxLength;
+    }
+
+    /**
+     * Reads the fields in a single pass, a raw BSON document being otherwise scanned again for every key
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<Map.Entry<String, Object>> fieldsOf(DBObject document) {
+        if (document instanceof LazyBSONObject) {
+            return ((LazyBSONObject) document).entrySet();
+        }
+        return ((Map<String, Object>) document.toMap()).entrySet();
+    }
+}
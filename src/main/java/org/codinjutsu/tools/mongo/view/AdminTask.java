@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.codinjutsu.tools.mongo.view;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Outcome of an administration operation run on a server, e.g. dropping a database, and the refresh of the explorer
+ * which follows it. The operation runs in the background while its task waits for it, so that the user can stop
+ * waiting for a slow or unreachable server.
+ */
+class AdminTask {
+
+    static final long POLLING_PERIOD = 100;
+
+    private final Runnable refreshOnSuccess;
+    private final Runnable refreshOnCancel;
+
+    private Exception failure;
+
+    /**
+     * @param refreshOnSuccess run when the operation succeeded
+     * @param refreshOnCancel  run when the user stopped waiting for the operation, which the server may still complete
+     */
+    AdminTask(Runnable refreshOnSuccess, Runnable refreshOnCancel) {
+        this.refreshOnSuccess = refreshOnSuccess;
+        this.refreshOnCancel = refreshOnCancel;
+    }
+
+    /**
+     * Waits for the operation to complete, keeping its failure if any.
+     *
+     * @param cancellationCheck run between two polls of the operation, throws to stop waiting for it
+     */
+    void await(Future<?> operation, Runnable cancellationCheck) {
+        while (true) {
+            try {
+                operation.get(POLLING_PERIOD, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException ex) {
+                cancellationCheck.run();
+            } catch (ExecutionException ex) {
+                failure = ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+                return;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure = ex;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Refreshes the explorer if the operation succeeded.
+     *
+     * @return the failure of the operation, null when it succeeded
+     */
+    Exception completed() {
+        if (failure == null) {
+            refreshOnSuccess.run();
+        }
+        return failure;
+    }
+
+    void cancelled() {
+        refreshOnCancel.run();
+    }
+}
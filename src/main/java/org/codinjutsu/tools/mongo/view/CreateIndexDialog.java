@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.view;
+
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.util.ui.FormBuilder;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import com.mongodb.util.JSONParseException;
+import org.apache.commons.lang.StringUtils;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+public class CreateIndexDialog extends DialogWrapper {
+
+    private final JTextField keyField = new JTextField("{ }");
+    private final JTextField indexNameField = new JTextField();
+    private final JBCheckBox uniqueField = new JBCheckBox("Unique");
+    private final JBCheckBox backgroundField = new JBCheckBox("Build in background", true);
+
+    private CreateIndexDialog(JComponent parent) {
+        super(parent, true);
+        keyField.setName("indexKey");
+        keyField.setToolTipText("Key pattern of the index, e.g. { \"name\": 1, \"createdAt\": -1 }");
+        indexNameField.setName("indexName");
+        indexNameField.setToolTipText("Leave empty to let the server name the index");
+        uniqueField.setName("uniqueIndex");
+        backgroundField.setName("backgroundIndex");
+        backgroundField.setToolTipText("Do not block the other operations of the database while the index is built");
+    }
+
+    public static CreateIndexDialog createDialog(JComponent parent, MongoCollection collection) {
+        CreateIndexDialog dialog = new CreateIndexDialog(parent);
+        dialog.init();
+        dialog.setTitle(String.format("Create An Index On %s", collection.getName()));
+
+        return dialog;
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        return FormBuilder.createFormBuilder()
+                .addLabeledComponent("Keys:", keyField)
+                .addLabeledComponent("Name:", indexNameField)
+                .addComponent(uniqueField)
+                .addComponent(backgroundField)
+                .getPanel();
+    }
+
+    @Nullable
+    @Override
+    public JComponent getPreferredFocusedComponent() {
+        return keyField;
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        try {
+            DBObject key = getKey();
+            if (key == null || key.keySet().isEmpty()) {
+                return new ValidationInfo("Index keys are not set", keyField);
+            }
+        } catch (JSONParseException ex) {
+            return new ValidationInfo("Index keys are not a valid JSON document", keyField);
+        } catch (ClassCastException ex) {
+            return new ValidationInfo("Index keys are not a valid JSON document", keyField);
+        }
+        return null;
+    }
+
+    public DBObject getKey() {
+        return (DBObject) JSON.parse(keyField.getText());
+    }
+
+    public String getIndexName() {
+        return StringUtils.trimToNull(indexNameField.getText());
+    }
+
+    public boolean isUnique() {
+        return uniqueField.isSelected();
+    }
+
+    public boolean isBackground() {
+        return backgroundField.isSelected();
+    }
+}
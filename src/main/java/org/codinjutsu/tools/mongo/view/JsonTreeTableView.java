@@ -24,7 +24,6 @@ import com.intellij.ui.treeStructure.treetable.TreeTableTree;
 import com.intellij.util.containers.Convertor;
 import com.intellij.util.ui.ColumnInfo;
 import com.intellij.util.ui.UIUtil;
-import com.intellij.util.ui.tree.TreeUtil;
 import com.mongodb.DBObject;
 import org.bson.types.ObjectId;
 import org.codinjutsu.tools.mongo.view.model.JsonTreeNode;
@@ -37,6 +36,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
+import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 import java.awt.event.ActionEvent;
@@ -70,6 +70,11 @@ public class JsonTreeTableView extends TreeTable {
     public static final ColumnInfo[] COLUMNS_FOR_READING = new ColumnInfo[]{KEY, READONLY_VALUE};
     public static final ColumnInfo[] COLUMNS_FOR_WRITING = new ColumnInfo[]{KEY, WRITABLE_VALUE};
 
+    /**
+     * Only the first nodes are expanded up front, so that the documents of a big result are not all decoded at once
+     */
+    public static final int MAX_EXPANDED_NODES = 300;
+
     private final ColumnInfo[] columns;
 
     public JsonTreeTableView(TreeNode rootNode, ColumnInfo[] columnInfos) {
@@ -83,7 +88,7 @@ public class JsonTreeTableView extends TreeTable {
         UIUtil.setLineStyleAngled(tree);
         setTreeCellRenderer(new MongoKeyCellRenderer());
 
-        TreeUtil.expand(tree, 2);
+        expandFirstNodes(tree);
 
         new TreeTableSpeedSearch(this, new Convertor<TreePath, String>() {
             @Override
@@ -95,6 +100,14 @@ public class JsonTreeTableView extends TreeTable {
         });
     }
 
+    private static void expandFirstNodes(TreeTableTree tree) {
+        DefaultMutableTreeNode rootNode = (DefaultMutableTreeNode) tree.getModel().getRoot();
+        tree.expandPath(new TreePath(rootNode.getPath()));
+        for (int index = 0; index < rootNode.getChildCount() && index < MAX_EXPANDED_NODES; index++) {
+            tree.expandPath(new TreePath(((DefaultMutableTreeNode) rootNode.getChildAt(index)).getPath()));
+        }
+    }
+
     @Override
     public TableCellRenderer getCellRenderer(int row, int column) {
         TreePath treePath = getTree().getPathForRow(row);
@@ -269,6 +269,7 @@ public class MongoConfigurable extends BaseConfigurable implements SearchableCon
         stopEditing();
         if (areConfigurationsModified()) {
             configuration.setServerConfigurations(configurations);
+            mongoManager.invalidateClients(configurations);
         }
 
         if (isShellPathModified()) {
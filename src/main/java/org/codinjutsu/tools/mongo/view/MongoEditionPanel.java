@@ -24,8 +24,10 @@ import com.intellij.ui.IdeBorderFactory;
 import com.intellij.ui.PopupHandler;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.util.ui.tree.TreeUtil;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import org.apache.commons.lang.StringUtils;
+import org.codinjutsu.tools.mongo.utils.GuiUtils;
 import org.codinjutsu.tools.mongo.utils.MongoUtils;
 import org.codinjutsu.tools.mongo.view.action.edition.AddKeyAction;
 import org.codinjutsu.tools.mongo.view.action.edition.AddValueAction;
@@ -54,6 +56,7 @@ public class MongoEditionPanel extends JPanel implements Disposable {
     private JButton deleteButton;
 
     private JsonTreeTableView editTableView;
+    private DBObject originalDocument;
 
 
     public MongoEditionPanel() {
@@ -79,36 +82,97 @@ public class MongoEditionPanel extends JPanel implements Disposable {
         saveButton.addActionListener(new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
+                final DBObject editedOriginalDocument = originalDocument;
+                final DBObject mongoDocument;
                 try {
-                    mongoDocumentOperations.updateMongoDocument(buildMongoDocument());
-                    actionCallback.onOperationSuccess("Document saved...");
+                    mongoDocument = buildMongoDocument();
                 } catch (Exception exception) {
                     actionCallback.onOperationFailure(exception);
+                    return;
                 }
+                runDocumentOperation(new Runnable() {
+                    @Override
+                    public void run() {
+                        mongoDocumentOperations.updateMongoDocument(editedOriginalDocument, mongoDocument);
+                    }
+                }, "Document saved...", actionCallback);
             }
         });
 
         deleteButton.addActionListener(new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
+                final Object documentId;
                 try {
-                    mongoDocumentOperations.deleteMongoDocument(getDocumentId());
-                    actionCallback.onOperationSuccess("Document deleted...");
+                    documentId = getDocumentId();
                 } catch (Exception exception) {
                     actionCallback.onOperationFailure(exception);
+                    return;
                 }
+                runDocumentOperation(new Runnable() {
+                    @Override
+                    public void run() {
+                        mongoDocumentOperations.deleteMongoDocument(documentId);
+                    }
+                }, "Document deleted...", actionCallback);
             }
         });
 
         return this;
     }
 
+    /**
+     * Runs the operation out of the EDT so that a slow server does not freeze the IDE, the buttons being disabled
+     * until the callback is notified of its outcome in the EDT
+     */
+    private void runDocumentOperation(final Runnable documentOperation, final String successMessage, final MongoResultPanel.ActionCallback actionCallback) {
+        setOperationButtonsEnabled(false);
+        executeInBackground(new Runnable() {
+            @Override
+            public void run() {
+                Exception failure = null;
+                try {
+                    documentOperation.run();
+                } catch (Exception exception) {
+                    failure = exception;
+                }
+                final Exception operationFailure = failure;
+                runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        setOperationButtonsEnabled(true);
+                        if (operationFailure == null) {
+                            actionCallback.onOperationSuccess(successMessage);
+                        } else {
+                            actionCallback.onOperationFailure(operationFailure);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void setOperationButtonsEnabled(boolean enabled) {
+        saveButton.setEnabled(enabled);
+        deleteButton.setEnabled(enabled);
+    }
+
+    void executeInBackground(Runnable task) {
+        ApplicationManager.getApplication().executeOnPooledThread(task);
+    }
+
+    void runInSwingThread(Runnable task) {
+        GuiUtils.runInSwingThread(task);
+    }
+
     public void updateEditionTree(DBObject mongoDocument) {
         String panelTitle = "New document";
         if (mongoDocument != null) {
             panelTitle = "Edition";
         }
 
+        originalDocument = mongoDocument instanceof BasicDBObject ? (DBObject) ((BasicDBObject) mongoDocument).copy() : mongoDocument;
+
         mainPanel.setBorder(IdeBorderFactory.createTitledBorder(panelTitle, true));
         editTableView = new JsonTreeTableView(JsonTreeModel.buildJsonTree(mongoDocument), JsonTreeTableView.COLUMNS_FOR_WRITING);
         editTableView.setName("editionTreeTable");
@@ -157,10 +221,6 @@ public class MongoEditionPanel extends JPanel implements Disposable {
         List<TreeNode> node = new LinkedList<TreeNode>();
         JsonTreeNode treeNode = new JsonTreeNode(MongoKeyValueDescriptor.createDescriptor(key, value));
 
-        if (value instanceof DBObject) {
-             JsonTreeModel.processDbObject(treeNode, (DBObject) value);
-        }
-
         node.add(treeNode);
 
         DefaultTreeModel treeModel = (DefaultTreeModel) editTableView.getTree().getModel();
@@ -178,9 +238,6 @@ public class MongoEditionPanel extends JPanel implements Disposable {
         JsonTreeNode parentNode = getParentNode();
 
         JsonTreeNode treeNode = new JsonTreeNode(MongoValueDescriptor.createDescriptor(parentNode.getChildCount(), value));
-        if (value instanceof DBObject) {
-            JsonTreeModel.processDbObject(treeNode, (DBObject) value);
-        }
 
         node.add(treeNode);
 
@@ -234,6 +291,7 @@ public class MongoEditionPanel extends JPanel implements Disposable {
     @Override
     public void dispose() {
         editTableView = null;
+        originalDocument = null;
     }
 
     private Object getDocumentId() {
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.codinjutsu.tools.mongo.view;
+
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoCollectionIndexes;
+import org.codinjutsu.tools.mongo.model.MongoCollectionSchema;
+import org.codinjutsu.tools.mongo.model.MongoDatabase;
+import org.codinjutsu.tools.mongo.model.MongoServer;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the nodes of the explorer tree and applies the databases and collections listed by a server to them
+ */
+class MongoExplorerNodes {
+
+    static final String LOADING_PLACEHOLDER = "Loading...";
+
+    static final String LOADING_FAILED_PLACEHOLDER = "Loading failed, expand again to retry";
+
+    private MongoExplorerNodes() {
+    }
+
+    static DefaultMutableTreeNode createDatabaseNode(MongoDatabase mongoDatabase, ServerConfiguration configuration) {
+        DefaultMutableTreeNode databaseNode = new DefaultMutableTreeNode(mongoDatabase);
+        if (mongoDatabase.isCollectionsLoaded()) {
+            for (MongoCollection collection : mongoDatabase.getCollections()) {
+                if (shouldNotIgnore(collection, configuration)) {
+                    databaseNode.add(createCollectionNode(collection));
+                }
+            }
+        } else {
+            databaseNode.add(new DefaultMutableTreeNode(LOADING_PLACEHOLDER));
+        }
+        return databaseNode;
+    }
+
+    private static DefaultMutableTreeNode createCollectionNode(MongoCollection collection) {
+        DefaultMutableTreeNode collectionNode = new DefaultMutableTreeNode(collection);
+        collectionNode.add(createIndexesNode(collection));
+        collectionNode.add(createSchemaNode(collection));
+        return collectionNode;
+    }
+
+    /**
+     * Applies the databases listed by the server to its node: the nodes of the databases which are still there
+     * are kept with their collections until these are reloaded, the others are removed and the new ones inserted.
+     * Both the nodes and the databases are sorted by name.
+     */
+    static void mergeDatabaseNodes(DefaultTreeModel treeModel, DefaultMutableTreeNode serverNode, MongoServer mongoServer) {
+        List<MongoDatabase> mongoDatabases = mongoServer.getDatabases();
+
+        Set<String> databaseNames = new HashSet<String>();
+        for (MongoDatabase mongoDatabase : mongoDatabases) {
+            databaseNames.add(mongoDatabase.getName());
+        }
+        for (int i = serverNode.getChildCount() - 1; i >= 0; i--) {
+            DefaultMutableTreeNode databaseNode = (DefaultMutableTreeNode) serverNode.getChildAt(i);
+            if (!(databaseNode.getUserObject() instanceof MongoDatabase) || !databaseNames.contains(((MongoDatabase) databaseNode.getUserObject()).getName())) {
+                treeModel.removeNodeFromParent(databaseNode);
+            }
+        }
+
+        int index = 0;
+        for (MongoDatabase mongoDatabase : mongoDatabases) {
+            DefaultMutableTreeNode databaseNode = index < serverNode.getChildCount() ? (DefaultMutableTreeNode) serverNode.getChildAt(index) : null;
+            if (databaseNode != null && mongoDatabase.getName().equals(((MongoDatabase) databaseNode.getUserObject()).getName())) {
+                databaseNode.setUserObject(mongoDatabase);
+            } else {
+                treeModel.insertNodeInto(createDatabaseNode(mongoDatabase, mongoServer.getConfiguration()), serverNode, index);
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Applies the collections listed by the server to the node of their database, keeping the nodes
+     * of the collections which are still there so that their indexes and schema stay expanded
+     */
+    static void mergeCollectionNodes(DefaultTreeModel treeModel, DefaultMutableTreeNode databaseNode, MongoDatabase mongoDatabase, ServerConfiguration configuration) {
+        List<MongoCollection> collections = new LinkedList<MongoCollection>();
+        Set<String> collectionNames = new HashSet<String>();
+        for (MongoCollection collection : mongoDatabase.getCollections()) {
+            if (shouldNotIgnore(collection, configuration)) {
+                collections.add(collection);
+                collectionNames.add(collection.getName());
+            }
+        }
+        for (int i = databaseNode.getChildCount() - 1; i >= 0; i--) {
+            DefaultMutableTreeNode collectionNode = (DefaultMutableTreeNode) databaseNode.getChildAt(i);
+            if (!(collectionNode.getUserObject() instanceof MongoCollection) || !collectionNames.contains(((MongoCollection) collectionNode.getUserObject()).getName())) {
+                treeModel.removeNodeFromParent(collectionNode);
+            }
+        }
+
+        int index = 0;
+        for (MongoCollection collection : collections) {
+            DefaultMutableTreeNode collectionNode = index < databaseNode.getChildCount() ? (DefaultMutableTreeNode) databaseNode.getChildAt(index) : null;
+            if (collectionNode == null || !collection.getName().equals(((MongoCollection) collectionNode.getUserObject()).getName())) {
+                treeModel.insertNodeInto(createCollectionNode(collection), databaseNode, index);
+            }
+            index++;
+        }
+    }
+
+    private static DefaultMutableTreeNode createIndexesNode(MongoCollection collection) {
+        DefaultMutableTreeNode indexesNode = new DefaultMutableTreeNode(new MongoCollectionIndexes(collection));
+        indexesNode.add(new DefaultMutableTreeNode(LOADING_PLACEHOLDER));
+        return indexesNode;
+    }
+
+    private static DefaultMutableTreeNode createSchemaNode(MongoCollection collection) {
+        DefaultMutableTreeNode schemaNode = new DefaultMutableTreeNode(new MongoCollectionSchema(collection));
+        schemaNode.add(new DefaultMutableTreeNode(LOADING_PLACEHOLDER));
+        return schemaNode;
+    }
+
+    static boolean isNotLoaded(DefaultMutableTreeNode node) {
+        return node.getChildCount() == 1 && LOADING_PLACEHOLDER.equals(((DefaultMutableTreeNode) node.getFirstChild()).getUserObject());
+    }
+
+    static boolean isLoadingFailed(DefaultMutableTreeNode node) {
+        return node.getChildCount() == 1 && LOADING_FAILED_PLACEHOLDER.equals(((DefaultMutableTreeNode) node.getFirstChild()).getUserObject());
+    }
+
+    private static boolean shouldNotIgnore(MongoCollection collection, ServerConfiguration configuration) {
+        return !configuration.getCollectionsToIgnore().contains(collection.getName());
+    }
+}
@@ -23,6 +23,9 @@ import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.DefaultActionGroup;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.MessageType;
 import com.intellij.openapi.ui.popup.Balloon;
@@ -33,19 +36,23 @@ import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.treeStructure.Tree;
 import com.intellij.util.containers.Convertor;
 import com.intellij.util.ui.tree.TreeUtil;
+import com.mongodb.DBObject;
 import org.codinjutsu.tools.mongo.MongoConfiguration;
 import org.codinjutsu.tools.mongo.ServerConfiguration;
 import org.codinjutsu.tools.mongo.logic.ConfigurationException;
+import org.codinjutsu.tools.mongo.logic.MongoExplorerCache;
 import org.codinjutsu.tools.mongo.logic.MongoManager;
-import org.codinjutsu.tools.mongo.model.MongoCollection;
-import org.codinjutsu.tools.mongo.model.MongoDatabase;
-import org.codinjutsu.tools.mongo.model.MongoServer;
+import org.codinjutsu.tools.mongo.logic.MongoSchemaService;
+import org.codinjutsu.tools.mongo.model.*;
 import org.codinjutsu.tools.mongo.utils.GuiUtils;
 import org.codinjutsu.tools.mongo.view.action.*;
 import org.codinjutsu.tools.mongo.view.editor.MongoFileSystem;
 import org.codinjutsu.tools.mongo.view.editor.MongoObjectFile;
+import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
@@ -54,9 +61,20 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.codinjutsu.tools.mongo.utils.GuiUtils.showNotification;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.LOADING_FAILED_PLACEHOLDER;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.LOADING_PLACEHOLDER;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.createDatabaseNode;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.isLoadingFailed;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.isNotLoaded;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.mergeCollectionNodes;
+import static org.codinjutsu.tools.mongo.view.MongoExplorerNodes.mergeDatabaseNodes;
 
 public class MongoExplorerPanel extends JPanel implements Disposable {
 
@@ -81,6 +99,23 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
         mongoTree = createTree();
         mongoTree.setCellRenderer(new MongoTreeRenderer());
         mongoTree.setName("mongoTree");
+        mongoTree.addTreeExpansionListener(new TreeExpansionListener() {
+            @Override
+            public void treeExpanded(TreeExpansionEvent event) {
+                DefaultMutableTreeNode expandedNode = (DefaultMutableTreeNode) event.getPath().getLastPathComponent();
+                if (expandedNode.getUserObject() instanceof MongoCollectionIndexes && isNotLoaded(expandedNode)) {
+                    loadIndexes(expandedNode);
+                } else if (expandedNode.getUserObject() instanceof MongoCollectionSchema) {
+                    loadSchema(expandedNode);
+                } else if (expandedNode.getUserObject() instanceof MongoDatabase && isLoadingFailed(expandedNode)) {
+                    retryLoadingCollections(expandedNode);
+                }
+            }
+
+            @Override
+            public void treeCollapsed(TreeExpansionEvent event) {
+            }
+        });
 
         JBScrollPane mongoTreeScrollPane = new JBScrollPane(mongoTree);
 
@@ -111,12 +146,16 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
         final DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode();
         mongoTree.setModel(new DefaultTreeModel(rootNode));
 
+        MongoExplorerCache explorerCache = MongoExplorerCache.getInstance(project);
+        explorerCache.retainOnly(serverConfigurations);
+
         for (ServerConfiguration serverConfiguration : serverConfigurations) {
             MongoServer mongoServer = new MongoServer(serverConfiguration);
             this.mongoManager.registerServer(mongoServer);
             DefaultMutableTreeNode serverNode = new DefaultMutableTreeNode(mongoServer);
             rootNode.add(serverNode);
             if (serverConfiguration.isConnectOnIdeStartup()) {
+                addCachedDatabasesIfAny(mongoServer, serverNode, explorerCache);
                 this.reloadServerConfiguration(serverNode, false);
             }
         }
@@ -133,6 +172,12 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
                 if (userObject instanceof MongoCollection) {
                     return ((MongoCollection) userObject).getName();
                 }
+                if (userObject instanceof MongoIndex) {
+                    return ((MongoIndex) userObject).getName();
+                }
+                if (userObject instanceof MongoSchemaField) {
+                    return ((MongoSchemaField) userObject).getPath();
+                }
                 return "<empty>";
             }
         });
@@ -157,10 +202,8 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
                         public void run() {
                             mongoTree.invalidate();
 
-                            serverNode.removeAllChildren();
-                            addDatabasesIfAny(mongoServer, serverNode);
-
-                            ((DefaultTreeModel) mongoTree.getModel()).reload(serverNode);
+                            mergeDatabaseNodes((DefaultTreeModel) mongoTree.getModel(), serverNode, mongoServer);
+                            ((DefaultTreeModel) mongoTree.getModel()).nodeChanged(serverNode);
 
                             mongoTree.revalidate();
 
@@ -171,6 +214,8 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
                         }
                     });
 
+                    loadCollections(serverNode);
+
                 } catch (ConfigurationException confEx) {
                     mongoServer.setStatus(MongoServer.Status.ERROR);
                     showNotification(treePanel,
@@ -185,24 +230,275 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
         });
     }
 
-    private void addDatabasesIfAny(MongoServer mongoServer, DefaultMutableTreeNode serverNode) {
-        for (MongoDatabase mongoDatabase : mongoServer.getDatabases()) {
-            DefaultMutableTreeNode databaseNode = new DefaultMutableTreeNode(mongoDatabase);
-            for (MongoCollection collection : mongoDatabase.getCollections()) {
-                if (shouldNotIgnore(collection, mongoServer.getConfiguration())) {
-                    databaseNode.add(new DefaultMutableTreeNode(collection));
+    private static void addCachedDatabasesIfAny(MongoServer mongoServer, DefaultMutableTreeNode serverNode, MongoExplorerCache explorerCache) {
+        List<MongoDatabase> cachedDatabases = explorerCache.load(mongoServer.getConfiguration());
+        if (cachedDatabases == null) {
+            return;
+        }
+        mongoServer.setDatabases(cachedDatabases);
+        mongoServer.setStatus(MongoServer.Status.CACHED);
+        for (MongoDatabase mongoDatabase : cachedDatabases) {
+            serverNode.add(createDatabaseNode(mongoDatabase, mongoServer.getConfiguration()));
+        }
+    }
+
+    /**
+     * Lists the collections of the databases of the server in the background, filling each database node
+     * as soon as its collections arrive. Once they have all been listed, they are saved in the explorer cache.
+     */
+    private void loadCollections(DefaultMutableTreeNode serverNode) {
+        loadCollections(serverNode, ((MongoServer) serverNode.getUserObject()).getDatabases());
+    }
+
+    private void loadCollections(final DefaultMutableTreeNode serverNode, List<MongoDatabase> mongoDatabases) {
+        final MongoServer mongoServer = (MongoServer) serverNode.getUserObject();
+        if (mongoDatabases.isEmpty()) {
+            saveInExplorerCache(mongoServer);
+            return;
+        }
+
+        final AtomicInteger remainingDatabaseCount = new AtomicInteger(mongoDatabases.size());
+        mongoManager.loadCollections(mongoServer.getConfiguration(), mongoDatabases, new MongoManager.CollectionsListener() {
+            @Override
+            public void collectionsLoaded(final MongoDatabase mongoDatabase) {
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        DefaultMutableTreeNode databaseNode = findDatabaseNode(serverNode, mongoDatabase);
+                        if (databaseNode != null) {
+                            mergeCollectionNodes((DefaultTreeModel) mongoTree.getModel(), databaseNode, mongoDatabase, mongoServer.getConfiguration());
+                        }
+                    }
+                });
+                databaseDone();
+            }
+
+            @Override
+            public void collectionsLoadingFailed(final MongoDatabase mongoDatabase, Exception ex) {
+                showNotification(treePanel,
+                        MessageType.ERROR,
+                        String.format("Error when loading the collections of %s: %s", mongoDatabase.getName(), ex.getMessage()),
+                        Balloon.Position.atLeft);
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        DefaultMutableTreeNode databaseNode = findDatabaseNode(serverNode, mongoDatabase);
+                        if (databaseNode != null && isNotLoaded(databaseNode)) {
+                            setPlaceholder(databaseNode, LOADING_FAILED_PLACEHOLDER);
+                        }
+                    }
+                });
+                databaseDone();
+            }
+
+            private void databaseDone() {
+                if (remainingDatabaseCount.decrementAndGet() == 0) {
+                    saveInExplorerCache(mongoServer);
                 }
             }
-            serverNode.add(databaseNode);
+        });
+    }
+
+    /**
+     * Lists again the collections of a database whose listing failed, e.g. once the server is reachable again
+     */
+    private void retryLoadingCollections(DefaultMutableTreeNode databaseNode) {
+        setPlaceholder(databaseNode, LOADING_PLACEHOLDER);
+        loadCollections((DefaultMutableTreeNode) databaseNode.getParent(), Collections.singletonList((MongoDatabase) databaseNode.getUserObject()));
+    }
+
+    private void setPlaceholder(DefaultMutableTreeNode node, String placeholder) {
+        DefaultMutableTreeNode placeholderNode = (DefaultMutableTreeNode) node.getFirstChild();
+        placeholderNode.setUserObject(placeholder);
+        ((DefaultTreeModel) mongoTree.getModel()).nodeChanged(placeholderNode);
+    }
+
+    private DefaultMutableTreeNode findDatabaseNode(DefaultMutableTreeNode serverNode, MongoDatabase mongoDatabase) {
+        if (mongoTree == null || mongoTree.getModel() == null || serverNode.getRoot() != mongoTree.getModel().getRoot()) {
+            return null;
+        }
+        for (int i = 0; i < serverNode.getChildCount(); i++) {
+            DefaultMutableTreeNode databaseNode = (DefaultMutableTreeNode) serverNode.getChildAt(i);
+            if (databaseNode.getUserObject() == mongoDatabase) {
+                return databaseNode;
+            }
         }
+        return null;
     }
 
-    private List<ServerConfiguration> getServerConfigurations() {
-        return MongoConfiguration.getInstance(project).getServerConfigurations();
+    private void loadIndexes(final DefaultMutableTreeNode indexesNode) {
+        final ServerConfiguration configuration = getServerConfiguration(indexesNode);
+        final MongoCollection collection = ((MongoCollectionIndexes) indexesNode.getUserObject()).getCollection();
+        mongoTree.setPaintBusy(true);
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final List<MongoIndex> indexes = mongoManager.loadIndexes(configuration, collection);
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            indexesNode.removeAllChildren();
+                            for (MongoIndex index : indexes) {
+                                indexesNode.add(new DefaultMutableTreeNode(index, false));
+                            }
+                            ((DefaultTreeModel) mongoTree.getModel()).reload(indexesNode);
+                            mongoTree.expandPath(new TreePath(indexesNode.getPath()));
+                        }
+                    });
+                } catch (Exception ex) {
+                    showNotification(treePanel,
+                            MessageType.ERROR,
+                            String.format("Error when loading the indexes of %s: %s", collection.getName(), ex.getMessage()),
+                            Balloon.Position.atLeft);
+                } finally {
+                    mongoTree.setPaintBusy(false);
+                }
+            }
+        });
+    }
+
+    private void loadSchema(final DefaultMutableTreeNode schemaNode) {
+        final ServerConfiguration configuration = getServerConfiguration(schemaNode);
+        final MongoCollection collection = ((MongoCollectionSchema) schemaNode.getUserObject()).getCollection();
+        MongoSchemaService schemaService = MongoSchemaService.getInstance(project);
+
+        MongoSchema cachedSchema = schemaService.getCachedSchema(configuration, collection);
+        if (cachedSchema != null && isNotLoaded(schemaNode)) {
+            displaySchema(schemaNode, cachedSchema);
+        }
+        if (!schemaService.isStale(cachedSchema)) {
+            return;
+        }
+
+        mongoTree.setPaintBusy(true);
+        schemaService.refreshInBackground(configuration, collection, new MongoSchemaService.SchemaListener() {
+            @Override
+            public void schemaSampled(final MongoSchema schema) {
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mongoTree.setPaintBusy(false);
+                        displaySchema(schemaNode, schema);
+                    }
+                });
+            }
+
+            @Override
+            public void samplingFailed(final Exception ex) {
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        mongoTree.setPaintBusy(false);
+                        showNotification(treePanel,
+                                MessageType.ERROR,
+                                String.format("Error when sampling the schema of %s: %s", collection.getName(), ex.getMessage()),
+                                Balloon.Position.atLeft);
+                    }
+                });
+            }
+        });
+    }
+
+    private void displaySchema(DefaultMutableTreeNode schemaNode, MongoSchema schema) {
+        ((MongoCollectionSchema) schemaNode.getUserObject()).setSchema(schema);
+        schemaNode.removeAllChildren();
+        for (MongoSchemaField field : schema.getFields()) {
+            schemaNode.add(new DefaultMutableTreeNode(field, false));
+        }
+        ((DefaultTreeModel) mongoTree.getModel()).reload(schemaNode);
+        mongoTree.expandPath(new TreePath(schemaNode.getPath()));
+    }
+
+    public void createIndex(final DBObject key, final String indexName, final boolean unique, final boolean background) {
+        final DefaultMutableTreeNode indexesNode = getSelectedIndexesNode();
+        if (indexesNode == null) {
+            return;
+        }
+        final ServerConfiguration configuration = getServerConfiguration(indexesNode);
+        final MongoCollection collection = ((MongoCollectionIndexes) indexesNode.getUserObject()).getCollection();
+
+        runIndexTask(String.format("Creating index on %s", collection.getName()), String.format("Index created on %s", collection.getName()), indexesNode, new Runnable() {
+            @Override
+            public void run() {
+                mongoManager.createIndex(configuration, collection, key, indexName, unique, background);
+            }
+        });
+    }
+
+    public void dropIndex() {
+        final DefaultMutableTreeNode indexesNode = getSelectedIndexesNode();
+        final MongoIndex index = getSelectedIndex();
+        if (indexesNode == null || index == null) {
+            return;
+        }
+        final ServerConfiguration configuration = getServerConfiguration(indexesNode);
+        final MongoCollection collection = ((MongoCollectionIndexes) indexesNode.getUserObject()).getCollection();
+
+        runIndexTask(String.format("Dropping index %s", index.getName()), String.format("Index %s dropped", index.getName()), indexesNode, new Runnable() {
+            @Override
+            public void run() {
+                mongoManager.dropIndex(configuration, collection, index.getName());
+            }
+        });
     }
 
-    private static boolean shouldNotIgnore(MongoCollection collection, ServerConfiguration configuration) {
-        return !configuration.getCollectionsToIgnore().contains(collection.getName());
+    private void runIndexTask(final String title, final String doneMessage, final DefaultMutableTreeNode indexesNode, final Runnable indexOperation) {
+        Runnable reloadIndexes = new Runnable() {
+            @Override
+            public void run() {
+                loadIndexes(indexesNode);
+            }
+        };
+        runAdminTask(title, doneMessage, indexOperation, reloadIndexes, reloadIndexes);
+    }
+
+    /**
+     * Runs an operation on a server as a cancellable background task so that a slow or unreachable server
+     * does not freeze the IDE. A cancelled operation may still be completed by the server, so the explorer
+     * is refreshed in both cases.
+     *
+     * @param refreshOnSuccess run in the EDT when the operation succeeded
+     * @param refreshOnCancel  run in the EDT when the user stopped waiting for the operation
+     */
+    private void runAdminTask(final String title, final String doneMessage, final Runnable adminOperation, Runnable refreshOnSuccess, Runnable refreshOnCancel) {
+        final AdminTask adminTask = new AdminTask(refreshOnSuccess, refreshOnCancel);
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, title, true) {
+
+            @Override
+            public void run(@NotNull final ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                indicator.setText(title);
+                Future<?> operation = ApplicationManager.getApplication().executeOnPooledThread(adminOperation);
+                adminTask.await(operation, new Runnable() {
+                    @Override
+                    public void run() {
+                        indicator.checkCanceled();
+                    }
+                });
+            }
+
+            @Override
+            public void onSuccess() {
+                Exception failure = adminTask.completed();
+                if (failure != null) {
+                    showNotification(treePanel, MessageType.ERROR, String.format("%s failed: %s", title, failure.getMessage()), Balloon.Position.atLeft);
+                    return;
+                }
+                showNotification(treePanel, MessageType.INFO, doneMessage, Balloon.Position.atLeft);
+            }
+
+            @Override
+            public void onCancel() {
+                showNotification(treePanel, MessageType.WARNING, String.format("%s was cancelled, the server may still complete it", title), Balloon.Position.atLeft);
+                adminTask.cancelled();
+            }
+        });
+    }
+
+    private List<ServerConfiguration> getServerConfigurations() {
+        return MongoConfiguration.getInstance(project).getServerConfigurations();
     }
 
     public void installActions() {
@@ -264,6 +560,9 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
             actionPopupGroup.add(viewCollectionValuesAction);
             actionPopupGroup.add(new DropCollectionAction(this));
             actionPopupGroup.add(new DropDatabaseAction(this));
+            actionPopupGroup.addSeparator();
+            actionPopupGroup.add(new CreateIndexAction(this));
+            actionPopupGroup.add(new DropIndexAction(this));
         }
 
         PopupHandler.installPopupHandler(mongoTree, actionPopupGroup, "POPUP", ActionManager.getInstance());
@@ -306,21 +605,59 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
     }
 
     public DefaultMutableTreeNode getSelectedServerNode() {
-        DefaultMutableTreeNode treeNode = (DefaultMutableTreeNode) mongoTree.getLastSelectedPathComponent();
-        if (treeNode != null) {
-            Object userObject = treeNode.getUserObject();
-            if (userObject instanceof MongoCollection) {
-                return (DefaultMutableTreeNode) treeNode.getParent().getParent();
-            }
+        return getServerNode((DefaultMutableTreeNode) mongoTree.getLastSelectedPathComponent());
+    }
 
-            if (userObject instanceof MongoDatabase) {
-                return (DefaultMutableTreeNode) treeNode.getParent();
+    private static DefaultMutableTreeNode getServerNode(DefaultMutableTreeNode treeNode) {
+        while (treeNode != null) {
+            if (treeNode.getUserObject() instanceof MongoServer) {
+                return treeNode;
             }
+            treeNode = (DefaultMutableTreeNode) treeNode.getParent();
+        }
+        return null;
+    }
 
-            if (userObject instanceof MongoServer) {
-                return treeNode;
+    private static ServerConfiguration getServerConfiguration(DefaultMutableTreeNode treeNode) {
+        return ((MongoServer) getServerNode(treeNode).getUserObject()).getConfiguration();
+    }
+
+    private DefaultMutableTreeNode getSelectedIndexesNode() {
+        DefaultMutableTreeNode treeNode = (DefaultMutableTreeNode) mongoTree.getLastSelectedPathComponent();
+        if (treeNode == null) {
+            return null;
+        }
+        Object userObject = treeNode.getUserObject();
+        if (userObject instanceof MongoCollection) {
+            for (int i = 0; i < treeNode.getChildCount(); i++) {
+                DefaultMutableTreeNode childNode = (DefaultMutableTreeNode) treeNode.getChildAt(i);
+                if (childNode.getUserObject() instanceof MongoCollectionIndexes) {
+                    return childNode;
+                }
             }
         }
+        if (userObject instanceof MongoCollectionIndexes) {
+            return treeNode;
+        }
+        if (userObject instanceof MongoIndex) {
+            return (DefaultMutableTreeNode) treeNode.getParent();
+        }
+        return null;
+    }
+
+    public MongoCollection getSelectedIndexedCollection() {
+        DefaultMutableTreeNode indexesNode = getSelectedIndexesNode();
+        if (indexesNode == null) {
+            return null;
+        }
+        return ((MongoCollectionIndexes) indexesNode.getUserObject()).getCollection();
+    }
+
+    public MongoIndex getSelectedIndex() {
+        DefaultMutableTreeNode treeNode = (DefaultMutableTreeNode) mongoTree.getLastSelectedPathComponent();
+        if (treeNode != null && treeNode.getUserObject() instanceof MongoIndex) {
+            return (MongoIndex) treeNode.getUserObject();
+        }
         return null;
     }
 
@@ -386,13 +723,128 @@ public class MongoExplorerPanel extends JPanel implements Disposable {
     }
 
     public void dropCollection() {
-        mongoManager.dropCollection(getConfiguration(), getSelectedCollection());
-        reloadServerConfiguration(getSelectedServerNode(), true);
+        DefaultMutableTreeNode collectionNode = getSelectedCollectionNode();
+        if (collectionNode == null) {
+            return;
+        }
+        final ServerConfiguration configuration = getServerConfiguration(collectionNode);
+        final MongoCollection collection = (MongoCollection) collectionNode.getUserObject();
+        final DefaultMutableTreeNode databaseNode = (DefaultMutableTreeNode) collectionNode.getParent();
+        Runnable reloadDatabase = new Runnable() {
+            @Override
+            public void run() {
+                reloadDatabase(databaseNode);
+            }
+        };
+
+        runAdminTask(String.format("Dropping collection %s", collection.getName()), String.format("Collection %s dropped", collection.getName()), new Runnable() {
+            @Override
+            public void run() {
+                mongoManager.dropCollection(configuration, collection);
+            }
+        }, reloadDatabase, reloadDatabase);
     }
 
     public void dropDatabase() {
-        mongoManager.dropDatabase(getConfiguration(), getSelectedDatabase());
-        reloadServerConfiguration(getSelectedServerNode(), true);
+        final DefaultMutableTreeNode databaseNode = getSelectedDatabaseNode();
+        if (databaseNode == null) {
+            return;
+        }
+        final ServerConfiguration configuration = getServerConfiguration(databaseNode);
+        final MongoDatabase database = (MongoDatabase) databaseNode.getUserObject();
+
+        runAdminTask(String.format("Dropping database %s", database.getName()), String.format("Database %s dropped", database.getName()), new Runnable() {
+            @Override
+            public void run() {
+                mongoManager.dropDatabase(configuration, database);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                removeDatabase(databaseNode);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                DefaultMutableTreeNode serverNode = getServerNode(databaseNode);
+                if (serverNode != null) {
+                    reloadServerConfiguration(serverNode, false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Lists again the collections of a single database and applies the differences to its node
+     */
+    private void reloadDatabase(final DefaultMutableTreeNode databaseNode) {
+        final DefaultMutableTreeNode serverNode = getServerNode(databaseNode);
+        if (serverNode == null) {
+            return;
+        }
+        final MongoServer mongoServer = (MongoServer) serverNode.getUserObject();
+        final MongoDatabase mongoDatabase = (MongoDatabase) databaseNode.getUserObject();
+        mongoTree.setPaintBusy(true);
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mongoManager.loadCollections(mongoServer.getConfiguration(), mongoDatabase);
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            mongoTree.setPaintBusy(false);
+                            if (findDatabaseNode(serverNode, mongoDatabase) == databaseNode) {
+                                mergeCollectionNodes((DefaultTreeModel) mongoTree.getModel(), databaseNode, mongoDatabase, mongoServer.getConfiguration());
+                            }
+                        }
+                    });
+                    saveInExplorerCache(mongoServer);
+                } catch (Exception ex) {
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            mongoTree.setPaintBusy(false);
+                        }
+                    });
+                    showNotification(treePanel,
+                            MessageType.ERROR,
+                            String.format("Error when loading the collections of %s: %s", mongoDatabase.getName(), ex.getMessage()),
+                            Balloon.Position.atLeft);
+                }
+            }
+        });
+    }
+
+    private void removeDatabase(DefaultMutableTreeNode databaseNode) {
+        DefaultMutableTreeNode serverNode = getServerNode(databaseNode);
+        if (serverNode == null) {
+            return;
+        }
+        final MongoServer mongoServer = (MongoServer) serverNode.getUserObject();
+        List<MongoDatabase> mongoDatabases = new LinkedList<MongoDatabase>(mongoServer.getDatabases());
+        mongoDatabases.remove(databaseNode.getUserObject());
+        mongoServer.setDatabases(mongoDatabases);
+
+        ((DefaultTreeModel) mongoTree.getModel()).removeNodeFromParent(databaseNode);
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                saveInExplorerCache(mongoServer);
+            }
+        });
+    }
+
+    private void saveInExplorerCache(MongoServer mongoServer) {
+        List<MongoDatabase> mongoDatabases = mongoServer.getDatabases();
+        for (MongoDatabase mongoDatabase : mongoDatabases) {
+            if (!mongoDatabase.isCollectionsLoaded()) {
+                return;
+            }
+        }
+        MongoExplorerCache.getInstance(project).save(mongoServer.getConfiguration(), mongoDatabases);
     }
 
     private Tree createTree() {
@@ -26,20 +26,34 @@ import com.intellij.openapi.actionSystem.DefaultActionGroup;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.LoadingDecorator;
+import com.intellij.openapi.ui.MessageType;
 import com.intellij.openapi.ui.Splitter;
+import com.intellij.openapi.ui.popup.Balloon;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.NumberDocument;
+import com.intellij.ui.components.labels.LinkLabel;
+import com.intellij.ui.components.labels.LinkListener;
 import com.intellij.ui.components.panels.NonOpaquePanel;
+import com.intellij.util.ui.AsyncProcessIcon;
 import com.mongodb.DBObject;
 import org.codinjutsu.tools.mongo.ServerConfiguration;
 import org.codinjutsu.tools.mongo.logic.MongoManager;
+import org.codinjutsu.tools.mongo.logic.QueryCancellation;
 import org.codinjutsu.tools.mongo.model.MongoCollection;
 import org.codinjutsu.tools.mongo.model.MongoCollectionResult;
+import org.codinjutsu.tools.mongo.model.MongoExplainPlan;
+import org.codinjutsu.tools.mongo.model.MongoQueryOptions;
 import org.codinjutsu.tools.mongo.utils.GuiUtils;
 import org.codinjutsu.tools.mongo.view.action.*;
+import org.codinjutsu.tools.mongo.view.model.JsonTreeModel;
+import org.codinjutsu.tools.mongo.view.model.JsonTreeNode;
 
 import javax.swing.*;
+import javax.swing.tree.TreeNode;
 import java.awt.*;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MongoPanel extends JPanel implements Disposable {
 
@@ -49,6 +63,9 @@ public class MongoPanel extends JPanel implements Disposable {
     private JPanel toolBar;
     private JPanel errorPanel;
     private final JTextField rowLimitField = new JTextField("");
+    private final JTextField maxTimeField = new JTextField("");
+    private final JLabel pageLabel = new JLabel();
+    private final JLabel fetchStatusLabel = new JLabel();
     private final MongoResultPanel resultPanel;
     private final QueryPanel queryPanel;
 
@@ -56,6 +73,16 @@ public class MongoPanel extends JPanel implements Disposable {
     private final ServerConfiguration configuration;
     private final MongoCollection mongoCollection;
 
+    private final AtomicInteger queryCounter = new AtomicInteger();
+
+    private final LinkedList<MongoQueryOptions> previousPages = new LinkedList<MongoQueryOptions>();
+    private MongoQueryOptions currentQueryOptions;
+    private MongoQueryOptions nextPageQueryOptions;
+    private MongoCollectionResult nextPageResult;
+    private TreeNode nextPageTree;
+    private QueryCancellation runningQueryCancellation;
+    private QueryCancellation prefetchCancellation;
+
     public MongoPanel(Project project, final MongoManager mongoManager, final ServerConfiguration configuration, final MongoCollection mongoCollection) {
         this.mongoManager = mongoManager;
         this.mongoCollection = mongoCollection;
@@ -63,7 +90,7 @@ public class MongoPanel extends JPanel implements Disposable {
 
         errorPanel.setLayout(new BorderLayout());
 
-        queryPanel = new QueryPanel(project);
+        queryPanel = new QueryPanel(project, configuration, mongoCollection);
         queryPanel.setVisible(false);
 
         resultPanel = createResultPanel(project, new MongoDocumentOperations() {
@@ -72,18 +99,56 @@ public class MongoPanel extends JPanel implements Disposable {
                 return mongoManager.findMongoDocument(configuration, mongoCollection, _id);
             }
 
-            public void updateMongoDocument(DBObject mongoDocument) {
-                mongoManager.update(configuration, mongoCollection, mongoDocument);
-                executeQuery();
+            public void updateMongoDocument(DBObject originalDocument, DBObject mongoDocument) {
+                mongoManager.update(configuration, mongoCollection, originalDocument, mongoDocument);
+                if (originalDocument == null) {
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            // where a new document shows up in the result depends on the query
+                            reloadCurrentPage();
+                        }
+                    });
+                    return;
+                }
+                final Object _id = originalDocument.get("_id");
+                final DBObject savedDocument = mongoManager.findMongoDocument(configuration, mongoCollection, _id);
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (savedDocument == null) {
+                            resultPanel.removeMongoDocument(_id);
+                        } else {
+                            resultPanel.replaceMongoDocument(_id, savedDocument);
+                        }
+                    }
+                });
             }
 
-            public void deleteMongoDocument(Object objectId) {
+            public void deleteMongoDocument(final Object objectId) {
                 mongoManager.delete(configuration, mongoCollection, objectId);
-                executeQuery();
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultPanel.removeMongoDocument(objectId);
+                    }
+                });
             }
         });
 
-        loadingDecorator = new LoadingDecorator(resultPanel, this, 0);
+        loadingDecorator = new LoadingDecorator(resultPanel, this, 0) {
+            @Override
+            protected NonOpaquePanel customizeLoadingLayer(JPanel parent, JLabel text, AsyncProcessIcon icon) {
+                NonOpaquePanel loadingLayer = super.customizeLoadingLayer(parent, text, icon);
+                loadingLayer.add(new LinkLabel("Cancel", null, new LinkListener() {
+                    @Override
+                    public void linkSelected(LinkLabel aSource, Object aLinkData) {
+                        cancelQuery();
+                    }
+                }));
+                return loadingLayer;
+            }
+        };
 
 
         splitter.setOrientation(true);
@@ -103,10 +168,31 @@ public class MongoPanel extends JPanel implements Disposable {
         rowLimitField.setDocument(new NumberDocument());
 
         JPanel rowLimitPanel = new NonOpaquePanel();
-        rowLimitPanel.add(new JLabel("Row limit:"), BorderLayout.WEST);
+        rowLimitPanel.add(new JLabel("Page size:"), BorderLayout.WEST);
         rowLimitPanel.add(rowLimitField, BorderLayout.CENTER);
         rowLimitPanel.add(Box.createHorizontalStrut(5), BorderLayout.EAST);
-        toolBar.add(rowLimitPanel, BorderLayout.WEST);
+
+        maxTimeField.setColumns(5);
+        maxTimeField.setDocument(new NumberDocument());
+        maxTimeField.setToolTipText("Server-side time budget of the query, the server default being used when empty");
+
+        JPanel maxTimePanel = new NonOpaquePanel();
+        maxTimePanel.add(new JLabel("Max time (ms):"), BorderLayout.WEST);
+        maxTimePanel.add(maxTimeField, BorderLayout.CENTER);
+        maxTimePanel.add(Box.createHorizontalStrut(5), BorderLayout.EAST);
+
+        JPanel queryOptionsPanel = new NonOpaquePanel();
+        queryOptionsPanel.add(rowLimitPanel, BorderLayout.WEST);
+        queryOptionsPanel.add(maxTimePanel, BorderLayout.CENTER);
+        toolBar.add(queryOptionsPanel, BorderLayout.WEST);
+
+        pageLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+        fetchStatusLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+
+        JPanel statusPanel = new NonOpaquePanel();
+        statusPanel.add(fetchStatusLabel, BorderLayout.WEST);
+        statusPanel.add(pageLabel, BorderLayout.EAST);
+        toolBar.add(statusPanel, BorderLayout.EAST);
 
         installResultPanelActions();
     }
@@ -120,12 +206,20 @@ public class MongoPanel extends JPanel implements Disposable {
         DefaultActionGroup actionResultGroup = new DefaultActionGroup("MongoResultGroup", true);
         if (ApplicationManager.getApplication() != null) {
             actionResultGroup.add(new ExecuteQuery(this));
+            actionResultGroup.add(new ExplainQueryAction(this));
+            actionResultGroup.add(new CancelQueryAction(this));
             actionResultGroup.add(new OpenFindAction(this));
             actionResultGroup.add(new EnableAggregateAction(queryPanel));
             actionResultGroup.addSeparator();
+            actionResultGroup.add(new PreviousPageAction(this));
+            actionResultGroup.add(new NextPageAction(this));
+            actionResultGroup.addSeparator();
             actionResultGroup.add(new AddMongoDocumentAction(resultPanel));
             actionResultGroup.add(new EditMongoDocumentAction(resultPanel));
             actionResultGroup.add(new CopyResultAction(resultPanel));
+            actionResultGroup.addSeparator();
+            actionResultGroup.add(new ViewAsTableAction(resultPanel));
+            actionResultGroup.add(new FlattenSubDocumentsAction(resultPanel));
         }
         final TreeExpander treeExpander = new TreeExpander() {
             @Override
@@ -188,6 +282,18 @@ public class MongoPanel extends JPanel implements Disposable {
     public void executeQuery() {
         errorPanel.setVisible(false);
         validateQuery();
+        previousPages.clear();
+        loadPage(queryPanel.getQueryOptions(rowLimitField.getText(), maxTimeField.getText()));
+    }
+
+    public void explainQuery() {
+        errorPanel.setVisible(false);
+        validateQuery();
+        final MongoQueryOptions queryOptions = queryPanel.getQueryOptions(rowLimitField.getText(), maxTimeField.getText());
+        final int currentQuery = startPage(queryOptions);
+        previousPages.clear();
+        pageLabel.setText("Explain");
+
         ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
             @Override
             public void run() {
@@ -199,36 +305,334 @@ public class MongoPanel extends JPanel implements Disposable {
                         }
                     });
 
-                    final MongoCollectionResult mongoCollectionResult = mongoManager.loadCollectionValues(configuration, mongoCollection, queryPanel.getQueryOptions(rowLimitField.getText()));
+                    DBObject explainOutput = mongoManager.explain(configuration, mongoCollection, queryOptions);
+                    final MongoExplainPlan explainPlan = new MongoExplainPlan(explainOutput);
+                    final MongoCollectionResult explainResult = new MongoCollectionResult(mongoCollection.getName());
+                    explainResult.add(explainPlan.toSummary());
+                    explainResult.add(explainOutput);
+                    final TreeNode explainTree = JsonTreeModel.buildJsonTree(explainResult);
+
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (isStale(currentQuery)) {
+                                explainResult.dispose();
+                                return;
+                            }
+                            resultPanel.updateResultTableTree(explainResult, explainTree);
+                            if (explainPlan.isCollectionScan()) {
+                                GuiUtils.showNotification(resultPanel, MessageType.WARNING, "No index is used: the whole collection is scanned", Balloon.Position.above);
+                            }
+                        }
+                    });
+                } catch (final Exception ex) {
                     GuiUtils.runInSwingThread(new Runnable() {
                         @Override
                         public void run() {
-                            resultPanel.updateResultTableTree(mongoCollectionResult);
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            displayError(ex);
+                        }
+                    });
+                } finally {
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            loadingDecorator.stopLoading();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    public void showNextPage() {
+        if (!hasNextPage()) {
+            return;
+        }
+        errorPanel.setVisible(false);
+        previousPages.add(currentQueryOptions);
+        if (nextPageResult == null) {
+            loadPage(nextPageQueryOptions);
+            return;
+        }
+
+        MongoQueryOptions pageQueryOptions = nextPageQueryOptions;
+        MongoCollectionResult pageResult = nextPageResult;
+        TreeNode pageTree = nextPageTree;
+        nextPageResult = null;
+        int currentQuery = startPage(pageQueryOptions);
+        resultPanel.updateResultTableTree(pageResult, pageTree);
+        onPageLoaded(pageQueryOptions, pageResult, currentQuery);
+    }
+
+    public void showPreviousPage() {
+        if (!hasPreviousPage()) {
+            return;
+        }
+        errorPanel.setVisible(false);
+        loadPage(previousPages.removeLast());
+    }
 
+    public void cancelQuery() {
+        final QueryCancellation queryCancellation = runningQueryCancellation;
+        if (queryCancellation == null) {
+            return;
+        }
+        runningQueryCancellation = null;
+        queryCounter.incrementAndGet();
+        loadingDecorator.stopLoading();
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mongoManager.cancel(configuration, queryCancellation);
+                } catch (final Exception ex) {
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            displayError(ex);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    public boolean isQueryRunning() {
+        return runningQueryCancellation != null;
+    }
+
+    public boolean hasNextPage() {
+        return nextPageQueryOptions != null;
+    }
+
+    public boolean hasPreviousPage() {
+        return !previousPages.isEmpty();
+    }
+
+    private void reloadCurrentPage() {
+        if (currentQueryOptions == null) {
+            executeQuery();
+            return;
+        }
+        loadPage(currentQueryOptions);
+    }
+
+    private void loadPage(final MongoQueryOptions pageQueryOptions) {
+        final int currentQuery = startPage(pageQueryOptions);
+        final QueryCancellation queryCancellation = new QueryCancellation();
+        runningQueryCancellation = queryCancellation;
+        // the result panel owns the result from now on and disposes it when another one is displayed
+        final MongoCollectionResult pageResult = new MongoCollectionResult(mongoCollection.getName(), configuration.getResultHeapBudget(), configuration.getResultSizeLimit());
+        resultPanel.startResultTableTree(pageResult);
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            loadingDecorator.startLoading(false);
+                        }
+                    });
+
+                    mongoManager.loadCollectionValues(configuration, mongoCollection, pageQueryOptions, pageResult, new MongoManager.ResultBatchListener() {
+
+                        private int documentCount = 0;
+
+                        @Override
+                        public void onBatch(List<DBObject> documents) {
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            final List<JsonTreeNode> documentNodes = JsonTreeModel.buildDocumentNodes(documentCount, documents);
+                            documentCount += documents.size();
+                            GuiUtils.runInSwingThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (isStale(currentQuery)) {
+                                        return;
+                                    }
+                                    loadingDecorator.stopLoading();
+                                    resultPanel.appendResultNodes(documentNodes);
+                                }
+                            });
+                        }
+                    }, queryCancellation);
+
+                    GuiUtils.runInSwingThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            onPageLoaded(pageQueryOptions, pageResult, currentQuery);
                         }
                     });
                 } catch (final Exception ex) {
                     GuiUtils.runInSwingThread(new Runnable() {
                         @Override
                         public void run() {
-                            errorPanel.invalidate();
-                            errorPanel.removeAll();
-                            errorPanel.add(new ErrorPanel(ex), BorderLayout.CENTER);
-                            errorPanel.validate();
-                            errorPanel.setVisible(true);
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            displayError(ex);
                         }
                     });
                 } finally {
                     GuiUtils.runInSwingThread(new Runnable() {
                         @Override
                         public void run() {
+                            if (isStale(currentQuery)) {
+                                return;
+                            }
+                            runningQueryCancellation = null;
                             loadingDecorator.stopLoading();
                         }
                     });
                 }
             }
         });
+    }
+
+    private void displayError(Exception ex) {
+        errorPanel.invalidate();
+        errorPanel.removeAll();
+        errorPanel.add(new ErrorPanel(ex), BorderLayout.CENTER);
+        errorPanel.validate();
+        errorPanel.setVisible(true);
+    }
+
+    private int startPage(MongoQueryOptions pageQueryOptions) {
+        cancelQuery();
+        currentQueryOptions = pageQueryOptions;
+        nextPageQueryOptions = null;
+        disposeNextPage();
+        pageLabel.setText(String.format("Page %d", pageQueryOptions.getPage() + 1));
+        fetchStatusLabel.setText("");
+        fetchStatusLabel.setIcon(null);
+        return queryCounter.incrementAndGet();
+    }
+
+    private void onPageLoaded(MongoQueryOptions pageQueryOptions, MongoCollectionResult pageResult, int currentQuery) {
+        showFetchStatus(pageResult);
+        if (pageResult.isSizeLimitReached()) {
+            return;
+        }
+        List<DBObject> pageDocuments = pageResult.getMongoObjects();
+        if (pageQueryOptions.getResultLimit() <= 0 || pageDocuments.size() < pageQueryOptions.getResultLimit()) {
+            return;
+        }
+        nextPageQueryOptions = pageQueryOptions.nextPage(pageDocuments.get(pageDocuments.size() - 1));
+        prefetchNextPage(nextPageQueryOptions, currentQuery);
+    }
+
+    private void showFetchStatus(MongoCollectionResult pageResult) {
+        fetchStatusLabel.setText(formatFetchStatus(pageResult));
+        if (!pageResult.isSizeLimitReached()) {
+            fetchStatusLabel.setIcon(null);
+            return;
+        }
+        fetchStatusLabel.setIcon(MessageType.WARNING.getDefaultIcon());
+        GuiUtils.showNotification(resultPanel, MessageType.WARNING,
+                String.format("The result reached the size limit of %d MB: the next documents were not fetched", toMB(pageResult.getSizeLimit())),
+                Balloon.Position.above);
+    }
+
+    static String formatFetchStatus(MongoCollectionResult result) {
+        String status = String.format("%d docs / %.1f MB fetched in %d ms",
+                result.getMongoObjects().size(), result.getByteSize() / (1024d * 1024d), result.getFetchDuration());
+        if (result.isSizeLimitReached()) {
+            status += " (budget reached)";
+        }
+        return status;
+    }
+
+    private static long toMB(long size) {
+        return size / (1024 * 1024);
+    }
+
+    private void prefetchNextPage(final MongoQueryOptions nextPageQueryOptions, final int currentQuery) {
+        final QueryCancellation queryCancellation = new QueryCancellation();
+        prefetchCancellation = queryCancellation;
+        final MongoCollectionResult prefetchedResult = new MongoCollectionResult(mongoCollection.getName(), configuration.getResultHeapBudget(), configuration.getResultSizeLimit());
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mongoManager.loadCollectionValues(configuration, mongoCollection, nextPageQueryOptions, prefetchedResult, null, queryCancellation);
+                } catch (Exception ex) {
+                    prefetchedResult.dispose();
+                    // the next page will simply be loaded on demand, reporting the error if it happens again
+                    return;
+                }
+                if (isStale(currentQuery)) {
+                    prefetchedResult.dispose();
+                    return;
+                }
+                final TreeNode prefetchedTree = JsonTreeModel.buildJsonTree(prefetchedResult);
+                GuiUtils.runInSwingThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isStale(currentQuery)) {
+                            prefetchedResult.dispose();
+                            return;
+                        }
+                        prefetchCancellation = null;
+                        if (prefetchedResult.getMongoObjects().isEmpty()) {
+                            prefetchedResult.dispose();
+                            nextPageQueryOptions = null;
+                        } else {
+                            nextPageResult = prefetchedResult;
+                            nextPageTree = prefetchedTree;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void disposeNextPage() {
+        cancelPrefetch();
+        if (nextPageResult != null) {
+            nextPageResult.dispose();
+        }
+        nextPageResult = null;
+        nextPageTree = null;
+    }
+
+    /**
+     * Stops the query of the next page if it is still running, killing its server operation as well
+     */
+    private void cancelPrefetch() {
+        final QueryCancellation queryCancellation = prefetchCancellation;
+        if (queryCancellation == null) {
+            return;
+        }
+        prefetchCancellation = null;
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mongoManager.cancel(configuration, queryCancellation);
+                } catch (Exception ex) {
+                    // nobody waits for the next page anymore, its query stops at the latest when it reaches its max time
+                }
+            }
+        });
+    }
 
+    private boolean isStale(int query) {
+        return query != queryCounter.get();
     }
 
     private void validateQuery() {
@@ -237,6 +641,7 @@ public class MongoPanel extends JPanel implements Disposable {
 
     @Override
     public void dispose() {
+        disposeNextPage();
         resultPanel.dispose();
     }
 
@@ -246,6 +651,7 @@ public class MongoPanel extends JPanel implements Disposable {
 
     public void openFindEditor() {
         queryPanel.setVisible(true);
+        queryPanel.loadFieldPaths();
         splitter.setFirstComponent(queryPanel);
         GuiUtils.runInSwingThread(new Runnable() {
             @Override
@@ -271,8 +677,16 @@ public class MongoPanel extends JPanel implements Disposable {
     interface MongoDocumentOperations {
         DBObject getMongoDocument(Object _id);
 
+        /**
+         * Called out of the EDT
+         */
         void deleteMongoDocument(Object mongoDocument);
 
-        void updateMongoDocument(DBObject mongoDocument);
+        /**
+         * Called out of the EDT
+         *
+         * @param originalDocument the document as it was before being edited, null for a new document
+         */
+        void updateMongoDocument(DBObject originalDocument, DBObject mongoDocument);
     }
 }
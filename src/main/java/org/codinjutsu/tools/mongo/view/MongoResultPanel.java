@@ -27,6 +27,7 @@ import com.intellij.openapi.ui.popup.Balloon;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.PopupHandler;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
 import com.intellij.ui.treeStructure.treetable.TreeTableTree;
 import com.intellij.util.ui.tree.TreeUtil;
 import com.mongodb.DBObject;
@@ -37,15 +38,27 @@ import org.codinjutsu.tools.mongo.view.action.CopyResultAction;
 import org.codinjutsu.tools.mongo.view.action.EditMongoDocumentAction;
 import org.codinjutsu.tools.mongo.view.model.JsonTreeModel;
 import org.codinjutsu.tools.mongo.view.model.JsonTreeNode;
+import org.codinjutsu.tools.mongo.view.model.ResultTableModel;
 import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoKeyValueDescriptor;
 import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoNodeDescriptor;
 import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoResultDescriptor;
+import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoValueDescriptor;
+import org.codinjutsu.tools.mongo.view.renderer.MongoFlatValueCellRenderer;
 
 import javax.swing.*;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -59,6 +72,13 @@ public class MongoResultPanel extends JPanel implements Disposable {
     private final MongoEditionPanel mongoEditionPanel;
 
     JsonTreeTableView resultTableView;
+    JBTable resultFlatTable;
+    private ResultTableModel resultFlatTableModel;
+    private DefaultActionGroup popupActionGroup;
+    private MongoCollectionResult displayedResult;
+
+    private boolean flatTableMode = false;
+    private boolean flattenSubDocuments = false;
 
 
     public MongoResultPanel(Project project, MongoPanel.MongoDocumentOperations mongoDocumentOperations) {
@@ -100,7 +120,229 @@ public class MongoResultPanel extends JPanel implements Disposable {
     }
 
     public void updateResultTableTree(MongoCollectionResult mongoCollectionResult) {
-        resultTableView = new JsonTreeTableView(JsonTreeModel.buildJsonTree(mongoCollectionResult), JsonTreeTableView.COLUMNS_FOR_READING);
+        updateResultTableTree(mongoCollectionResult, JsonTreeModel.buildJsonTree(mongoCollectionResult));
+    }
+
+    /**
+     * Displays the tree of the given result, which is disposed once another one is displayed
+     */
+    public void updateResultTableTree(MongoCollectionResult mongoCollectionResult, TreeNode rootNode) {
+        installResultTableView(mongoCollectionResult, rootNode);
+    }
+
+    /**
+     * Displays an empty tree for the given result, whose documents are then added with {@link #appendResultNodes(List)}
+     */
+    public void startResultTableTree(MongoCollectionResult mongoCollectionResult) {
+        installResultTableView(mongoCollectionResult, JsonTreeModel.buildEmptyJsonTree(mongoCollectionResult.getCollectionName()));
+    }
+
+    public void appendResultNodes(List<JsonTreeNode> documentNodes) {
+        if (resultTableView == null) {
+            return;
+        }
+        TreeTableTree tree = resultTableView.getTree();
+        DefaultTreeModel treeModel = (DefaultTreeModel) tree.getModel();
+        JsonTreeNode rootNode = (JsonTreeNode) treeModel.getRoot();
+
+        int[] addedIndices = JsonTreeModel.addDocumentNodes(rootNode, documentNodes);
+        if (resultFlatTableModel != null) {
+            resultFlatTableModel.refresh();
+            addNewFlatTableColumns();
+        }
+        if (addedIndices.length == 0) {
+            return;
+        }
+        treeModel.nodesWereInserted(rootNode, addedIndices);
+
+        for (int addedIndex : addedIndices) {
+            if (addedIndex >= JsonTreeTableView.MAX_EXPANDED_NODES) {
+                break;
+            }
+            tree.expandPath(new TreePath(((JsonTreeNode) rootNode.getChildAt(addedIndex)).getPath()));
+        }
+    }
+
+    /**
+     * Shows the new version of the document with the given <code>_id</code> in place of the displayed one,
+     * keeping the scroll position and the expanded nodes of the result
+     */
+    public void replaceMongoDocument(Object _id, DBObject mongoDocument) {
+        if (displayedResult == null) {
+            return;
+        }
+        int index = displayedResult.indexOf(_id);
+        if (index < 0) {
+            return;
+        }
+        JsonTreeNode documentNode = findDocumentNode(index, _id);
+        DBObject storedDocument = displayedResult.replace(index, mongoDocument);
+        if (resultFlatTableModel != null) {
+            resultFlatTableModel.documentReplaced(index);
+            addNewFlatTableColumns();
+        }
+        if (documentNode == null) {
+            return;
+        }
+        TreeTableTree tree = resultTableView.getTree();
+        DefaultTreeModel treeModel = (DefaultTreeModel) tree.getModel();
+        JsonTreeNode rootNode = (JsonTreeNode) treeModel.getRoot();
+        List<String[]> expandedKeyPaths = getExpandedKeyPaths(tree, documentNode);
+        Point viewPosition = getViewPosition();
+
+        // the descriptor keeps the index of the document, its children are rebuilt from the new version
+        MongoNodeDescriptor descriptor = documentNode.getDescriptor();
+        descriptor.setValue(storedDocument);
+        JsonTreeNode newDocumentNode = new JsonTreeNode(descriptor);
+        treeModel.removeNodeFromParent(documentNode);
+        treeModel.insertNodeInto(newDocumentNode, rootNode, index);
+        for (String[] expandedKeyPath : expandedKeyPaths) {
+            expandKeyPath(tree, newDocumentNode, expandedKeyPath);
+        }
+        restoreViewPosition(viewPosition);
+    }
+
+    /**
+     * Removes the document with the given <code>_id</code> from the displayed result, keeping the scroll position
+     * and the expanded nodes of the other documents
+     */
+    public void removeMongoDocument(Object _id) {
+        if (displayedResult == null) {
+            return;
+        }
+        int index = displayedResult.indexOf(_id);
+        if (index < 0) {
+            return;
+        }
+        JsonTreeNode documentNode = findDocumentNode(index, _id);
+        displayedResult.remove(index);
+        if (resultFlatTableModel != null) {
+            resultFlatTableModel.documentRemoved(index);
+        }
+        if (documentNode == null) {
+            return;
+        }
+
+        Point viewPosition = getViewPosition();
+        DefaultTreeModel treeModel = (DefaultTreeModel) resultTableView.getTree().getModel();
+        JsonTreeNode rootNode = (JsonTreeNode) treeModel.getRoot();
+        treeModel.removeNodeFromParent(documentNode);
+        renumberDocumentNodes(treeModel, rootNode, index);
+        restoreViewPosition(viewPosition);
+    }
+
+    /**
+     * The documents of the result are displayed in their order, one node each
+     *
+     * @return the node of the document at the given index of the result, null if it is not the expected document
+     */
+    private JsonTreeNode findDocumentNode(int index, Object _id) {
+        JsonTreeNode rootNode = (JsonTreeNode) resultTableView.getTree().getModel().getRoot();
+        if (index >= rootNode.getChildCount()) {
+            return null;
+        }
+        JsonTreeNode documentNode = (JsonTreeNode) rootNode.getChildAt(index);
+        Object document = documentNode.getDescriptor().getValue();
+        return document instanceof DBObject && _id.equals(((DBObject) document).get("_id")) ? documentNode : null;
+    }
+
+    /**
+     * Gives the document nodes from the given one on the index of their document once a previous one has been removed
+     */
+    private static void renumberDocumentNodes(DefaultTreeModel treeModel, JsonTreeNode rootNode, int firstIndex) {
+        int[] renumberedIndices = new int[rootNode.getChildCount() - firstIndex];
+        for (int i = 0; i < renumberedIndices.length; i++) {
+            int index = firstIndex + i;
+            MongoNodeDescriptor descriptor = ((JsonTreeNode) rootNode.getChildAt(index)).getDescriptor();
+            if (descriptor instanceof MongoValueDescriptor) {
+                ((MongoValueDescriptor) descriptor).setIndex(index);
+            }
+            renumberedIndices[i] = index;
+        }
+        if (renumberedIndices.length > 0) {
+            treeModel.nodesChanged(rootNode, renumberedIndices);
+        }
+    }
+
+    /**
+     * @return the keys leading from the document node to each of its expanded nodes, including itself
+     */
+    private static List<String[]> getExpandedKeyPaths(TreeTableTree tree, JsonTreeNode documentNode) {
+        List<String[]> expandedKeyPaths = new LinkedList<String[]>();
+        TreePath documentPath = new TreePath(documentNode.getPath());
+        Enumeration<TreePath> expandedPaths = tree.getExpandedDescendants(documentPath);
+        if (expandedPaths == null) {
+            return expandedKeyPaths;
+        }
+        while (expandedPaths.hasMoreElements()) {
+            Object[] pathNodes = expandedPaths.nextElement().getPath();
+            String[] keyPath = new String[pathNodes.length - documentPath.getPathCount()];
+            for (int i = 0; i < keyPath.length; i++) {
+                keyPath[i] = ((JsonTreeNode) pathNodes[documentPath.getPathCount() + i]).getDescriptor().getFormattedKey();
+            }
+            expandedKeyPaths.add(keyPath);
+        }
+        return expandedKeyPaths;
+    }
+
+    private static void expandKeyPath(TreeTableTree tree, JsonTreeNode documentNode, String[] keyPath) {
+        JsonTreeNode node = documentNode;
+        for (String key : keyPath) {
+            node = findChildNode(node, key);
+            if (node == null) {
+                return;
+            }
+        }
+        tree.expandPath(new TreePath(node.getPath()));
+    }
+
+    private static JsonTreeNode findChildNode(JsonTreeNode parentNode, String formattedKey) {
+        for (int i = 0; i < parentNode.getChildCount(); i++) {
+            JsonTreeNode childNode = (JsonTreeNode) parentNode.getChildAt(i);
+            if (formattedKey.equals(childNode.getDescriptor().getFormattedKey())) {
+                return childNode;
+            }
+        }
+        return null;
+    }
+
+    private Point getViewPosition() {
+        JViewport viewport = getResultViewport();
+        return viewport == null ? null : viewport.getViewPosition();
+    }
+
+    /**
+     * The tree table refreshes its rows later on, so the position is restored once it is done
+     */
+    private void restoreViewPosition(final Point viewPosition) {
+        if (viewPosition == null) {
+            return;
+        }
+        runInSwingThread(new Runnable() {
+            @Override
+            public void run() {
+                JViewport viewport = getResultViewport();
+                if (viewport != null) {
+                    viewport.setViewPosition(viewPosition);
+                }
+            }
+        });
+    }
+
+    void runInSwingThread(Runnable task) {
+        GuiUtils.runInSwingThread(task);
+    }
+
+    private JViewport getResultViewport() {
+        JComponent resultView = isFlatTableShown() ? resultFlatTable : resultTableView;
+        return resultView == null ? null : (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, resultView);
+    }
+
+    private void installResultTableView(MongoCollectionResult mongoCollectionResult, TreeNode rootNode) {
+        disposeDisplayedResult();
+        displayedResult = mongoCollectionResult;
+
+        resultTableView = new JsonTreeTableView(rootNode, JsonTreeTableView.COLUMNS_FOR_READING);
         resultTableView.setName("resultTreeTable");
 
         resultTableView.addMouseListener(new MouseAdapter() {
@@ -114,10 +356,112 @@ public class MongoResultPanel extends JPanel implements Disposable {
 
         buildPopupMenu();
 
+        resultFlatTable = null;
+        resultFlatTableModel = null;
+        showResultView();
+    }
+
+    private void showResultView() {
+        JComponent resultView = resultTableView;
+        if (flatTableMode && displayedResult != null) {
+            if (resultFlatTable == null) {
+                installResultFlatTable();
+            }
+            resultView = resultFlatTable;
+        }
+
         resultTreePanel.invalidate();
         resultTreePanel.removeAll();
-        resultTreePanel.add(new JBScrollPane(resultTableView));
+        resultTreePanel.add(new JBScrollPane(resultView));
         resultTreePanel.validate();
+        resultTreePanel.repaint();
+    }
+
+    private void installResultFlatTable() {
+        final MongoCollectionResult flatTableResult = displayedResult;
+        resultFlatTableModel = new ResultTableModel(flatTableResult.getMongoObjects(), flattenSubDocuments);
+        resultFlatTable = new JBTable(resultFlatTableModel);
+        // the columns found while the result streams in are added by addNewFlatTableColumns, keeping the widths
+        resultFlatTable.setAutoCreateColumnsFromModel(false);
+        resultFlatTable.setName("resultFlatTable");
+        resultFlatTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        resultFlatTable.setDefaultRenderer(Object.class, new MongoFlatValueCellRenderer());
+        resultFlatTable.setRowSorter(new TableRowSorter<ResultTableModel>(resultFlatTableModel) {
+            @Override
+            public Comparator<?> getComparator(int column) {
+                return ResultTableModel.VALUE_COMPARATOR;
+            }
+
+            @Override
+            protected boolean useToString(int column) {
+                return false;
+            }
+
+            /**
+             * Sorting reads the cell of every row, and each read of a spilled document copies it back from its file
+             */
+            @Override
+            public boolean isSortable(int column) {
+                return !flatTableResult.isSpilled() && super.isSortable(column);
+            }
+        });
+
+        resultFlatTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent mouseEvent) {
+                if (mouseEvent.getClickCount() == 2 && MongoResultPanel.this.isSelectedNodeId()) {
+                    MongoResultPanel.this.editSelectedMongoDocument();
+                }
+            }
+        });
+
+        if (popupActionGroup != null) {
+            PopupHandler.installPopupHandler(resultFlatTable, popupActionGroup, "POPUP", ActionManager.getInstance());
+        }
+    }
+
+    /**
+     * Appends the columns the model found in the last documents. The existing columns are left untouched so that
+     * their widths and the sort keys survive while the result streams in.
+     */
+    private void addNewFlatTableColumns() {
+        TableColumnModel columnModel = resultFlatTable.getColumnModel();
+        for (int column = columnModel.getColumnCount(); column < resultFlatTableModel.getColumnCount(); column++) {
+            TableColumn tableColumn = new TableColumn(column);
+            tableColumn.setHeaderValue(resultFlatTableModel.getColumnName(column));
+            columnModel.addColumn(tableColumn);
+        }
+        RowSorter<? extends TableModel> rowSorter = resultFlatTable.getRowSorter();
+        if (displayedResult.isSpilled() && !rowSorter.getSortKeys().isEmpty()) {
+            rowSorter.setSortKeys(null);
+        }
+    }
+
+    public boolean isFlatTableMode() {
+        return flatTableMode;
+    }
+
+    /**
+     * Switches between the tree of the documents and a table with one row per document
+     */
+    public void setFlatTableMode(boolean flatTableMode) {
+        this.flatTableMode = flatTableMode;
+        if (resultTableView != null) {
+            showResultView();
+        }
+    }
+
+    public boolean isFlattenSubDocuments() {
+        return flattenSubDocuments;
+    }
+
+    public void setFlattenSubDocuments(boolean flattenSubDocuments) {
+        this.flattenSubDocuments = flattenSubDocuments;
+        resultFlatTable = null;
+        resultFlatTableModel = null;
+        if (resultTableView != null) {
+            showResultView();
+        }
     }
 
     void buildPopupMenu() {
@@ -128,6 +472,7 @@ public class MongoResultPanel extends JPanel implements Disposable {
         }
 
         PopupHandler.installPopupHandler(resultTableView, actionPopupGroup, "POPUP", ActionManager.getInstance());
+        popupActionGroup = actionPopupGroup;
     }
 
 
@@ -151,6 +496,11 @@ public class MongoResultPanel extends JPanel implements Disposable {
     }
 
     private DBObject getSelectedMongoDocument() {
+        if (isFlatTableShown()) {
+            DBObject document = getSelectedFlatTableDocument();
+            return document == null ? null : mongoDocumentOperations.getMongoDocument(document.get("_id"));
+        }
+
         TreeTableTree tree = resultTableView.getTree();
         JsonTreeNode treeNode = (JsonTreeNode) tree.getLastSelectedPathComponent();
         if (treeNode == null) {
@@ -173,6 +523,9 @@ public class MongoResultPanel extends JPanel implements Disposable {
         if (resultTableView == null) {
             return false;
         }
+        if (isFlatTableShown()) {
+            return getSelectedFlatTableDocument() != null;
+        }
         TreeTableTree tree = resultTableView.getTree();
         JsonTreeNode treeNode = (JsonTreeNode) tree.getLastSelectedPathComponent();
         if (treeNode == null) {
@@ -189,6 +542,22 @@ public class MongoResultPanel extends JPanel implements Disposable {
     }
 
 
+    private boolean isFlatTableShown() {
+        return flatTableMode && resultFlatTable != null;
+    }
+
+    /**
+     * @return the document of the selected row of the flat table, provided it has an <code>_id</code>
+     */
+    private DBObject getSelectedFlatTableDocument() {
+        int selectedRow = resultFlatTable.getSelectedRow();
+        if (selectedRow < 0) {
+            return null;
+        }
+        DBObject document = resultFlatTableModel.getDocument(resultFlatTable.convertRowIndexToModel(selectedRow));
+        return document.containsField("_id") ? document : null;
+    }
+
     void expandAll() {
         TreeUtil.expandAll(resultTableView.getTree());
     }
@@ -199,6 +568,14 @@ public class MongoResultPanel extends JPanel implements Disposable {
     }
 
     public String getSelectedNodeStringifiedValue() {
+        if (isFlatTableShown() && resultFlatTable.getSelectedRowCount() > 0) {
+            List<Object> stringifiedObjects = new LinkedList<Object>();
+            for (int selectedRow : resultFlatTable.getSelectedRows()) {
+                stringifiedObjects.add(resultFlatTableModel.getDocument(resultFlatTable.convertRowIndexToModel(selectedRow)));
+            }
+            return String.format("[ %s ]", StringUtils.join(stringifiedObjects, " , "));
+        }
+
         JsonTreeNode lastSelectedResultNode = (JsonTreeNode) resultTableView.getTree().getLastSelectedPathComponent();
         if (lastSelectedResultNode == null) {
             lastSelectedResultNode = (JsonTreeNode) resultTableView.getTree().getModel().getRoot();
@@ -225,9 +602,19 @@ public class MongoResultPanel extends JPanel implements Disposable {
         return String.format("[ %s ]", StringUtils.join(stringifiedObjects, " , "));
     }
 
+    private void disposeDisplayedResult() {
+        if (displayedResult != null) {
+            displayedResult.dispose();
+            displayedResult = null;
+        }
+    }
+
     @Override
     public void dispose() {
         resultTableView = null;
+        resultFlatTable = null;
+        resultFlatTableModel = null;
+        disposeDisplayedResult();
         mongoEditionPanel.dispose();
     }
 
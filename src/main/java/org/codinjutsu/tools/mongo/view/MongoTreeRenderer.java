@@ -18,16 +18,19 @@ package org.codinjutsu.tools.mongo.view;
 
 import com.intellij.ui.ColoredTreeCellRenderer;
 import com.intellij.ui.JBColor;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.ui.SimpleTextAttributes;
 import org.apache.commons.lang.StringUtils;
-import org.codinjutsu.tools.mongo.model.MongoCollection;
-import org.codinjutsu.tools.mongo.model.MongoDatabase;
-import org.codinjutsu.tools.mongo.model.MongoServer;
+import org.codinjutsu.tools.mongo.model.*;
 import org.codinjutsu.tools.mongo.utils.GuiUtils;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 class MongoTreeRenderer extends ColoredTreeCellRenderer {
 
@@ -35,6 +38,9 @@ class MongoTreeRenderer extends ColoredTreeCellRenderer {
     private static final Icon MONGO_DATABASE = GuiUtils.loadIcon("database.png");
     private static final Icon MONGO_COLLECTION = GuiUtils.loadIcon("folder.png");
     private static final Icon MONGO_SERVER_ERROR = GuiUtils.loadIcon("mongo_warning.png");
+    private static final Icon MONGO_INDEXES = GuiUtils.loadIcon("folder.png");
+    private static final Icon MONGO_INDEX = GuiUtils.loadIcon("sortByKey.png");
+    private static final Icon MONGO_SCHEMA = GuiUtils.loadIcon("dataSchema.png", "dataSchema_dark.png");
 
     @Override
     public void customizeCellRenderer(@NotNull JTree mongoTree, Object value, boolean isSelected, boolean isExpanded, boolean isLeaf, int row, boolean focus) {
@@ -55,6 +61,10 @@ class MongoTreeRenderer extends ColoredTreeCellRenderer {
                 setToolTipText(host);
                 setIcon(MONGO_SERVER);
                 append(" Loading...", SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+            } else if (MongoServer.Status.CACHED.equals(mongoServer.getStatus())) {
+                setToolTipText(String.format("%s (last known databases, refreshing)", host));
+                setIcon(MONGO_SERVER);
+                append(" cached", SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
             } else{
                 setForeground(JBColor.RED);
                 setIcon(MONGO_SERVER_ERROR);
@@ -68,6 +78,67 @@ class MongoTreeRenderer extends ColoredTreeCellRenderer {
             MongoCollection mongoCollection = (MongoCollection) userObject;
             append(mongoCollection.getName());
             setIcon(MONGO_COLLECTION);
+        } else if (userObject instanceof MongoCollectionIndexes) {
+            append("Indexes");
+            setIcon(MONGO_INDEXES);
+        } else if (userObject instanceof MongoIndex) {
+            renderIndex((MongoIndex) userObject);
+        } else if (userObject instanceof MongoCollectionSchema) {
+            renderSchema(((MongoCollectionSchema) userObject).getSchema());
+        } else if (userObject instanceof MongoSchemaField) {
+            renderSchemaField((MongoSchemaField) userObject);
+        } else if (userObject instanceof String) {
+            append((String) userObject, SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+        }
+    }
+
+    private void renderIndex(MongoIndex mongoIndex) {
+        append(mongoIndex.getName());
+        append(" " + mongoIndex.getKey(), SimpleTextAttributes.GRAY_ATTRIBUTES);
+        if (mongoIndex.isUnique()) {
+            append(" unique", SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+        }
+        if (mongoIndex.getSize() != MongoIndex.UNKNOWN) {
+            append(" " + StringUtil.formatFileSize(mongoIndex.getSize()), SimpleTextAttributes.GRAY_ATTRIBUTES);
+        }
+        if (mongoIndex.getAccesses() == 0) {
+            append(" unused", SimpleTextAttributes.ERROR_ATTRIBUTES);
+        } else if (mongoIndex.getAccesses() != MongoIndex.UNKNOWN) {
+            append(String.format(" %d ops", mongoIndex.getAccesses()), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+        }
+        if (mongoIndex.getAccessesSince() != null) {
+            setToolTipText(String.format("Accesses counted since %s", mongoIndex.getAccessesSince()));
+        }
+        setIcon(MONGO_INDEX);
+    }
+
+    private void renderSchema(MongoSchema schema) {
+        append("Schema");
+        if (schema != null) {
+            append(String.format(" %d docs %s", schema.getSampleSize(), schema.isRandomSample() ? "sampled" : "read"), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+            setToolTipText(String.format("Sampled on %s", new Date(schema.getSamplingTime())));
+        }
+        setIcon(MONGO_SCHEMA);
+    }
+
+    private void renderSchemaField(MongoSchemaField schemaField) {
+        append(schemaField.getPath());
+
+        int typeCount = 0;
+        for (Integer count : schemaField.getTypeCounts().values()) {
+            typeCount += count;
+        }
+        List<String> types = new LinkedList<String>();
+        for (Map.Entry<String, Integer> count : schemaField.getTypeCounts().entrySet()) {
+            types.add(String.format("%s %d%%", count.getKey(), Math.round(count.getValue() * 100.0 / typeCount)));
+        }
+        append(" " + StringUtils.join(types, ", "), SimpleTextAttributes.GRAY_ATTRIBUTES);
+        append(String.format(" present in %d%%", Math.round(schemaField.getPresence() * 100)), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+        if (schemaField.isArray()) {
+            append(String.format(" length %d..%d", schemaField.getMinArrayLength(), schemaField.getMaxArrayLength()), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+        }
+        if (schemaField.getDistinctValueCount() > 0) {
+            append(String.format(" ~%d%s distinct", schemaField.getDistinctValueCount(), schemaField.isDistinctValueCountCapped() ? "+" : ""), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
         }
     }
 }
@@ -42,6 +42,8 @@ import com.intellij.util.ui.UIUtil;
 import com.mongodb.util.JSON;
 import com.mongodb.util.JSONParseException;
 import org.apache.commons.lang.StringUtils;
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
 import org.codinjutsu.tools.mongo.model.MongoQueryOptions;
 import org.codinjutsu.tools.mongo.view.action.OperatorCompletionAction;
 
@@ -58,6 +60,8 @@ public class QueryPanel extends JPanel implements Disposable {
     private final Alarm myUpdateAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD);
 
     private final Project project;
+    private final ServerConfiguration configuration;
+    private final MongoCollection mongoCollection;
 
     private JPanel mainPanel;
     private final CardLayout queryCardLayout;
@@ -67,8 +71,10 @@ public class QueryPanel extends JPanel implements Disposable {
     private final OperatorPanel filterPanel;
     private final OperatorPanel aggregationPanel;
 
-    public QueryPanel(Project project) {
+    public QueryPanel(Project project, ServerConfiguration configuration, MongoCollection mongoCollection) {
         this.project = project;
+        this.configuration = configuration;
+        this.mongoCollection = mongoCollection;
 
         setLayout(new BorderLayout());
         add(mainPanel);
@@ -103,6 +109,11 @@ public class QueryPanel extends JPanel implements Disposable {
         }
     }
 
+    public void loadFieldPaths() {
+        filterPanel.loadFieldPaths();
+        aggregationPanel.loadFieldPaths();
+    }
+
     public OperatorPanel getCurrentOperatorPanel() {
         return filterPanel.isVisible() ? filterPanel : aggregationPanel;
     }
@@ -136,8 +147,12 @@ public class QueryPanel extends JPanel implements Disposable {
         return new LexerEditorHighlighter(PlainTextSyntaxHighlighterFactory.getSyntaxHighlighter(language, null, null), settings);
     }
 
-    public MongoQueryOptions getQueryOptions(String rowLimit) {
-        return getCurrentOperatorPanel().buildQueryOptions(rowLimit);
+    public MongoQueryOptions getQueryOptions(String rowLimit, String maxTime) {
+        MongoQueryOptions mongoQueryOptions = getCurrentOperatorPanel().buildQueryOptions(rowLimit);
+        if (StringUtils.isNotBlank(maxTime)) {
+            mongoQueryOptions.setMaxTime(Integer.parseInt(maxTime));
+        }
+        return mongoQueryOptions;
     }
 
     @Override
@@ -163,6 +178,7 @@ public class QueryPanel extends JPanel implements Disposable {
 
         private final Editor editor;
         private final OperatorCompletionAction operatorCompletionAction;
+        private final JCheckBox allowDiskUseCheckBox = new JCheckBox("Allow disk use");
 
         private AggregatorPanel() {
             this.editor = createEditor();
@@ -171,10 +187,14 @@ public class QueryPanel extends JPanel implements Disposable {
             NonOpaquePanel headPanel = new NonOpaquePanel();
             JLabel operatorLabel = new JLabel("Aggregation");
             headPanel.add(operatorLabel, BorderLayout.WEST);
+            allowDiskUseCheckBox.setName("allowDiskUseField");
+            allowDiskUseCheckBox.setOpaque(false);
+            allowDiskUseCheckBox.setToolTipText("Let the pipeline stages write temporary files when they exceed their memory limit");
+            headPanel.add(allowDiskUseCheckBox, BorderLayout.EAST);
             add(headPanel, BorderLayout.NORTH);
             add(this.editor.getComponent(), BorderLayout.CENTER);
 
-            this.operatorCompletionAction = new OperatorCompletionAction(project, editor);
+            this.operatorCompletionAction = new OperatorCompletionAction(project, editor, configuration, mongoCollection);
 
 
             myUpdateAlarm.setActivationComponent(this.editor.getComponent());
@@ -207,6 +227,7 @@ public class QueryPanel extends JPanel implements Disposable {
             } catch (JSONParseException ex) {
                 notifyOnErrorForOperator(editor.getComponent(), ex);
             }
+            mongoQueryOptions.setAllowDiskUse(allowDiskUseCheckBox.isSelected());
 
             if (StringUtils.isNotBlank(rowLimit)) {
                 mongoQueryOptions.setResultLimit(Integer.parseInt(rowLimit));
@@ -220,6 +241,11 @@ public class QueryPanel extends JPanel implements Disposable {
             return this.editor.getContentComponent();
         }
 
+        @Override
+        public void loadFieldPaths() {
+            operatorCompletionAction.loadFieldPaths();
+        }
+
         @Override
         public void dispose() {
             operatorCompletionAction.dispose();
@@ -238,7 +264,7 @@ public class QueryPanel extends JPanel implements Disposable {
             setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
 
             this.selectEditor = createEditor();
-            this.operatorCompletionAction = new OperatorCompletionAction(project, selectEditor);
+            this.operatorCompletionAction = new OperatorCompletionAction(project, selectEditor, configuration, mongoCollection);
             add(createSubOperatorPanel("Filter", this.selectEditor));
 
             this.projectionEditor = createEditor();
@@ -253,6 +279,11 @@ public class QueryPanel extends JPanel implements Disposable {
             return this.selectEditor.getContentComponent();
         }
 
+        @Override
+        public void loadFieldPaths() {
+            operatorCompletionAction.loadFieldPaths();
+        }
+
         @Override
         public void validateQuery() {
             validateEditorQuery(selectEditor);
@@ -327,6 +358,8 @@ public class QueryPanel extends JPanel implements Disposable {
 
         public abstract MongoQueryOptions buildQueryOptions(String rowLimit);
 
+        public abstract void loadFieldPaths();
+
         void notifyOnErrorForOperator(JComponent component, Exception ex) {
             String message;
             if (ex instanceof JSONParseException) {
@@ -25,6 +25,7 @@ import com.intellij.openapi.ui.*;
 import com.intellij.openapi.util.Ref;
 import com.intellij.ui.ColoredListCellRenderer;
 import com.intellij.ui.IdeBorderFactory;
+import com.intellij.ui.NumberDocument;
 import com.intellij.ui.RawCommandLineEditor;
 import com.mongodb.AuthenticationMechanism;
 import com.mongodb.ReadPreference;
@@ -82,6 +83,16 @@ public class ServerConfigurationPanel extends JPanel {
     private RawCommandLineEditor shellArgumentsLineField;
     private JComboBox readPreferenceComboBox;
     private JPanel connectionOptionPanel;
+    private JPanel connectionPoolPanel;
+    private JTextField maxConnectionsPerHostField;
+    private JTextField maxWaitTimeField;
+    private JTextField connectTimeoutField;
+    private JTextField socketTimeoutField;
+    private JTextField serverSelectionTimeoutField;
+    private JTextField heartbeatFrequencyField;
+    private JTextField maxQueryTimeField;
+    private JTextField resultHeapBudgetField;
+    private JTextField resultSizeLimitField;
 
     private final MongoManager mongoManager;
 
@@ -135,6 +146,22 @@ public class ServerConfigurationPanel extends JPanel {
 
         readPreferenceComboBox.setSelectedItem(ReadPreference.primary());
 
+        connectionPoolPanel.setBorder(IdeBorderFactory.createTitledBorder("Pool and Timeouts", true));
+        initNumberField(maxConnectionsPerHostField, "maxConnectionsPerHostField", ServerConfiguration.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+        initNumberField(maxWaitTimeField, "maxWaitTimeField", ServerConfiguration.DEFAULT_MAX_WAIT_TIME);
+        initNumberField(connectTimeoutField, "connectTimeoutField", ServerConfiguration.DEFAULT_CONNECT_TIMEOUT);
+        initNumberField(socketTimeoutField, "socketTimeoutField", ServerConfiguration.DEFAULT_SOCKET_TIMEOUT);
+        initNumberField(serverSelectionTimeoutField, "serverSelectionTimeoutField", ServerConfiguration.DEFAULT_SERVER_SELECTION_TIMEOUT);
+        initNumberField(heartbeatFrequencyField, "heartbeatFrequencyField", ServerConfiguration.DEFAULT_HEARTBEAT_FREQUENCY);
+        initNumberField(maxQueryTimeField, "maxQueryTimeField", ServerConfiguration.DEFAULT_MAX_QUERY_TIME);
+        initNumberField(resultHeapBudgetField, "resultHeapBudgetField", ServerConfiguration.DEFAULT_RESULT_HEAP_BUDGET);
+        initNumberField(resultSizeLimitField, "resultSizeLimitField", ServerConfiguration.DEFAULT_RESULT_SIZE_LIMIT);
+        socketTimeoutField.setToolTipText("0 means no timeout");
+        serverSelectionTimeoutField.setToolTipText("How long to wait for a reachable server before failing");
+        maxQueryTimeField.setToolTipText("Server-side time budget (maxTimeMS) of the queries that do not set their own. 0 means no limit");
+        resultHeapBudgetField.setToolTipText("Bigger results are written to a memory-mapped temporary file. 0 means always in memory");
+        resultSizeLimitField.setToolTipText("The fetching of a result stops once its documents reach this size. 0 means no limit");
+
 
         authMethodGroup = new ButtonGroup();
         authMethodGroup.add(mongoCRAuthRadioButton);
@@ -147,6 +174,12 @@ public class ServerConfigurationPanel extends JPanel {
         initListeners();
     }
 
+    private static void initNumberField(JTextField numberField, String name, int defaultValue) {
+        numberField.setName(name);
+        numberField.setDocument(new NumberDocument());
+        numberField.setText(String.valueOf(defaultValue));
+    }
+
     private void initListeners() {
         testConnectionButton.addActionListener(new ActionListener() {
             @Override
@@ -156,14 +189,12 @@ public class ServerConfigurationPanel extends JPanel {
                 progressManager.runProcessWithProgressSynchronously(new Runnable() {
                     @Override
                     public void run() {
-                        ServerConfiguration configuration = createServerConfigurationForTesting();
-
                         final ProgressIndicator progressIndicator = progressManager.getProgressIndicator();
                         if (progressIndicator != null) {
                             progressIndicator.setText("Connecting to Mongo server...");
                         }
                         try {
-                            mongoManager.connect(configuration);
+                            mongoManager.connect(createServerConfigurationForTesting());
                         } catch (Exception ex) {
                             excRef.set(ex);
                         }
@@ -191,9 +222,22 @@ public class ServerConfigurationPanel extends JPanel {
         configuration.setUserDatabase(getUserDatabase());
         configuration.setAuthenticationMechanism(getAuthenticationMethod());
         configuration.setSslConnection(isSslConnection());
+        applyPoolAndTimeouts(configuration);
         return configuration;
     }
 
+    private void applyPoolAndTimeouts(ServerConfiguration configuration) {
+        configuration.setMaxConnectionsPerHost(getPositiveNumber(maxConnectionsPerHostField, "Max pool size", ServerConfiguration.DEFAULT_MAX_CONNECTIONS_PER_HOST));
+        configuration.setMaxWaitTime(getNumber(maxWaitTimeField, "Max wait time", ServerConfiguration.DEFAULT_MAX_WAIT_TIME));
+        configuration.setConnectTimeout(getNumber(connectTimeoutField, "Connect timeout", ServerConfiguration.DEFAULT_CONNECT_TIMEOUT));
+        configuration.setSocketTimeout(getNumber(socketTimeoutField, "Socket timeout", ServerConfiguration.DEFAULT_SOCKET_TIMEOUT));
+        configuration.setServerSelectionTimeout(getNumber(serverSelectionTimeoutField, "Server selection timeout", ServerConfiguration.DEFAULT_SERVER_SELECTION_TIMEOUT));
+        configuration.setHeartbeatFrequency(getPositiveNumber(heartbeatFrequencyField, "Heartbeat frequency", ServerConfiguration.DEFAULT_HEARTBEAT_FREQUENCY));
+        configuration.setMaxQueryTime(getNumber(maxQueryTimeField, "Default query max time", ServerConfiguration.DEFAULT_MAX_QUERY_TIME));
+        configuration.setResultHeapBudget(getNumber(resultHeapBudgetField, "Results kept in memory", ServerConfiguration.DEFAULT_RESULT_HEAP_BUDGET));
+        configuration.setResultSizeLimit(getNumber(resultSizeLimitField, "Max result size", ServerConfiguration.DEFAULT_RESULT_SIZE_LIMIT));
+    }
+
     private void validateUrls() {
         List<String> serverUrls = getServerUrls();
         if (serverUrls == null) {
@@ -222,6 +266,7 @@ public class ServerConfigurationPanel extends JPanel {
         configuration.setServerUrls(getServerUrls());
         configuration.setSslConnection(isSslConnection());
         configuration.setReadPreference(getReadPreference());
+        applyPoolAndTimeouts(configuration);
         configuration.setUsername(getUsername());
         configuration.setPassword(getPassword());
         configuration.setUserDatabase(getUserDatabase());
@@ -242,6 +287,15 @@ public class ServerConfigurationPanel extends JPanel {
         authenticationDatabaseField.setText(configuration.getAuthenticationDatabase());
         sslConnectionField.setSelected(configuration.isSslConnection());
         readPreferenceComboBox.setSelectedItem(configuration.getReadPreference());
+        maxConnectionsPerHostField.setText(String.valueOf(configuration.getMaxConnectionsPerHost()));
+        maxWaitTimeField.setText(String.valueOf(configuration.getMaxWaitTime()));
+        connectTimeoutField.setText(String.valueOf(configuration.getConnectTimeout()));
+        socketTimeoutField.setText(String.valueOf(configuration.getSocketTimeout()));
+        serverSelectionTimeoutField.setText(String.valueOf(configuration.getServerSelectionTimeout()));
+        heartbeatFrequencyField.setText(String.valueOf(configuration.getHeartbeatFrequency()));
+        maxQueryTimeField.setText(String.valueOf(configuration.getMaxQueryTime()));
+        resultHeapBudgetField.setText(String.valueOf(configuration.getResultHeapBudget()));
+        resultSizeLimitField.setText(String.valueOf(configuration.getResultSizeLimit()));
         collectionsToIgnoreField.setText(StringUtils.join(configuration.getCollectionsToIgnore(), ","));
         shellArgumentsLineField.setText(configuration.getShellArgumentsLine());
         shellWorkingDirField.setText(configuration.getShellWorkingDir());
@@ -292,6 +346,26 @@ public class ServerConfigurationPanel extends JPanel {
         return null;
     }
 
+    private static int getNumber(JTextField numberField, String fieldLabel, int defaultValue) {
+        String number = numberField.getText();
+        if (StringUtils.isNotBlank(number)) {
+            try {
+                return Integer.parseInt(StringUtils.trim(number));
+            } catch (NumberFormatException ex) {
+                throw new ConfigurationException(String.format("%s should be a number lower than %d", fieldLabel, Integer.MAX_VALUE));
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int getPositiveNumber(JTextField numberField, String fieldLabel, int defaultValue) {
+        int number = getNumber(numberField, fieldLabel, defaultValue);
+        if (number <= 0) {
+            throw new ConfigurationException(String.format("%s should be greater than 0", fieldLabel));
+        }
+        return number;
+    }
+
     private boolean isSslConnection() {
         return sslConnectionField.isSelected();
     }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.view.action;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAware;
+import org.codinjutsu.tools.mongo.view.MongoPanel;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+public class CancelQueryAction extends AnAction implements DumbAware {
+    private final MongoPanel mongoPanel;
+
+    public CancelQueryAction(MongoPanel mongoPanel) {
+        super("Cancel query", "Stop the running query on the server", AllIcons.Actions.Suspend);
+        this.mongoPanel = mongoPanel;
+
+        registerCustomShortcutSet(KeyEvent.VK_F2, InputEvent.CTRL_MASK, mongoPanel);
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent anActionEvent) {
+        mongoPanel.cancelQuery();
+    }
+
+    @Override
+    public void update(AnActionEvent event) {
+        event.getPresentation().setEnabled(mongoPanel.isQueryRunning());
+    }
+}
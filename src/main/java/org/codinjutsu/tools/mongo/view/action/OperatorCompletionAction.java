@@ -19,7 +19,6 @@ package org.codinjutsu.tools.mongo.view.action;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.Result;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.CaretModel;
@@ -29,7 +28,11 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.popup.PopupChooserBuilder;
 import com.intellij.ui.components.JBList;
 import com.mongodb.QueryOperators;
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.logic.MongoSchemaService;
 import org.codinjutsu.tools.mongo.model.MongoAggregateOperator;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoSchema;
 import org.jetbrains.annotations.NotNull;
 
 import java.awt.event.KeyEvent;
@@ -41,7 +44,9 @@ public class OperatorCompletionAction extends AnAction implements Disposable {
 
     private static final String MONGO_OPERATOR_COMPLETION = "MONGO_OPERATOR_COMPLETION";
 
-    private static final JBList QUERY_OPERATOR_LIST;
+    private static final int MAX_FIELD_PATH_COUNT = 200;
+
+    private static final List<String> QUERY_OPERATORS;
 
 
     static {
@@ -60,35 +65,63 @@ public class OperatorCompletionAction extends AnAction implements Disposable {
             }
         }
 
-        QUERY_OPERATOR_LIST = new JBList(operator);
+        QUERY_OPERATORS = operator;
     }
 
     private final Project project;
     private final Editor editor;
+    private final ServerConfiguration configuration;
+    private final MongoCollection mongoCollection;
 
-    public OperatorCompletionAction(Project project, Editor editor) {
+    public OperatorCompletionAction(Project project, Editor editor, ServerConfiguration configuration, MongoCollection mongoCollection) {
         this.project = project;
         this.editor = editor;
+        this.configuration = configuration;
+        this.mongoCollection = mongoCollection;
         registerCustomShortcutSet(KeyEvent.VK_SPACE, KeyEvent.CTRL_MASK, editor.getContentComponent());
     }
 
+    /**
+     * Samples the schema of the collection in the background if there is no fresh one, so that its field paths
+     * are ready when the completion is requested
+     */
+    public void loadFieldPaths() {
+        MongoSchemaService schemaService = MongoSchemaService.getInstance(project);
+        if (schemaService.isStale(schemaService.getCachedSchema(configuration, mongoCollection))) {
+            schemaService.refreshInBackground(configuration, mongoCollection, new MongoSchemaService.SchemaListener() {
+                @Override
+                public void schemaSampled(MongoSchema schema) {
+                    schema.getFieldPathIndex();
+                }
+
+                @Override
+                public void samplingFailed(Exception ex) {
+                }
+            });
+        }
+    }
+
     @Override
     public void actionPerformed(AnActionEvent anActionEvent) {
         final Document document = editor.getDocument();
         CaretModel caretModel = editor.getCaretModel();
         final int offset = caretModel.getOffset();
-        new PopupChooserBuilder(QUERY_OPERATOR_LIST)
+        final int prefixStart = findPrefixStart(document.getCharsSequence(), offset);
+        String prefix = document.getCharsSequence().subSequence(prefixStart, offset).toString();
+
+        final JBList completionList = new JBList(getCompletions(prefix));
+        new PopupChooserBuilder(completionList)
                 .setMovable(false)
                 .setCancelKeyEnabled(true)
                 .setItemChoosenCallback(new Runnable() {
                     public void run() {
-                        final String selectedQueryOperator = (String) QUERY_OPERATOR_LIST.getSelectedValue();
-                        if (selectedQueryOperator == null) return;
+                        final String selectedCompletion = (String) completionList.getSelectedValue();
+                        if (selectedCompletion == null) return;
 
                         new WriteCommandAction(project, MONGO_OPERATOR_COMPLETION) {
                             @Override
                             protected void run(@NotNull Result result) throws Throwable {
-                                document.insertString(offset, selectedQueryOperator);
+                                document.replaceString(prefixStart, offset, selectedCompletion);
                             }
                         }.execute();
                     }
@@ -97,6 +130,35 @@ public class OperatorCompletionAction extends AnAction implements Disposable {
                 .showInBestPositionFor(editor);
     }
 
+    private List<String> getCompletions(String prefix) {
+        List<String> completions = new LinkedList<String>();
+        if (!prefix.startsWith("$")) {
+            MongoSchema schema = MongoSchemaService.getInstance(project).getCachedSchema(configuration, mongoCollection);
+            if (schema != null) {
+                completions.addAll(schema.getFieldPathIndex().findByPrefix(prefix, MAX_FIELD_PATH_COUNT));
+            }
+            loadFieldPaths();
+        }
+        for (String operator : QUERY_OPERATORS) {
+            if (operator.startsWith(prefix)) {
+                completions.add(operator);
+            }
+        }
+        return completions;
+    }
+
+    private static int findPrefixStart(CharSequence text, int offset) {
+        int start = offset;
+        while (start > 0 && isFieldPathCharacter(text.charAt(start - 1))) {
+            start--;
+        }
+        return start;
+    }
+
+    private static boolean isFieldPathCharacter(char character) {
+        return Character.isLetterOrDigit(character) || character == '_' || character == '.' || character == '$';
+    }
+
     @Override
     public void dispose() {
         unregisterCustomShortcutSet(editor.getContentComponent());
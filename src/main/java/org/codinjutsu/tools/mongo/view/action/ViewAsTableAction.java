@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.view.action;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.project.DumbAware;
+import org.codinjutsu.tools.mongo.view.MongoResultPanel;
+
+public class ViewAsTableAction extends ToggleAction implements DumbAware {
+
+    private final MongoResultPanel mongoResultPanel;
+
+    public ViewAsTableAction(MongoResultPanel mongoResultPanel) {
+        super("View as table", "Show one row per document and one column per field", AllIcons.Nodes.DataTables);
+        this.mongoResultPanel = mongoResultPanel;
+    }
+
+    @Override
+    public boolean isSelected(AnActionEvent event) {
+        return mongoResultPanel.isFlatTableMode();
+    }
+
+    @Override
+    public void setSelected(AnActionEvent event, boolean flatTableMode) {
+        mongoResultPanel.setFlatTableMode(flatTableMode);
+    }
+}
@@ -19,6 +19,7 @@ package org.codinjutsu.tools.mongo.view.model;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
+import org.bson.LazyBSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.codinjutsu.tools.mongo.model.MongoCollectionResult;
 import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoKeyValueDescriptor;
@@ -29,7 +30,9 @@ import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoValueDescriptor;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeNode;
 import java.util.Enumeration;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class JsonTreeModel extends DefaultTreeModel {
 
@@ -41,19 +44,52 @@ public class JsonTreeModel extends DefaultTreeModel {
 
     public static TreeNode buildJsonTree(MongoCollectionResult mongoCollectionResult) {
         JsonTreeNode rootNode = new JsonTreeNode(new MongoResultDescriptor(mongoCollectionResult.getCollectionName()));
+        addDocuments(rootNode, mongoCollectionResult.getMongoObjects());
+        return rootNode;
+    }
 
-        List<DBObject> mongoObjects = mongoCollectionResult.getMongoObjects();
-        int i = 0;
+    public static TreeNode buildEmptyJsonTree(String collectionName) {
+        return new JsonTreeNode(new MongoResultDescriptor(collectionName));
+    }
+
+    public static int[] addDocuments(JsonTreeNode rootNode, List<DBObject> mongoObjects) {
+        return addDocumentNodes(rootNode, buildDocumentNodes(rootNode.getChildCount(), mongoObjects));
+    }
+
+    /**
+     * Builds the detached nodes of the given documents, numbering them from <code>firstIndex</code>.
+     * The nodes do not belong to any model yet so this can safely run outside of the EDT.
+     */
+    public static List<JsonTreeNode> buildDocumentNodes(int firstIndex, List<DBObject> mongoObjects) {
+        List<JsonTreeNode> documentNodes = new LinkedList<JsonTreeNode>();
+        int i = firstIndex;
         for (DBObject mongoObject : mongoObjects) {
             if (mongoObject instanceof BasicDBList) {
-                processDbObject(rootNode, mongoObject);
-            } else if (mongoObject instanceof BasicDBObject) {//dead code?
-                JsonTreeNode currentNode = new JsonTreeNode(MongoValueDescriptor.createDescriptor(i++, mongoObject));
-                processDbObject(currentNode, mongoObject);
-                rootNode.add(currentNode);
+                JsonTreeNode listNode = new JsonTreeNode(new MongoResultDescriptor());
+                processDbObject(listNode, mongoObject);
+                while (listNode.getChildCount() > 0) {
+                    JsonTreeNode elementNode = (JsonTreeNode) listNode.getFirstChild();
+                    listNode.remove(elementNode);
+                    documentNodes.add(elementNode);
+                }
+            } else {
+                documentNodes.add(new JsonTreeNode(MongoValueDescriptor.createDescriptor(i++, mongoObject)));
             }
         }
-        return rootNode;
+        return documentNodes;
+    }
+
+    public static int[] addDocumentNodes(JsonTreeNode rootNode, List<JsonTreeNode> documentNodes) {
+        int firstAddedIndex = rootNode.getChildCount();
+        for (JsonTreeNode documentNode : documentNodes) {
+            rootNode.add(documentNode);
+        }
+
+        int[] addedIndices = new int[rootNode.getChildCount() - firstAddedIndex];
+        for (int index = 0; index < addedIndices.length; index++) {
+            addedIndices[index] = firstAddedIndex + index;
+        }
+        return addedIndices;
     }
 
     public static TreeNode buildJsonTree(DBObject mongoObject) {
@@ -62,26 +98,27 @@ public class JsonTreeModel extends DefaultTreeModel {
         return rootNode;
     }
 
+    /**
+     * Adds the direct children of the given document or array to <code>parentNode</code>.
+     * Nested sub-documents and arrays get their own children when they are expanded.
+     */
     public static void processDbObject(JsonTreeNode parentNode, DBObject mongoObject) {
-        if (mongoObject instanceof BasicDBList) {
-            BasicDBList mongoObjectList = (BasicDBList) mongoObject;
-            for (int i = 0; i < mongoObjectList.size(); i++) {
-                Object mongoObjectOfList = mongoObjectList.get(i);
-                JsonTreeNode currentNode = new JsonTreeNode(MongoValueDescriptor.createDescriptor(i, mongoObjectOfList));
-                if (mongoObjectOfList instanceof DBObject) {
-                    processDbObject(currentNode, (DBObject) mongoObjectOfList);
-                }
-                parentNode.add(currentNode);
+        if (mongoObject instanceof List) {
+            int i = 0;
+            for (Object mongoObjectOfList : (List) mongoObject) {
+                parentNode.add(new JsonTreeNode(MongoValueDescriptor.createDescriptor(i++, mongoObjectOfList)));
             }
-        } else if (mongoObject instanceof BasicDBObject) {
-            BasicDBObject basicDBObject = (BasicDBObject) mongoObject;
-            for (String key : basicDBObject.keySet()) {
-                Object value = basicDBObject.get(key);
-                JsonTreeNode currentNode = new JsonTreeNode(MongoKeyValueDescriptor.createDescriptor(key, value));
-                if (value instanceof DBObject) {
-                    processDbObject(currentNode, (DBObject) value);
-                }
-                parentNode.add(currentNode);
+        } else if (mongoObject instanceof LazyBSONObject) {
+            // a raw BSON document is decoded in a single pass instead of seeking every key
+            for (Map.Entry<String, Object> field : ((LazyBSONObject) mongoObject).entrySet()) {
+                parentNode.add(new JsonTreeNode(MongoKeyValueDescriptor.createDescriptor(field.getKey(), field.getValue())));
+            }
+        } else {
+            // read all the fields at once: a spilled document is copied back from its file on every read
+            @SuppressWarnings("unchecked")
+            Map<String, Object> fields = mongoObject.toMap();
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                parentNode.add(new JsonTreeNode(MongoKeyValueDescriptor.createDescriptor(field.getKey(), field.getValue())));
             }
         }
     }
@@ -94,7 +131,7 @@ public class JsonTreeModel extends DefaultTreeModel {
             MongoKeyValueDescriptor descriptor = (MongoKeyValueDescriptor) node.getDescriptor();
             Object value = descriptor.getValue();
             if (value instanceof DBObject) {
-                if (value instanceof BasicDBList) {
+                if (value instanceof List) {
                     basicDBObject.put(descriptor.getKey(), buildDBList(node));
                 } else {
                     basicDBObject.put(descriptor.getKey(), buildDBObject(node));
@@ -115,7 +152,7 @@ public class JsonTreeModel extends DefaultTreeModel {
             MongoValueDescriptor descriptor = (MongoValueDescriptor) node.getDescriptor();
             Object value = descriptor.getValue();
             if (value instanceof DBObject) {
-                if (value instanceof BasicDBList) {
+                if (value instanceof List) {
                     basicDBList.add(buildDBList(node));
                 } else {
                     basicDBList.add(buildDBObject(node));
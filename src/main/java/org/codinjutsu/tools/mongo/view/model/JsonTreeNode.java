@@ -16,19 +16,83 @@
 
 package org.codinjutsu.tools.mongo.view.model;
 
+import com.mongodb.DBObject;
 import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoNodeDescriptor;
 
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.util.Enumeration;
 
+/**
+ * Node of a document tree. The children of a sub-document or of an array are only created the first time
+ * they are requested, i.e. when the node is expanded or when the document is rebuilt for edition.
+ */
 public class JsonTreeNode extends DefaultMutableTreeNode {
     private final MongoNodeDescriptor nodeDescriptor;
+    private boolean childrenLoaded;
 
     public JsonTreeNode(MongoNodeDescriptor nodeDescriptor) {
         this.nodeDescriptor = nodeDescriptor;
+        this.childrenLoaded = !(nodeDescriptor.getValue() instanceof DBObject);
         setUserObject(nodeDescriptor);
     }
 
     public MongoNodeDescriptor getDescriptor() {
         return nodeDescriptor;
     }
+
+    boolean isChildrenLoaded() {
+        return childrenLoaded;
+    }
+
+    private void loadChildren() {
+        if (childrenLoaded) {
+            return;
+        }
+        childrenLoaded = true;
+        Object value = nodeDescriptor.getValue();
+        if (value instanceof DBObject) {
+            JsonTreeModel.processDbObject(this, (DBObject) value);
+        }
+    }
+
+    @Override
+    public boolean isLeaf() {
+        if (!childrenLoaded) {
+            Object value = nodeDescriptor.getValue();
+            return !(value instanceof DBObject) || ((DBObject) value).keySet().isEmpty();
+        }
+        return super.isLeaf();
+    }
+
+    @Override
+    public int getChildCount() {
+        loadChildren();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        loadChildren();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public int getIndex(TreeNode aChild) {
+        loadChildren();
+        return super.getIndex(aChild);
+    }
+
+    @Override
+    public Enumeration children() {
+        loadChildren();
+        return super.children();
+    }
+
+    @Override
+    public void insert(MutableTreeNode newChild, int childIndex) {
+        loadChildren();
+        super.insert(newChild, childIndex);
+    }
 }
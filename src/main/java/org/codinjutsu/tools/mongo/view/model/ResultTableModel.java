@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.view.model;
+
+import com.mongodb.DBObject;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flat view of the documents of a result: one row per document and one column per field path found in them.
+ * <p/>
+ * The rows are not copied: the cells are read from the documents when the table asks for them, which it only does
+ * for the visible ones. The columns are inferred incrementally from the documents added since the last
+ * {@link #refresh()}, either from the top-level fields only or down to the leaves of the sub-documents
+ * with dotted paths.
+ * <p/>
+ * New columns are only ever appended and do not fire a structure change, which would make the table recreate its
+ * columns and reset their widths and its sort keys while a result streams in. The table adds them itself, see
+ * {@link #getColumnCount()}.
+ */
+public class ResultTableModel extends AbstractTableModel {
+
+    public static final int MAX_COLUMN_COUNT = 200;
+
+    /**
+     * Value of a cell whose document does not have the field of the column
+     */
+    public static final Object NO_VALUE = new Object() {
+        @Override
+        public String toString() {
+            return "";
+        }
+    };
+
+    public static final Comparator<Object> VALUE_COMPARATOR = new Comparator<Object>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(Object value1, Object value2) {
+            int rank1 = rankOf(value1);
+            int rank2 = rankOf(value2);
+            if (rank1 != rank2) {
+                return rank1 < rank2 ? -1 : 1;
+            }
+            if (isIntegral(value1) && isIntegral(value2)) {
+                return Long.compare(((Number) value1).longValue(), ((Number) value2).longValue());
+            }
+            if (value1 instanceof Number) {
+                return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+            }
+            if (value1 instanceof String || value1 instanceof Date || value1 instanceof Boolean) {
+                return ((Comparable) value1).compareTo(value2);
+            }
+            return rank1 == 0 ? 0 : String.valueOf(value1).compareTo(String.valueOf(value2));
+        }
+
+        private boolean isIntegral(Object value) {
+            return value instanceof Integer || value instanceof Long;
+        }
+
+        private int rankOf(Object value) {
+            if (value == null) {
+                return 0;
+            } else if (value instanceof Number) {
+                return 1;
+            } else if (value instanceof String) {
+                return 2;
+            } else if (value instanceof Date) {
+                return 3;
+            } else if (value instanceof Boolean) {
+                return 4;
+            } else if (value == NO_VALUE) {
+                return 6;
+            }
+            return 5;
+        }
+    };
+
+    private final List<DBObject> documents;
+    private final boolean flattenSubDocuments;
+
+    private final Set<String> columnPathSet = new LinkedHashSet<String>();
+    private final List<String> columnPaths = new ArrayList<String>();
+    private int rowCount = 0;
+
+    /**
+     * @param documents           documents of the result, which may still be growing while they are fetched
+     * @param flattenSubDocuments true to give every field of the sub-documents its own dotted column
+     */
+    public ResultTableModel(List<DBObject> documents, boolean flattenSubDocuments) {
+        this.documents = documents;
+        this.flattenSubDocuments = flattenSubDocuments;
+        refresh();
+    }
+
+    /**
+     * Takes the documents added to the result since the last call into account, adding their new columns
+     */
+    public void refresh() {
+        int newRowCount = documents.size();
+        if (newRowCount == rowCount) {
+            return;
+        }
+
+        for (int row = rowCount; row < newRowCount; row++) {
+            collectColumnPaths(null, documents.get(row));
+        }
+
+        int firstNewRow = rowCount;
+        rowCount = newRowCount;
+        fireTableRowsInserted(firstNewRow, newRowCount - 1);
+    }
+
+    /**
+     * Takes the new version of the document of the given row into account, adding its new columns
+     */
+    public void documentReplaced(int row) {
+        collectColumnPaths(null, documents.get(row));
+        fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Takes the removal of the document of the given row from the result into account. The columns are kept.
+     */
+    public void documentRemoved(int row) {
+        rowCount--;
+        fireTableRowsDeleted(row, row);
+    }
+
+    public DBObject getDocument(int row) {
+        return documents.get(row);
+    }
+
+    public String getColumnPath(int column) {
+        return columnPaths.get(column);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of columns, which grows as documents with new fields are added. Columns are never removed
+     * nor reordered, so a table only has to create the columns after the ones it already has.
+     */
+    @Override
+    public int getColumnCount() {
+        return columnPaths.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnPaths.get(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object value = documents.get(row);
+        for (String key : columnPaths.get(column).split("\\.")) {
+            if (!(value instanceof DBObject) || value instanceof List) {
+                return NO_VALUE;
+            }
+            DBObject document = (DBObject) value;
+            value = document.get(key);
+            if (value == null && !document.containsField(key)) {
+                return NO_VALUE;
+            }
+        }
+        return value;
+    }
+
+    private void collectColumnPaths(String parentPath, DBObject document) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fields = document.toMap();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String path = parentPath == null ? field.getKey() : parentPath + "." + field.getKey();
+            Object value = field.getValue();
+            if (flattenSubDocuments && value instanceof DBObject && !(value instanceof List) && !((DBObject) value).keySet().isEmpty()) {
+                collectColumnPaths(path, (DBObject) value);
+            } else if (columnPaths.size() < MAX_COLUMN_COUNT && columnPathSet.add(path)) {
+                columnPaths.add(path);
+            }
+        }
+    }
+}
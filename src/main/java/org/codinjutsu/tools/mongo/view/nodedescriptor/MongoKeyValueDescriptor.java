@@ -22,12 +22,11 @@ import com.intellij.ui.SimpleTextAttributes;
 import com.mongodb.DBObject;
 import org.bson.types.ObjectId;
 import org.codinjutsu.tools.mongo.utils.DateUtils;
+import org.codinjutsu.tools.mongo.utils.JsonPreview;
 import org.codinjutsu.tools.mongo.utils.StringUtils;
 import org.codinjutsu.tools.mongo.view.style.StyleAttributesProvider;
 
-import java.text.DateFormat;
 import java.util.Date;
-import java.util.Locale;
 
 public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
 
@@ -39,6 +38,9 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
 
     private final SimpleTextAttributes valueTextAttributes;
 
+    private String formattedKey;
+    private String formattedValue;
+
     public static MongoKeyValueDescriptor createDescriptor(String key, Object value) {
         if (value == null) {
             return new MongoKeyNullValueDescriptor(key);
@@ -48,28 +50,28 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
             return new MongoKeyValueDescriptor(key, value, StyleAttributesProvider.getBooleanAttribute()) {
                 @Override
                 public void setValue(Object value) {
-                    this.value = Boolean.valueOf((String) value);
+                    super.setValue(Boolean.valueOf((String) value));
                 }
             };
         } else if (value instanceof Integer) {
             return new MongoKeyValueDescriptor(key, value, StyleAttributesProvider.getNumberAttribute()) {
                 @Override
                 public void setValue(Object value) {
-                    this.value = Integer.valueOf((String) value);
+                    super.setValue(Integer.valueOf((String) value));
                 }
             };
         } else if (value instanceof Double) {
             return new MongoKeyValueDescriptor(key, value, StyleAttributesProvider.getNumberAttribute()) {
                 @Override
                 public void setValue(Object value) {
-                    this.value = Double.valueOf((String) value);
+                    super.setValue(Double.valueOf((String) value));
                 }
             };
         } else if (value instanceof Long) {
             return new MongoKeyValueDescriptor(key, value, StyleAttributesProvider.getNumberAttribute()) {
                 @Override
                 public void setValue(Object value) {
-                    this.value = Long.valueOf((String) value);
+                    super.setValue(Long.valueOf((String) value));
                 }
             };
         } else if (value instanceof String) {
@@ -93,7 +95,7 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
 
     public void renderValue(ColoredTableCellRenderer cellRenderer, boolean isNodeExpanded) {
         if (!isNodeExpanded) {
-            cellRenderer.append(getValueAndAbbreviateIfNecessary(), valueTextAttributes);
+            cellRenderer.append(getFormattedValue(), valueTextAttributes);
         }
     }
 
@@ -102,11 +104,17 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
     }
 
     public String getFormattedKey() {
-        return String.format(STRING_SURROUNDED, key);
+        if (formattedKey == null) {
+            formattedKey = String.format(STRING_SURROUNDED, key);
+        }
+        return formattedKey;
     }
 
     public String getFormattedValue() {
-        return getValueAndAbbreviateIfNecessary();
+        if (formattedValue == null) {
+            formattedValue = getValueAndAbbreviateIfNecessary();
+        }
+        return formattedValue;
     }
 
     public String getKey() {
@@ -119,6 +127,7 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
 
     public void setValue(Object value) {
         this.value = value;
+        this.formattedValue = null;
     }
 
     @Override
@@ -127,6 +136,9 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
     }
 
     protected String getValueAndAbbreviateIfNecessary() {
+        if (value instanceof DBObject) {
+            return JsonPreview.preview((DBObject) value, MAX_LENGTH);
+        }
         String stringifiedValue = value.toString();
         if (stringifiedValue.length() > MAX_LENGTH) {
             return StringUtils.abbreviateInCenter(stringifiedValue, MAX_LENGTH);
@@ -166,8 +178,6 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
 
     private static class MongoKeyDateValueDescriptor extends MongoKeyValueDescriptor {
 
-        private static final DateFormat DATE_FORMAT = DateUtils.utcDateTime(Locale.getDefault());
-
         private static final String TO_STRING_FOR_DATE_VALUE_TEMPLATE = "\"%s\" : \"%s\"";
 
         private MongoKeyDateValueDescriptor(String key, Date value) {
@@ -185,7 +195,7 @@ public class MongoKeyValueDescriptor implements MongoNodeDescriptor {
         }
 
         private String getFormattedDate() {
-            return DATE_FORMAT.format(value);
+            return DateUtils.formatUtcDateTime((Date) value);
         }
     }
 }
@@ -21,19 +21,21 @@ import com.intellij.ui.ColoredTreeCellRenderer;
 import com.intellij.ui.SimpleTextAttributes;
 import com.mongodb.DBObject;
 import org.codinjutsu.tools.mongo.utils.DateUtils;
+import org.codinjutsu.tools.mongo.utils.JsonPreview;
 import org.codinjutsu.tools.mongo.utils.StringUtils;
 import org.codinjutsu.tools.mongo.view.style.StyleAttributesProvider;
 
-import java.text.DateFormat;
 import java.util.Date;
-import java.util.Locale;
 
 public class MongoValueDescriptor implements MongoNodeDescriptor {
 
-    private final int index;
+    private int index;
     protected Object value;
     private final SimpleTextAttributes valueTextAttributes;
 
+    private String formattedKey;
+    private String formattedValue;
+
     public static MongoValueDescriptor createDescriptor(int index, Object value) {
         if (value == null) {
             return new MongoNullValueDescriptor(index);
@@ -45,14 +47,14 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
             return new MongoValueDescriptor(index, value, StyleAttributesProvider.getBooleanAttribute()) {
                 @Override
                 public void setValue(Object value) {
-                    this.value = Boolean.parseBoolean((String) value);
+                    super.setValue(Boolean.parseBoolean((String) value));
                 }
             };
         } else if (value instanceof Number) {
             return new MongoValueDescriptor(index, value, StyleAttributesProvider.getNumberAttribute()) {
                 @Override
                 public void setValue(Object value) {
-                    this.value = Integer.parseInt((String)value);
+                    super.setValue(Integer.parseInt((String)value));
                 }
             };
         } else if (value instanceof Date) {
@@ -81,14 +83,31 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
     }
 
     public String getFormattedKey() {
-        return String.format("[%s]", index);
+        if (formattedKey == null) {
+            formattedKey = String.format("[%s]", index);
+        }
+        return formattedKey;
+    }
+
+    /**
+     * Renumbers the value, e.g. once a document before it has been removed from the result
+     */
+    public void setIndex(int index) {
+        this.index = index;
+        this.formattedKey = null;
     }
 
     public String getFormattedValue() {
-        return String.format("%s", getValueAndAbbreviateIfNecessary());
+        if (formattedValue == null) {
+            formattedValue = getValueAndAbbreviateIfNecessary();
+        }
+        return formattedValue;
     }
 
     protected String getValueAndAbbreviateIfNecessary() {
+        if (value instanceof DBObject) {
+            return JsonPreview.preview((DBObject) value, MAX_LENGTH);
+        }
         String stringifiedValue = value.toString();
         if (stringifiedValue.length() > MAX_LENGTH) {
             return StringUtils.abbreviateInCenter(stringifiedValue, MAX_LENGTH);
@@ -102,6 +121,7 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
 
     public void setValue(Object value) {
         this.value = value;
+        this.formattedValue = null;
     }
 
     @Override
@@ -116,8 +136,8 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
         }
 
         @Override
-        public String getFormattedValue() {
-            return String.format("\"%s\"", getValueAndAbbreviateIfNecessary());
+        protected String getValueAndAbbreviateIfNecessary() {
+            return String.format("\"%s\"", super.getValueAndAbbreviateIfNecessary());
         }
     }
 
@@ -128,7 +148,7 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
         }
 
         @Override
-        public String getFormattedValue() {
+        protected String getValueAndAbbreviateIfNecessary() {
             return "null";
         }
 
@@ -140,8 +160,6 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
 
     private static class MongoDateValueDescriptor extends MongoValueDescriptor {
 
-        private static final DateFormat DATE_FORMAT = DateUtils.utcDateTime(Locale.getDefault());
-
         private static final String TO_STRING_FOR_DATE_VALUE_TEMPLATE = "\"%s\"";
 
         private MongoDateValueDescriptor(int index, Date value) {
@@ -159,7 +177,7 @@ public class MongoValueDescriptor implements MongoNodeDescriptor {
         }
 
         private String getFormattedDate() {
-            return DATE_FORMAT.format(value);
+            return DateUtils.formatUtcDateTime((Date) value);
         }
     }
 }
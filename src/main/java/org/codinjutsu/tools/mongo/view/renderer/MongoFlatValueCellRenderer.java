@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.view.renderer;
+
+import com.intellij.ui.ColoredTableCellRenderer;
+import org.codinjutsu.tools.mongo.view.model.ResultTableModel;
+import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoValueDescriptor;
+
+import javax.swing.*;
+
+/**
+ * Renders a cell of the flat result table the same way as the value column of the result tree.
+ */
+public class MongoFlatValueCellRenderer extends ColoredTableCellRenderer {
+
+    @Override
+    protected void customizeCellRenderer(JTable table, Object value, boolean selected, boolean hasFocus, int row, int column) {
+        if (value == ResultTableModel.NO_VALUE) {
+            return;
+        }
+        MongoValueDescriptor.createDescriptor(row, value).renderValue(this, false);
+    }
+}
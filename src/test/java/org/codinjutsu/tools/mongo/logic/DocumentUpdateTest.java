@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentUpdateTest {
+
+    @Test
+    public void unchangedDocumentNeedsNoUpdate() throws Exception {
+        DBObject document = parse("{'_id': 1, 'label': 'toto', 'author': {'name': 'David'}, 'tags': ['tdd', 'agile']}");
+
+        assertTrue(DocumentUpdate.diff(document, parse(document.toString())).isEmpty());
+    }
+
+    @Test
+    public void onlyModifiedFieldsAreSetOrUnset() throws Exception {
+        DBObject originalDocument = parse("{'_id': 1, 'label': 'toto', 'price': 10, 'image': null, 'visible': false}");
+        DBObject editedDocument = parse("{'_id': 1, 'label': 'tata', 'price': 10, 'image': null, 'rating': 5}");
+
+        DocumentUpdate documentUpdate = DocumentUpdate.diff(originalDocument, editedDocument);
+
+        assertEquals(parse("{'$set': {'label': 'tata', 'rating': 5}, '$unset': {'visible': ''}}"), documentUpdate.getUpdate());
+        assertEquals(parse("{'_id': 1, 'visible': false, 'label': 'toto', 'rating': {'$exists': false}}"), documentUpdate.getFilter(1));
+    }
+
+    @Test
+    public void subDocumentsAndArrayElementsAreUpdatedByPath() throws Exception {
+        DBObject originalDocument = parse("{'_id': 1, 'author': {'name': 'David', 'email': 'david@example.org'}, 'tags': ['tdd', 'agile'], 'comments': [{'text': 'ok'}]}");
+        DBObject editedDocument = parse("{'_id': 1, 'author': {'name': 'Guy'}, 'tags': ['tdd', 'lean', 'kanban'], 'comments': [{'text': 'ok', 'likes': 2}]}");
+
+        DocumentUpdate documentUpdate = DocumentUpdate.diff(originalDocument, editedDocument);
+
+        assertEquals(parse("{'$set': {'author.name': 'Guy', 'tags.1': 'lean', 'tags.2': 'kanban', 'comments.0.likes': 2}, '$unset': {'author.email': ''}}"),
+                documentUpdate.getUpdate());
+        assertEquals(parse("{'_id': 1, 'author.email': 'david@example.org', 'author.name': 'David', 'tags.1': 'agile', 'tags.2': {'$exists': false}, 'comments.0.likes': {'$exists': false}}"),
+                documentUpdate.getFilter(1));
+    }
+
+    @Test
+    public void shortenedArrayIsSetAsAWhole() throws Exception {
+        BasicDBList tags = new BasicDBList();
+        tags.add("tdd");
+        DBObject originalDocument = parse("{'_id': 1, 'tags': ['tdd', 'agile']}");
+        DBObject editedDocument = new BasicDBObject("_id", 1).append("tags", tags);
+
+        DocumentUpdate documentUpdate = DocumentUpdate.diff(originalDocument, editedDocument);
+
+        assertEquals(parse("{'$set': {'tags': ['tdd']}}"), documentUpdate.getUpdate());
+    }
+
+    private static DBObject parse(String json) {
+        return (DBObject) JSON.parse(json);
+    }
+}
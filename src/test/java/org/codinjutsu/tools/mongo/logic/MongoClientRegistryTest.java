@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.MongoClient;
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+import java.util.Collections;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class MongoClientRegistryTest {
+
+    private MongoClientRegistry clientRegistry;
+    private ServerConfiguration configuration;
+
+    @Test
+    public void reuseClientForSameConfiguration() throws Exception {
+        MongoClient first = clientRegistry.acquire(configuration);
+        clientRegistry.release(first);
+
+        MongoClient second = clientRegistry.acquire(configuration);
+        clientRegistry.release(second);
+
+        assertSame(first, second);
+        verify(first, never()).close();
+    }
+
+    @Test
+    public void invalidatedClientIsClosedOnceReleased() throws Exception {
+        MongoClient client = clientRegistry.acquire(configuration);
+
+        clientRegistry.retainOnly(Collections.<ServerConfiguration>emptyList());
+        verify(client, never()).close();
+
+        clientRegistry.release(client);
+        verify(client).close();
+
+        assertNotSame(client, clientRegistry.acquire(configuration));
+    }
+
+    @Test
+    public void changedConfigurationGetsAnotherClient() throws Exception {
+        MongoClient client = clientRegistry.acquire(configuration);
+        clientRegistry.release(client);
+
+        ServerConfiguration editedConfiguration = configuration.clone();
+        editedConfiguration.setSslConnection(true);
+
+        assertNotSame(client, clientRegistry.acquire(editedConfiguration));
+    }
+
+    @Test
+    public void closeAllClosesIdleClients() throws Exception {
+        MongoClient client = clientRegistry.acquire(configuration);
+        clientRegistry.release(client);
+
+        clientRegistry.closeAll();
+
+        verify(client).close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        configuration = ServerConfiguration.byDefault();
+        configuration.setLabel("localhost");
+        configuration.setServerUrls(singletonList("localhost:27017"));
+
+        clientRegistry = new MongoClientRegistry(new MongoClientRegistry.MongoClientFactory() {
+            @Override
+            public MongoClient create(ServerConfiguration configuration) throws UnknownHostException {
+                return mock(MongoClient.class);
+            }
+        });
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoDatabase;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MongoExplorerCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheFile;
+    private ServerConfiguration localConfiguration;
+    private ServerConfiguration remoteConfiguration;
+
+    @Test
+    public void databasesAndCollectionsAreCachedPerServer() throws Exception {
+        MongoDatabase testDatabase = new MongoDatabase("test");
+        testDatabase.setCollections(Arrays.asList(new MongoCollection("users", "test"), new MongoCollection("orders", "test")));
+        MongoDatabase emptyDatabase = new MongoDatabase("empty");
+        emptyDatabase.setCollections(Collections.<MongoCollection>emptyList());
+
+        new MongoExplorerCache(cacheFile).save(localConfiguration, Arrays.asList(emptyDatabase, testDatabase));
+
+        MongoExplorerCache explorerCache = new MongoExplorerCache(cacheFile);
+        assertNull(explorerCache.load(remoteConfiguration));
+
+        List<MongoDatabase> cachedDatabases = explorerCache.load(localConfiguration);
+        assertEquals(2, cachedDatabases.size());
+        assertEquals("empty", cachedDatabases.get(0).getName());
+        assertTrue(cachedDatabases.get(0).isCollectionsLoaded());
+        assertTrue(cachedDatabases.get(0).getCollections().isEmpty());
+
+        MongoDatabase cachedTestDatabase = cachedDatabases.get(1);
+        assertEquals("test", cachedTestDatabase.getName());
+        assertEquals(2, cachedTestDatabase.getCollections().size());
+        MongoCollection firstCollection = cachedTestDatabase.getCollections().iterator().next();
+        assertEquals("orders", firstCollection.getName());
+        assertEquals("test", firstCollection.getDatabaseName());
+    }
+
+    @Test
+    public void serversNoLongerConfiguredAreForgotten() throws Exception {
+        MongoExplorerCache explorerCache = new MongoExplorerCache(cacheFile);
+        explorerCache.save(localConfiguration, Collections.singletonList(new MongoDatabase("test")));
+        explorerCache.save(remoteConfiguration, Collections.singletonList(new MongoDatabase("prod")));
+
+        explorerCache.retainOnly(Collections.singletonList(remoteConfiguration));
+
+        assertNull(explorerCache.load(localConfiguration));
+        assertEquals("prod", explorerCache.load(remoteConfiguration).get(0).getName());
+    }
+
+    @Test
+    public void unreadableCacheIsIgnored() throws Exception {
+        FileOutputStream outputStream = new FileOutputStream(cacheFile);
+        outputStream.write(new byte[]{1, 2, 3});
+        outputStream.close();
+
+        MongoExplorerCache explorerCache = new MongoExplorerCache(cacheFile);
+        assertNull(explorerCache.load(localConfiguration));
+
+        explorerCache.save(localConfiguration, Collections.singletonList(new MongoDatabase("test")));
+        assertEquals(1, explorerCache.load(localConfiguration).size());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFile = new File(temporaryFolder.getRoot(), MongoExplorerCache.CACHE_FILE_NAME);
+
+        localConfiguration = new ServerConfiguration();
+        localConfiguration.setLabel("local");
+        localConfiguration.setServerUrls(Collections.singletonList("localhost:27017"));
+
+        remoteConfiguration = new ServerConfiguration();
+        remoteConfiguration.setLabel("remote");
+        remoteConfiguration.setServerUrls(Collections.singletonList("mongo.example.org:27017"));
+    }
+}
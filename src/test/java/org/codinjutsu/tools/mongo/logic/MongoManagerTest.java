@@ -27,16 +27,27 @@ import org.bson.Document;
 import org.codinjutsu.tools.mongo.ServerConfiguration;
 import org.codinjutsu.tools.mongo.model.MongoCollection;
 import org.codinjutsu.tools.mongo.model.MongoCollectionResult;
+import org.codinjutsu.tools.mongo.model.MongoIndex;
 import org.codinjutsu.tools.mongo.model.MongoQueryOptions;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 
 public class MongoManagerTest {
@@ -79,6 +90,51 @@ public class MongoManagerTest {
         assertEquals("[{ \"label\" : \"tata\" , \"price\" : 10}, { \"label\" : \"tata\" , \"price\" : 15}]", mongoCollectionResult.getMongoObjects().toString());
     }
 
+    @Test
+    public void loadCollectionsSecondPage() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setProjection("{\"label\": 1, \"_id\": 0, \"price\": 1}");
+        mongoQueryOptions.setSort("{\"price\": 1, \"label\": 1}");
+        mongoQueryOptions.setResultLimit(2);
+        mongoQueryOptions.setPage(1);
+        MongoCollectionResult mongoCollectionResult = mongoManager.loadCollectionValues(serverConfiguration, new MongoCollection("dummyCollection", "test"), mongoQueryOptions);
+        assertEquals("[{ \"label\" : \"tutu\" , \"price\" : 15}, { \"label\" : \"tete\" , \"price\" : 20}]", mongoCollectionResult.getMongoObjects().toString());
+    }
+
+    @Test
+    public void loadAllPagesOfASortOnAFieldOfMixedTypes() throws Exception {
+        MongoCollection mongoCollection = new MongoCollection("dummyCollection", "test");
+        mongoManager.update(serverConfiguration, mongoCollection, new BasicDBObject("label", "tyty").append("price", "cheap"));
+        mongoManager.createIndex(serverConfiguration, mongoCollection, new BasicDBObject("price", 1).append("_id", 1), null, false, false);
+
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setProjection("{\"label\": 1, \"_id\": 1, \"price\": 1}");
+        mongoQueryOptions.setSort("{\"price\": 1}");
+        mongoQueryOptions.setResultLimit(2);
+
+        List<Object> prices = new LinkedList<Object>();
+        List<DBObject> pageDocuments;
+        do {
+            pageDocuments = mongoManager.loadCollectionValues(serverConfiguration, mongoCollection, mongoQueryOptions).getMongoObjects();
+            for (DBObject document : pageDocuments) {
+                prices.add(document.get("price"));
+            }
+            mongoQueryOptions = mongoQueryOptions.nextPage(pageDocuments.isEmpty() ? null : pageDocuments.get(pageDocuments.size() - 1));
+        } while (pageDocuments.size() == 2);
+
+        assertEquals(Arrays.<Object>asList(10, 15, 15, 20, 20, "cheap"), prices);
+    }
+
+    @Test
+    public void loadAggregationSecondPage() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setOperations("[{'$sort': {'price': 1, 'label': 1}}, {'$project': {'_id': 0, 'label': 1}}]");
+        mongoQueryOptions.setResultLimit(2);
+        mongoQueryOptions.setPage(2);
+        MongoCollectionResult mongoCollectionResult = mongoManager.loadCollectionValues(serverConfiguration, new MongoCollection("dummyCollection", "test"), mongoQueryOptions);
+        assertEquals("[{ \"label\" : \"titi\"}]", mongoCollectionResult.getMongoObjects().toString());
+    }
+
     @Test
     public void updateMongoDocument() throws Exception {
         MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
@@ -100,6 +156,44 @@ public class MongoManagerTest {
     }
 
 
+    @Test
+    public void updateOnlyTheModifiedFieldsOfAMongoDocument() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setFilter("{'label': 'tete'}");
+        MongoCollection mongoCollection = new MongoCollection("dummyCollection", "test");
+        DBObject originalMongoDocument = mongoManager.findMongoDocument(serverConfiguration, mongoCollection,
+                mongoManager.loadCollectionValues(serverConfiguration, mongoCollection, mongoQueryOptions).getMongoObjects().get(0).get("_id"));
+
+        DBObject concurrentMongoDocument = (DBObject) ((BasicDBObject) originalMongoDocument).copy();
+        concurrentMongoDocument.put("reviewed", true);
+        mongoManager.update(serverConfiguration, mongoCollection, originalMongoDocument, concurrentMongoDocument);
+
+        DBObject editedMongoDocument = (DBObject) ((BasicDBObject) originalMongoDocument).copy();
+        editedMongoDocument.put("price", 25);
+        mongoManager.update(serverConfiguration, mongoCollection, originalMongoDocument, editedMongoDocument);
+
+        DBObject updatedMongoDocument = mongoManager.findMongoDocument(serverConfiguration, mongoCollection, originalMongoDocument.get("_id"));
+        assertEquals(25, updatedMongoDocument.get("price"));
+        assertEquals(true, updatedMongoDocument.get("reviewed"));
+    }
+
+    @Test(expected = DocumentModifiedException.class)
+    public void updateAMongoDocumentModifiedSinceItWasRead() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setFilter("{'label': 'tete'}");
+        MongoCollection mongoCollection = new MongoCollection("dummyCollection", "test");
+        DBObject originalMongoDocument = mongoManager.findMongoDocument(serverConfiguration, mongoCollection,
+                mongoManager.loadCollectionValues(serverConfiguration, mongoCollection, mongoQueryOptions).getMongoObjects().get(0).get("_id"));
+
+        DBObject concurrentMongoDocument = (DBObject) ((BasicDBObject) originalMongoDocument).copy();
+        concurrentMongoDocument.put("price", 30);
+        mongoManager.update(serverConfiguration, mongoCollection, originalMongoDocument, concurrentMongoDocument);
+
+        DBObject editedMongoDocument = (DBObject) ((BasicDBObject) originalMongoDocument).copy();
+        editedMongoDocument.put("price", 25);
+        mongoManager.update(serverConfiguration, mongoCollection, originalMongoDocument, editedMongoDocument);
+    }
+
     @Test
     public void deleteMongoDocument() throws Exception {
         MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
@@ -131,6 +225,111 @@ public class MongoManagerTest {
         assertEquals("{ \"_id\" : \"tata\" , \"total\" : 15}", mongoObjects.get(1).toString());
     }
 
+    @Test
+    public void loadCollectionsWithAggregateOperatorsAndRowLimit() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setOperations("[{'$group': {'_id': '$label', 'total': {'$sum': '$price'}}}, {'$sort': {'_id': 1}}]");
+        mongoQueryOptions.setAllowDiskUse(true);
+        mongoQueryOptions.setResultLimit(2);
+        MongoCollectionResult mongoCollectionResult = mongoManager.loadCollectionValues(serverConfiguration, new MongoCollection("dummyCollection", "test"), mongoQueryOptions);
+
+        List<DBObject> mongoObjects = mongoCollectionResult.getMongoObjects();
+
+        assertEquals(2, mongoObjects.size());
+        assertEquals("{ \"_id\" : \"tata\" , \"total\" : 25}", mongoObjects.get(0).toString());
+        assertEquals("{ \"_id\" : \"tete\" , \"total\" : 20}", mongoObjects.get(1).toString());
+    }
+
+    @Test
+    public void createLoadAndDropIndexes() throws Exception {
+        MongoCollection mongoCollection = new MongoCollection("dummyCollection", "test");
+        mongoManager.createIndex(serverConfiguration, mongoCollection, new BasicDBObject("price", 1), "priceIndex", false, true);
+        mongoManager.createIndex(serverConfiguration, mongoCollection, new BasicDBObject("label", 1).append("price", -1), null, true, false);
+
+        Map<String, MongoIndex> indexesByName = indexesByName(mongoManager.loadIndexes(serverConfiguration, mongoCollection));
+
+        assertEquals(Arrays.asList("_id_", "priceIndex", "label_1_price_-1"), new LinkedList<String>(indexesByName.keySet()));
+        MongoIndex priceIndex = indexesByName.get("priceIndex");
+        assertEquals(new BasicDBObject("price", 1), priceIndex.getKey());
+        assertFalse(priceIndex.isUnique());
+        assertTrue(priceIndex.getSize() > 0);
+        assertTrue(indexesByName.get("label_1_price_-1").isUnique());
+
+        mongoManager.dropIndex(serverConfiguration, mongoCollection, "priceIndex");
+
+        assertEquals(Arrays.asList("_id_", "label_1_price_-1"), new LinkedList<String>(indexesByName(mongoManager.loadIndexes(serverConfiguration, mongoCollection)).keySet()));
+    }
+
+    @Test
+    public void loadIndexAccessesWhenTheServerReportsThem() throws Exception {
+        MongoCollection mongoCollection = new MongoCollection("dummyCollection", "test");
+        mongoManager.createIndex(serverConfiguration, mongoCollection, new BasicDBObject("price", 1), null, false, false);
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setFilter("{'price': 15}");
+        mongoManager.loadCollectionValues(serverConfiguration, mongoCollection, mongoQueryOptions);
+
+        MongoIndex priceIndex = indexesByName(mongoManager.loadIndexes(serverConfiguration, mongoCollection)).get("price_1");
+
+        // $indexStats needs MongoDB 3.2
+        if (priceIndex.getAccesses() != MongoIndex.UNKNOWN) {
+            assertTrue(priceIndex.getAccesses() >= 1);
+            assertNotNull(priceIndex.getAccessesSince());
+        }
+    }
+
+    @Test
+    public void mergeIndexSizesAndAccessesOfSeveralHosts() throws Exception {
+        Map<String, MongoIndex> indexesByName = new LinkedHashMap<String, MongoIndex>();
+        indexesByName.put("_id_", new MongoIndex("_id_", new BasicDBObject("_id", 1), false));
+        indexesByName.put("price_1", new MongoIndex("price_1", new BasicDBObject("price", 1), false));
+
+        MongoManager.mergeIndexSizes(indexesByName, (DBObject) JSON.parse("{'ok': 1, 'indexSizes': {'_id_': 8192, 'price_1': 4096}}"));
+        MongoManager.mergeIndexAccesses(indexesByName, (DBObject) JSON.parse("{'name': 'price_1', 'host': 'host1:27017', 'accesses': {'ops': 3, 'since': {'$date': 2000}}}"));
+        MongoManager.mergeIndexAccesses(indexesByName, (DBObject) JSON.parse("{'name': 'price_1', 'host': 'host2:27017', 'accesses': {'ops': 4, 'since': {'$date': 1000}}}"));
+        MongoManager.mergeIndexAccesses(indexesByName, (DBObject) JSON.parse("{'name': 'unknown_1', 'host': 'host1:27017', 'accesses': {'ops': 9, 'since': {'$date': 1000}}}"));
+
+        assertEquals(8192, indexesByName.get("_id_").getSize());
+        assertEquals(MongoIndex.UNKNOWN, indexesByName.get("_id_").getAccesses());
+        MongoIndex priceIndex = indexesByName.get("price_1");
+        assertEquals(4096, priceIndex.getSize());
+        assertEquals(7, priceIndex.getAccesses());
+        assertEquals(new Date(1000), priceIndex.getAccessesSince());
+    }
+
+    @Test
+    public void notifyTheCollectionsListenerOncePerDatabase() throws Exception {
+        org.codinjutsu.tools.mongo.model.MongoDatabase testDatabase = new org.codinjutsu.tools.mongo.model.MongoDatabase("test");
+        org.codinjutsu.tools.mongo.model.MongoDatabase invalidDatabase = new org.codinjutsu.tools.mongo.model.MongoDatabase("in$valid");
+        final List<String> loadedDatabaseNames = Collections.synchronizedList(new LinkedList<String>());
+        final List<String> failedDatabaseNames = Collections.synchronizedList(new LinkedList<String>());
+        final CountDownLatch notifications = new CountDownLatch(2);
+
+        mongoManager.loadCollections(serverConfiguration, Arrays.asList(testDatabase, invalidDatabase), new MongoManager.CollectionsListener() {
+            @Override
+            public void collectionsLoaded(org.codinjutsu.tools.mongo.model.MongoDatabase mongoDatabase) {
+                loadedDatabaseNames.add(mongoDatabase.getName());
+                notifications.countDown();
+            }
+
+            @Override
+            public void collectionsLoadingFailed(org.codinjutsu.tools.mongo.model.MongoDatabase mongoDatabase, Exception ex) {
+                failedDatabaseNames.add(mongoDatabase.getName());
+                notifications.countDown();
+            }
+        });
+
+        assertTrue(notifications.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100); // leaves time for an unexpected second notification of a database
+        assertEquals(Arrays.asList("test"), loadedDatabaseNames);
+        assertEquals(Arrays.asList("in$valid"), failedDatabaseNames);
+        assertTrue(testDatabase.isCollectionsLoaded());
+        List<String> collectionNames = new LinkedList<String>();
+        for (MongoCollection mongoCollection : testDatabase.getCollections()) {
+            collectionNames.add(mongoCollection.getName());
+        }
+        assertTrue(collectionNames.contains("dummyCollection"));
+    }
+
     @Before
     public void setUp() throws Exception {
         MongoClient mongo = new MongoClient("localhost:27017");
@@ -138,6 +337,7 @@ public class MongoManagerTest {
 
         com.mongodb.client.MongoCollection<Document> dummyCollection = db.getCollection("dummyCollection");
         dummyCollection.deleteMany(new BasicDBObject());
+        dummyCollection.dropIndexes();
         fillCollectionWithJsonData(dummyCollection, IOUtils.toString(getClass().getResourceAsStream("dummyCollection.json")));
 
         mongoManager = new MongoManager();
@@ -145,6 +345,19 @@ public class MongoManagerTest {
         serverConfiguration.setServerUrls(Arrays.asList("localhost:27017"));
     }
 
+    @After
+    public void tearDown() throws Exception {
+        mongoManager.dispose();
+    }
+
+    private static Map<String, MongoIndex> indexesByName(List<MongoIndex> mongoIndexes) {
+        Map<String, MongoIndex> indexesByName = new LinkedHashMap<String, MongoIndex>();
+        for (MongoIndex mongoIndex : mongoIndexes) {
+            indexesByName.put(mongoIndex.getName(), mongoIndex);
+        }
+        return indexesByName;
+    }
+
     private static void fillCollectionWithJsonData(com.mongodb.client.MongoCollection<Document> collection, String jsonResource) throws IOException {
         Object jsonParsed = JSON.parse(jsonResource);
         if (jsonParsed instanceof BasicDBList) {
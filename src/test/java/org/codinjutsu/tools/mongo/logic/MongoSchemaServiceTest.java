@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoSchema;
+import org.codinjutsu.tools.mongo.model.MongoSchemaField;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MongoSchemaServiceTest {
+
+    private MongoManager mongoManager;
+    private MongoSchemaService schemaService;
+    private long now;
+    private final List<Runnable> backgroundTasks = new LinkedList<Runnable>();
+
+    private ServerConfiguration configuration;
+    private MongoCollection collection;
+
+    @Test
+    public void sampledSchemaIsCachedUntilItGetsStale() throws Exception {
+        assertNull(schemaService.getCachedSchema(configuration, collection));
+        assertTrue(schemaService.isStale(null));
+
+        MongoSchema schema = new MongoSchema(collection, 10, true, 1000L, Collections.<MongoSchemaField>emptyList());
+        when(mongoManager.sampleSchema(configuration, collection, 10)).thenReturn(schema);
+
+        assertSame(schema, schemaService.sample(configuration, collection));
+        assertSame(schema, schemaService.getCachedSchema(configuration, collection));
+        assertSame(schema, schemaService.getCachedSchema(configuration, new MongoCollection("dummyCollection", "test")));
+        assertNull(schemaService.getCachedSchema(configuration, new MongoCollection("dummyCollection", "other")));
+
+        now = 1000L + 59999L;
+        assertFalse(schemaService.isStale(schema));
+
+        now = 1000L + 60000L;
+        assertTrue(schemaService.isStale(schema));
+        assertSame(schema, schemaService.getCachedSchema(configuration, collection));
+
+        schemaService.invalidate(configuration, collection);
+        assertNull(schemaService.getCachedSchema(configuration, collection));
+    }
+
+    @Test
+    public void listenersOfARunningRefreshAreAllNotified() throws Exception {
+        MongoSchema schema = new MongoSchema(collection, 10, true, 1000L, Collections.<MongoSchemaField>emptyList());
+        when(mongoManager.sampleSchema(configuration, collection, 10)).thenReturn(schema);
+        MongoSchemaService.SchemaListener firstListener = mock(MongoSchemaService.SchemaListener.class);
+        MongoSchemaService.SchemaListener secondListener = mock(MongoSchemaService.SchemaListener.class);
+
+        schemaService.refreshInBackground(configuration, collection, firstListener);
+        schemaService.refreshInBackground(configuration, collection, secondListener);
+        assertEquals(1, backgroundTasks.size());
+        backgroundTasks.remove(0).run();
+
+        verify(firstListener).schemaSampled(schema);
+        verify(secondListener).schemaSampled(schema);
+        verify(mongoManager, times(1)).sampleSchema(configuration, collection, 10);
+
+        schemaService.refreshInBackground(configuration, collection, firstListener);
+        assertEquals(1, backgroundTasks.size());
+    }
+
+    @Test
+    public void listenersOfAFailedRefreshAreAllNotified() throws Exception {
+        RuntimeException samplingException = new RuntimeException("not authorized");
+        when(mongoManager.sampleSchema(configuration, collection, 10)).thenThrow(samplingException);
+        MongoSchemaService.SchemaListener firstListener = mock(MongoSchemaService.SchemaListener.class);
+        MongoSchemaService.SchemaListener secondListener = mock(MongoSchemaService.SchemaListener.class);
+
+        schemaService.refreshInBackground(configuration, collection, firstListener);
+        schemaService.refreshInBackground(configuration, collection, secondListener);
+        backgroundTasks.remove(0).run();
+
+        verify(firstListener).samplingFailed(samplingException);
+        verify(secondListener).samplingFailed(samplingException);
+    }
+
+    @Test
+    public void schemasAreNotSharedByConfigurationsOfTheSameHosts() throws Exception {
+        MongoSchema schema = new MongoSchema(collection, 10, true, 1000L, Collections.<MongoSchemaField>emptyList());
+        when(mongoManager.sampleSchema(configuration, collection, 10)).thenReturn(schema);
+        schemaService.sample(configuration, collection);
+
+        ServerConfiguration otherConfiguration = new ServerConfiguration();
+        otherConfiguration.setServerUrls(Collections.singletonList("localhost:27017"));
+        otherConfiguration.setUserDatabase("test");
+
+        assertSame(schema, schemaService.getCachedSchema(configuration, collection));
+        assertNull(schemaService.getCachedSchema(otherConfiguration, collection));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mongoManager = mock(MongoManager.class);
+        schemaService = new MongoSchemaService(mongoManager, 10, 60000L) {
+            @Override
+            long currentTimeMillis() {
+                return now;
+            }
+
+            @Override
+            void executeInBackground(Runnable runnable) {
+                backgroundTasks.add(runnable);
+            }
+        };
+
+        configuration = new ServerConfiguration();
+        configuration.setServerUrls(Collections.singletonList("localhost:27017"));
+        collection = new MongoCollection("dummyCollection", "test");
+    }
+}
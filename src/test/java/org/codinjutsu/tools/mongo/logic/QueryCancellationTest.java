@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.Cursor;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class QueryCancellationTest {
+
+    @Test
+    public void cancelClosesAttachedCursor() throws Exception {
+        QueryCancellation queryCancellation = new QueryCancellation();
+        Cursor cursor = mock(Cursor.class);
+        queryCancellation.attach(cursor);
+
+        queryCancellation.cancel();
+
+        assertTrue(queryCancellation.isCancelled());
+        verify(cursor).close();
+    }
+
+    @Test
+    public void cursorAttachedAfterCancelIsClosed() throws Exception {
+        QueryCancellation queryCancellation = new QueryCancellation();
+        queryCancellation.cancel();
+
+        Cursor cursor = mock(Cursor.class);
+        queryCancellation.attach(cursor);
+
+        verify(cursor).close();
+    }
+
+    @Test
+    public void detachedCursorIsNotClosedOnCancel() throws Exception {
+        QueryCancellation queryCancellation = new QueryCancellation();
+        Cursor cursor = mock(Cursor.class);
+        queryCancellation.attach(cursor);
+        queryCancellation.detach();
+
+        queryCancellation.cancel();
+
+        verify(cursor, never()).close();
+    }
+
+    @Test
+    public void findOperationIsMatchedByItsComment() throws Exception {
+        QueryCancellation queryCancellation = new QueryCancellation();
+
+        assertTrue(queryCancellation.isQueryOperation(document("{'opid': 12, 'ns': 'test.dummyCollection', " +
+                "'query': {'find': 'dummyCollection', 'comment': '" + queryCancellation.getComment() + "'}}"), 0));
+        assertFalse(queryCancellation.isQueryOperation(document("{'opid': 13, 'ns': 'test.dummyCollection', " +
+                "'query': {'find': 'dummyCollection', 'comment': 'mongo-plugin-other'}}"), 0));
+    }
+
+    @Test
+    public void aggregateOperationIsMatchedByItsNamespaceAndPipeline() throws Exception {
+        QueryCancellation queryCancellation = new QueryCancellation();
+        List<DBObject> pipeline = Arrays.asList(document("{'$match': {'price': 15}}"), document("{'$limit': 2}"));
+        long startTime = System.currentTimeMillis();
+        queryCancellation.startAggregate("test.dummyCollection", pipeline);
+        long currentTime = System.currentTimeMillis() + 3000;
+
+        assertTrue(queryCancellation.isQueryOperation(document("{'opid': 12, 'ns': 'test.dummyCollection', 'secs_running': 2, " +
+                "'command': {'aggregate': 'dummyCollection', 'pipeline': [{'$match': {'price': 15}}, {'$limit': 2}], 'cursor': {}}}"), currentTime));
+        assertTrue(queryCancellation.isQueryOperation(document("{'opid': 13, 'ns': 'test.$cmd', 'microsecs_running': 2500000, " +
+                "'command': {'aggregate': 'dummyCollection', 'pipeline': [{'$match': {'price': 15}}, {'$limit': 2}]}}"), currentTime));
+
+        assertFalse("started before the query", queryCancellation.isQueryOperation(document("{'opid': 14, 'ns': 'test.dummyCollection', " +
+                "'secs_running': 4, 'command': {'aggregate': 'dummyCollection', 'pipeline': [{'$match': {'price': 15}}, {'$limit': 2}]}}"), currentTime));
+        assertFalse("other collection", queryCancellation.isQueryOperation(document("{'opid': 15, 'ns': 'test.otherCollection', 'secs_running': 0, " +
+                "'command': {'aggregate': 'otherCollection', 'pipeline': [{'$match': {'price': 15}}, {'$limit': 2}]}}"), currentTime));
+        assertFalse("other database", queryCancellation.isQueryOperation(document("{'opid': 16, 'ns': 'other.dummyCollection', 'secs_running': 0, " +
+                "'command': {'aggregate': 'dummyCollection', 'pipeline': [{'$match': {'price': 15}}, {'$limit': 2}]}}"), currentTime));
+        assertFalse("other pipeline", queryCancellation.isQueryOperation(document("{'opid': 17, 'ns': 'test.dummyCollection', 'secs_running': 0, " +
+                "'command': {'aggregate': 'dummyCollection', 'pipeline': [{'$match': {'price': 20}}, {'$limit': 2}]}}"), currentTime));
+        assertFalse("getmore of the cursor", queryCancellation.isQueryOperation(document("{'opid': 18, 'ns': 'test.dummyCollection', " +
+                "'op': 'getmore', 'secs_running': 0, 'query': {}}"), startTime));
+    }
+
+    @Test
+    public void aggregateOperationIsNotMatchedBeforeItIsSent() throws Exception {
+        QueryCancellation queryCancellation = new QueryCancellation();
+
+        assertFalse(queryCancellation.isQueryOperation(document("{'opid': 12, 'ns': 'test.dummyCollection', 'secs_running': 0, " +
+                "'command': {'aggregate': 'dummyCollection', 'pipeline': []}}"), System.currentTimeMillis()));
+    }
+
+    private static DBObject document(String json) {
+        return (DBObject) JSON.parse(json);
+    }
+}
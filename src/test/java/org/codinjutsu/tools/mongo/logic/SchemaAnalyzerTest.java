@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.logic;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoSchema;
+import org.codinjutsu.tools.mongo.model.MongoSchemaField;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaAnalyzerTest {
+
+    @Test
+    public void fieldsAreDescribedWithTheirTypesAndPresence() throws Exception {
+        SchemaAnalyzer schemaAnalyzer = new SchemaAnalyzer();
+        schemaAnalyzer.add(new BasicDBObject("label", "toto").append("count", 1).append("createdAt", new Date(0)));
+        schemaAnalyzer.add(new BasicDBObject("label", "tata").append("count", 2L));
+        schemaAnalyzer.add(new BasicDBObject("label", "toto").append("count", null));
+        schemaAnalyzer.add(new BasicDBObject("label", 42));
+
+        MongoSchema schema = schemaAnalyzer.toSchema(new MongoCollection("dummyCollection", "test"), true, 1000L);
+
+        assertEquals(4, schema.getSampleSize());
+        assertEquals(1000L, schema.getSamplingTime());
+        Map<String, MongoSchemaField> fields = fieldsByPath(schema);
+        assertEquals("[label, count, createdAt]", fields.keySet().toString());
+
+        MongoSchemaField label = fields.get("label");
+        assertEquals(1.0, label.getPresence(), 0);
+        assertEquals("{string=3, int=1}", label.getTypeCounts().toString());
+        assertEquals(3, label.getDistinctValueCount());
+        assertFalse(label.isArray());
+
+        MongoSchemaField count = fields.get("count");
+        assertEquals(0.75, count.getPresence(), 0);
+        assertEquals(3, count.getTypeCounts().size());
+
+        assertEquals(0.25, fields.get("createdAt").getPresence(), 0);
+        assertEquals("{date=1}", fields.get("createdAt").getTypeCounts().toString());
+    }
+
+    @Test
+    public void subDocumentsAndArraysAreDescribedWithDottedPaths() throws Exception {
+        BasicDBList tags = new BasicDBList();
+        tags.add(new BasicDBObject("name", "tdd"));
+        tags.add(new BasicDBObject("name", "java"));
+
+        SchemaAnalyzer schemaAnalyzer = new SchemaAnalyzer();
+        schemaAnalyzer.add(new BasicDBObject("author", new BasicDBObject("name", "David")).append("tags", tags));
+        schemaAnalyzer.add(new BasicDBObject("author", new BasicDBObject("name", "Guy")).append("tags", new BasicDBList()));
+
+        Map<String, MongoSchemaField> fields = fieldsByPath(schemaAnalyzer.toSchema(new MongoCollection("dummyCollection", "test"), false, 0L));
+
+        assertEquals("[author, author.name, tags, tags.name]", fields.keySet().toString());
+        assertEquals("{object=2}", fields.get("author").getTypeCounts().toString());
+        assertEquals(2, fields.get("author.name").getDistinctValueCount());
+
+        MongoSchemaField tagsField = fields.get("tags");
+        assertTrue(tagsField.isArray());
+        assertEquals(0, tagsField.getMinArrayLength());
+        assertEquals(2, tagsField.getMaxArrayLength());
+
+        MongoSchemaField tagName = fields.get("tags.name");
+        assertEquals(0.5, tagName.getPresence(), 0);
+        assertEquals("{string=2}", tagName.getTypeCounts().toString());
+    }
+
+    private static Map<String, MongoSchemaField> fieldsByPath(MongoSchema schema) {
+        Map<String, MongoSchemaField> fieldsByPath = new LinkedHashMap<String, MongoSchemaField>();
+        for (MongoSchemaField field : schema.getFields()) {
+            fieldsByPath.put(field.getPath(), field);
+        }
+        return fieldsByPath;
+    }
+}
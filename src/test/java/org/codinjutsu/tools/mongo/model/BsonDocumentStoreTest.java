@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBObject;
+import org.apache.commons.lang.StringUtils;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BsonDocumentStoreTest {
+
+    @Test
+    public void storedDocumentsAreDecodedOnDemand() throws Exception {
+        BasicDBList tags = new BasicDBList();
+        tags.add("tdd");
+        tags.add(new BasicDBObject("level", 2L));
+        DBObject document = new BasicDBObject("_id", new ObjectId("50b8d63414f85401b9268b99"))
+                .append("label", "toto")
+                .append("image", null)
+                .append("createdAt", new Date(0))
+                .append("tags", tags);
+
+        BsonDocumentStore documentStore = new BsonDocumentStore();
+        documentStore.add(document);
+        documentStore.add(new LazyDBObject(new DefaultDBEncoder().encode(new BasicDBObject("label", "tata")), new LazyDBCallback(null)));
+
+        assertEquals(2, documentStore.size());
+        assertEquals(document.toString(), documentStore.get(0).toString());
+        assertEquals("{ \"label\" : \"tata\"}", documentStore.get(1).toString());
+        assertTrue(documentStore.get(0).get("tags") instanceof List);
+        assertEquals(2L, ((DBObject) ((List) documentStore.get(0).get("tags")).get(1)).get("level"));
+    }
+
+    @Test
+    public void documentsAreSpreadOverChunks() throws Exception {
+        BsonDocumentStore documentStore = new BsonDocumentStore();
+        String bigValue = StringUtils.repeat("x", BsonDocumentStore.CHUNK_SIZE / 3);
+        for (int i = 0; i < 5; i++) {
+            documentStore.add(new BasicDBObject("index", i).append("value", bigValue));
+        }
+        documentStore.add(new BasicDBObject("index", 5).append("value", StringUtils.repeat("y", BsonDocumentStore.CHUNK_SIZE * 2)));
+
+        assertEquals(6, documentStore.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, documentStore.get(i).get("index"));
+        }
+        assertEquals(BsonDocumentStore.CHUNK_SIZE * 2, ((String) documentStore.get(5).get("value")).length());
+        assertTrue(documentStore.getByteSize() > BsonDocumentStore.CHUNK_SIZE * 3);
+    }
+
+    @Test
+    public void documentsOverTheHeapBudgetAreSpilledToATemporaryFile() throws Exception {
+        BsonDocumentStore documentStore = new BsonDocumentStore(BsonDocumentStore.CHUNK_SIZE);
+        String bigValue = StringUtils.repeat("x", BsonDocumentStore.CHUNK_SIZE / 3);
+        for (int i = 0; i < 5; i++) {
+            documentStore.add(new BasicDBObject("index", i).append("value", bigValue));
+        }
+        documentStore.add(new LazyDBObject(new DefaultDBEncoder().encode(new BasicDBObject("index", 5).append("tags", new BasicDBList())), new LazyDBCallback(null)));
+
+        assertTrue(documentStore.isSpilled());
+        assertTrue(documentStore.getSpillFile().getFile().exists());
+        assertEquals(6, documentStore.size());
+        assertTrue(documentStore.get(0) instanceof LazyDBObject);
+        assertTrue(documentStore.get(4) instanceof SpilledDocument);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, documentStore.get(i).get("index"));
+        }
+        assertEquals(bigValue, documentStore.get(4).get("value"));
+        assertEquals("{ \"index\" : 5 , \"tags\" : [ ]}", documentStore.get(5).toString());
+    }
+
+    @Test
+    public void replacedAndRemovedDocumentsStayReadableThroughTheirPreviousViews() throws Exception {
+        BsonDocumentStore documentStore = new BsonDocumentStore(BsonDocumentStore.CHUNK_SIZE);
+        String bigValue = StringUtils.repeat("x", BsonDocumentStore.CHUNK_SIZE / 3);
+        for (int i = 0; i < 5; i++) {
+            documentStore.add(new BasicDBObject("index", i).append("value", bigValue));
+        }
+        long byteSize = documentStore.getByteSize();
+        DBObject chunkDocument = documentStore.get(1);
+        DBObject spilledDocument = documentStore.get(4);
+
+        documentStore.replace(1, new BasicDBObject("index", 10));
+        documentStore.remove(3);
+        documentStore.replace(3, new BasicDBObject("index", 40));
+
+        assertEquals(4, documentStore.size());
+        assertEquals(10, documentStore.get(1).get("index"));
+        assertEquals(2, documentStore.get(2).get("index"));
+        assertEquals(40, documentStore.get(3).get("index"));
+        assertEquals(1, chunkDocument.get("index"));
+        assertEquals(4, spilledDocument.get("index"));
+        assertEquals(byteSize - 3 * new DefaultDBEncoder().encode(new BasicDBObject("index", 1).append("value", bigValue)).length
+                + 2 * new DefaultDBEncoder().encode(new BasicDBObject("index", 10)).length, documentStore.getByteSize());
+
+        documentStore.remove(3);
+        documentStore.remove(0);
+        assertEquals(2, documentStore.size());
+        assertEquals(10, documentStore.get(0).get("index"));
+        assertEquals(2, documentStore.get(1).get("index"));
+    }
+
+    @Test
+    public void disposeDeletesTheSpillFile() throws Exception {
+        BsonDocumentStore documentStore = new BsonDocumentStore(0);
+        documentStore.add(new BasicDBObject("label", "toto"));
+        DBObject spilledDocument = documentStore.get(0);
+        assertTrue(documentStore.getSpillFile().getFile().exists());
+
+        documentStore.dispose();
+
+        assertFalse(documentStore.getSpillFile().getFile().exists());
+        try {
+            spilledDocument.get("label");
+            fail("a disposed store cannot be read");
+        } catch (IllegalStateException ex) {
+            assertEquals("The result has been disposed", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class FieldPathIndexTest {
+
+    @Test
+    public void pathsAreFoundByPrefix() throws Exception {
+        FieldPathIndex fieldPathIndex = new FieldPathIndex(Arrays.asList("tags", "author.name", "_id", "author", "tags.name", "label", "author.email"));
+
+        assertEquals(7, fieldPathIndex.size());
+        assertEquals("[author, author.email, author.name]", fieldPathIndex.findByPrefix("au", 10).toString());
+        assertEquals("[author.email, author.name]", fieldPathIndex.findByPrefix("author.", 10).toString());
+        assertEquals("[tags]", fieldPathIndex.findByPrefix("t", 1).toString());
+        assertEquals("[]", fieldPathIndex.findByPrefix("z", 10).toString());
+        assertEquals(7, fieldPathIndex.findByPrefix("", 10).size());
+    }
+}
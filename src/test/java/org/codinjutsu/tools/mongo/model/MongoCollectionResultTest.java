@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+import org.apache.commons.lang.StringUtils;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MongoCollectionResultTest {
+
+    @Test
+    public void accountForTheBsonSizeOfTheDocuments() throws Exception {
+        MongoCollectionResult result = new MongoCollectionResult("mycollec");
+        BasicDBObject document = new BasicDBObject("label", "toto");
+
+        result.add(document);
+        result.add(document);
+
+        assertEquals(2 * new DefaultDBEncoder().encode(document).length, result.getByteSize());
+        assertFalse(result.isSizeLimitReached());
+    }
+
+    @Test
+    public void sizeLimitIsReachedOnceTheDocumentsWeighMoreThanIt() throws Exception {
+        MongoCollectionResult result = new MongoCollectionResult("mycollec", 0, 1);
+        String halfMegabyte = StringUtils.repeat("x", 512 * 1024);
+
+        result.add(new BasicDBObject("value", halfMegabyte));
+        assertFalse(result.isSizeLimitReached());
+
+        result.add(new BasicDBObject("value", halfMegabyte));
+        assertTrue(result.isSizeLimitReached());
+        assertEquals(1024 * 1024, result.getSizeLimit());
+    }
+
+    @Test
+    public void replaceAndRemoveDocumentsById() throws Exception {
+        MongoCollectionResult result = new MongoCollectionResult("mycollec");
+        result.add(new BasicDBObject("_id", 1).append("label", "toto"));
+        result.add(new BasicDBObject("_id", 2).append("label", "tata"));
+        result.add(new BasicDBObject("_id", 3).append("label", "titi"));
+
+        assertEquals(1, result.indexOf(2));
+        assertEquals(-1, result.indexOf(4));
+
+        DBObject replacedDocument = result.replace(result.indexOf(2), new BasicDBObject("_id", 2).append("label", "tutu"));
+        result.remove(result.indexOf(1));
+
+        assertEquals("tutu", replacedDocument.get("label"));
+        assertEquals(2, result.getMongoObjects().size());
+        assertEquals("tutu", result.getMongoObjects().get(0).get("label"));
+        assertEquals("titi", result.getMongoObjects().get(1).get("label"));
+        assertEquals(0, result.indexOf(2));
+        assertEquals(1, result.indexOf(3));
+        assertEquals(-1, result.indexOf(1));
+    }
+
+    @Test
+    public void findSpilledDocumentsById() throws Exception {
+        String quarterMegabyte = StringUtils.repeat("a", 256 * 1024);
+        MongoCollectionResult result = new MongoCollectionResult("mycollec", 1, 0);
+        for (int i = 0; i < 8; i++) {
+            result.add(new BasicDBObject("_id", new ObjectId()).append("value", quarterMegabyte));
+        }
+        ObjectId spilledId = new ObjectId();
+        result.add(new BasicDBObject("_id", spilledId).append("label", "toto"));
+        result.add(new BasicDBObject("label", "without _id"));
+
+        assertTrue(result.isSpilled());
+        assertEquals(8, result.indexOf(spilledId));
+
+        result.remove(0);
+        result.replace(result.indexOf(spilledId), new BasicDBObject("_id", spilledId).append("label", "tutu"));
+
+        assertEquals(7, result.indexOf(spilledId));
+        assertEquals("tutu", result.getMongoObjects().get(7).get("label"));
+        result.dispose();
+    }
+}
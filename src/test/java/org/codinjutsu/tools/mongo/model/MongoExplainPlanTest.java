@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class MongoExplainPlanTest {
+
+    @Test
+    public void explainFindWithCollectionScan() throws Exception {
+        MongoExplainPlan explainPlan = new MongoExplainPlan(document("{'queryPlanner': {'winningPlan': {'stage': 'COLLSCAN'}}," +
+                "'executionStats': {'nReturned': 2, 'executionTimeMillis': 12, 'totalKeysExamined': 0, 'totalDocsExamined': 5," +
+                "'executionStages': {'stage': 'COLLSCAN', 'nReturned': 2, 'executionTimeMillisEstimate': 10, 'docsExamined': 5}}}"));
+
+        assertTrue(explainPlan.isCollectionScan());
+        assertTrue(explainPlan.getIndexNames().isEmpty());
+        assertEquals(2, explainPlan.getReturnedCount());
+        assertEquals(5, explainPlan.getDocsExaminedCount());
+        assertEquals(12, explainPlan.getExecutionTimeMillis());
+        assertEquals("{ \"collectionScan\" : true , \"indexes\" : [ ] , \"nReturned\" : 2 , \"totalKeysExamined\" : 0 , \"totalDocsExamined\" : 5 , \"executionTimeMillis\" : 12 , " +
+                "\"winningPlan\" : { \"stage\" : \"COLLSCAN\" , \"nReturned\" : 2 , \"executionTimeMillisEstimate\" : 10 , \"docsExamined\" : 5}}", explainPlan.toSummary().toString());
+    }
+
+    @Test
+    public void explainFindWithIndex() throws Exception {
+        MongoExplainPlan explainPlan = new MongoExplainPlan(document("{'queryPlanner': {'winningPlan': {'stage': 'FETCH', 'inputStage': {'stage': 'IXSCAN', 'indexName': 'price_1'}}}," +
+                "'executionStats': {'nReturned': 1, 'executionTimeMillis': 0, 'totalKeysExamined': 1, 'totalDocsExamined': 1," +
+                "'executionStages': {'stage': 'FETCH', 'nReturned': 1, 'docsExamined': 1," +
+                "'inputStage': {'stage': 'IXSCAN', 'indexName': 'price_1', 'keyPattern': {'price': 1}, 'nReturned': 1, 'keysExamined': 1}}}}"));
+
+        assertFalse(explainPlan.isCollectionScan());
+        assertEquals(Collections.singleton("price_1"), explainPlan.getIndexNames());
+        assertEquals(1, explainPlan.getKeysExaminedCount());
+    }
+
+    @Test
+    public void explainAggregationUsesCursorStage() throws Exception {
+        MongoExplainPlan explainPlan = new MongoExplainPlan(document("{'stages': [" +
+                "{'$cursor': {'queryPlanner': {'winningPlan': {'stage': 'COLLSCAN'}}}}," +
+                "{'$group': {'_id': '$label'}}]}"));
+
+        assertTrue(explainPlan.isCollectionScan());
+        assertEquals(document("{'collectionScan': true, 'indexes': [], 'winningPlan': {'stage': 'COLLSCAN'}}"), explainPlan.toSummary());
+    }
+
+    @Test
+    public void explainShardedFindWalksTheShardPlans() throws Exception {
+        MongoExplainPlan explainPlan = new MongoExplainPlan(document("{'queryPlanner': {'mongosPlannerVersion': 1, 'winningPlan': {'stage': 'SHARD_MERGE', 'shards': [" +
+                "{'shardName': 'shard0', 'winningPlan': {'stage': 'FETCH', 'inputStage': {'stage': 'IXSCAN', 'indexName': 'price_1'}}}," +
+                "{'shardName': 'shard1', 'winningPlan': {'stage': 'SHARDING_FILTER', 'inputStage': {'stage': 'COLLSCAN'}}}]}}," +
+                "'executionStats': {'nReturned': 3, 'executionTimeMillis': 7, 'totalKeysExamined': 1, 'totalDocsExamined': 6," +
+                "'executionStages': {'stage': 'SHARD_MERGE', 'nReturned': 3, 'shards': [" +
+                "{'shardName': 'shard0', 'executionSuccess': true, 'executionStages': {'stage': 'FETCH', 'nReturned': 1," +
+                "'inputStage': {'stage': 'IXSCAN', 'indexName': 'price_1', 'keysExamined': 1}}}," +
+                "{'shardName': 'shard1', 'executionSuccess': true, 'executionStages': {'stage': 'SHARDING_FILTER', 'nReturned': 2," +
+                "'inputStage': {'stage': 'COLLSCAN', 'docsExamined': 5}}}]}}}"));
+
+        assertTrue(explainPlan.isCollectionScan());
+        assertEquals(Collections.singleton("price_1"), explainPlan.getIndexNames());
+        assertEquals(3, explainPlan.getReturnedCount());
+        assertEquals(6, explainPlan.getDocsExaminedCount());
+        assertEquals(document("{'stage': 'SHARD_MERGE', 'nReturned': 3, 'shards': [" +
+                        "{'shardName': 'shard0', 'winningPlan': {'stage': 'FETCH', 'nReturned': 1, 'inputStages': [{'stage': 'IXSCAN', 'indexName': 'price_1', 'keysExamined': 1}]}}," +
+                        "{'shardName': 'shard1', 'winningPlan': {'stage': 'SHARDING_FILTER', 'nReturned': 2, 'inputStages': [{'stage': 'COLLSCAN', 'docsExamined': 5}]}}]}"),
+                explainPlan.toSummary().get("winningPlan"));
+    }
+
+    @Test
+    public void explainSingleShardFindWithoutExecutionStats() throws Exception {
+        MongoExplainPlan explainPlan = new MongoExplainPlan(document("{'queryPlanner': {'winningPlan': {'stage': 'SINGLE_SHARD', 'shards': [" +
+                "{'shardName': 'shard0', 'winningPlan': {'stage': 'SHARDING_FILTER', 'inputStage': {'stage': 'COLLSCAN'}}}]}}}"));
+
+        assertTrue(explainPlan.isCollectionScan());
+        assertTrue(explainPlan.getIndexNames().isEmpty());
+    }
+
+    private static DBObject document(String json) {
+        return (DBObject) JSON.parse(json);
+    }
+}
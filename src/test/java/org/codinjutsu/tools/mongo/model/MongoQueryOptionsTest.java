@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.model;
+
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MongoQueryOptionsTest {
+
+    @Test
+    public void nextPageSeeksAfterLastId() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setResultLimit(2);
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2, 'label': 'tata'}"));
+        assertTrue(nextPage.isSeekRangeToCheck());
+        nextPage.setSeekRangeUniform(true);
+
+        assertEquals(1, nextPage.getPage());
+        assertEquals(0, nextPage.getSkip());
+        assertEquals(JSON.parse("{'_id': 1}"), nextPage.getPageSort());
+        assertEquals(JSON.parse("{'$or': [{'_id': {'$gt': 2}}]}"), nextPage.getPageFilter());
+    }
+
+    @Test
+    public void nextPageSeeksAfterCompoundSortKey() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setFilter("{'label': 'tata'}");
+        mongoQueryOptions.setSort("{'price': -1}");
+        assertTrue(mongoQueryOptions.isSortUniquenessToCheck());
+        mongoQueryOptions.checkSortUniqueness(indexes("{'key': {'_id': 1}, 'unique': true}", "{'key': {'price': 1, '_id': 1}}"));
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2, 'label': 'tata', 'price': 15}"));
+        assertFalse(nextPage.isSortUniquenessToCheck());
+        nextPage.setSeekRangeUniform(true);
+
+        assertEquals(JSON.parse("{'price': -1, '_id': -1}"), nextPage.getPageSort());
+        assertEquals(JSON.parse("{'$and': [{'label': 'tata'}, {'$or': [{'price': {'$lt': 15}}, {'price': 15, '_id': {'$lt': 2}}]}]}"),
+                nextPage.getPageFilter());
+    }
+
+    @Test
+    public void firstPageKeepsTheUserSort() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setSort("{'price': -1}");
+        assertEquals(JSON.parse("{'price': -1}"), mongoQueryOptions.getPageSort());
+
+        mongoQueryOptions.checkSortUniqueness(indexes("{'key': {'_id': 1}, 'unique': true}", "{'key': {'price': 1}}",
+                "{'key': {'price': 1, 'label': 1, '_id': 1}}"));
+
+        assertEquals(JSON.parse("{'price': -1}"), mongoQueryOptions.getPageSort());
+        assertEquals(JSON.parse("{'price': -1}"), mongoQueryOptions.forPage(0).getPageSort());
+    }
+
+    @Test
+    public void nextPageSkipsWhenNoIndexMakesTheSortUnique() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setSort("{'price': 1, 'label': -1}");
+        mongoQueryOptions.setResultLimit(2);
+        mongoQueryOptions.checkSortUniqueness(indexes("{'key': {'_id': 1}, 'unique': true}",
+                "{'key': {'price': 1, 'label': 1, '_id': 1}}", "{'key': {'price': 1}, 'unique': true, 'sparse': true}"));
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2, 'price': 50, 'label': 'tata'}"));
+
+        assertFalse(nextPage.isSortUniquenessToCheck());
+        assertFalse(nextPage.isSeekRangeToCheck());
+        assertEquals(2, nextPage.getSkip());
+        assertEquals(JSON.parse("{'price': 1, 'label': -1}"), nextPage.getPageSort());
+        assertEquals(mongoQueryOptions.getFilter(), nextPage.getPageFilter());
+    }
+
+    @Test
+    public void nextPageSeeksWithoutTieBreakerOnAUniqueSort() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setSort("{'sku': 1, 'price': -1}");
+        mongoQueryOptions.checkSortUniqueness(indexes("{'key': {'_id': 1}, 'unique': true}", "{'key': {'sku': 1}, 'unique': true}"));
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2, 'sku': 'A2', 'price': 15}"));
+        nextPage.setSeekRangeUniform(true);
+
+        assertEquals(JSON.parse("{'sku': 1, 'price': -1}"), nextPage.getPageSort());
+        assertEquals(JSON.parse("{'$or': [{'sku': {'$gt': 'A2'}}, {'sku': 'A2', 'price': {'$lt': 15}}]}"),
+                nextPage.getPageFilter());
+    }
+
+    @Test
+    public void nextPageSkipsWhenSortKeyTypesAreMixed() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setSort("{'price': 1}");
+        mongoQueryOptions.setResultLimit(2);
+        mongoQueryOptions.checkSortUniqueness(indexes("{'key': {'price': 1, '_id': 1}}"));
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2, 'price': 50}"));
+
+        assertTrue(nextPage.isSeekRangeToCheck());
+        assertTrue(nextPage.isSeekRangeBoundary("price", document("{'_id': 1, 'price': 10.5}")));
+        assertTrue(nextPage.isSeekRangeBoundary("price", null));
+        assertFalse(nextPage.isSeekRangeBoundary("price", document("{'_id': 3, 'price': 'cheap'}")));
+        assertFalse(nextPage.isSeekRangeBoundary("price", document("{'_id': 4, 'price': [10, 'cheap']}")));
+        assertFalse(nextPage.isSeekRangeBoundary("price", document("{'_id': 5}")));
+        assertFalse(nextPage.isSeekRangeBoundary("_id", document("{'_id': 'five', 'price': 10}")));
+
+        nextPage.setSeekRangeUniform(false);
+        assertEquals(2, nextPage.getSkip());
+        assertEquals(mongoQueryOptions.getFilter(), nextPage.getPageFilter());
+
+        MongoQueryOptions thirdPage = nextPage.nextPage(document("{'_id': 4, 'price': 60}"));
+        assertFalse(thirdPage.isSeekRangeToCheck());
+        assertEquals(4, thirdPage.getSkip());
+        assertEquals(mongoQueryOptions.getFilter(), thirdPage.getPageFilter());
+    }
+
+    @Test
+    public void nextPageSeeksWithoutCheckingAgainOnceTheRangeIsUniform() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setResultLimit(2);
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2}"));
+        assertEquals(2, nextPage.getSkip());
+        nextPage.setSeekRangeUniform(true);
+
+        MongoQueryOptions thirdPage = nextPage.nextPage(document("{'_id': 4}"));
+        assertFalse(thirdPage.isSeekRangeToCheck());
+        assertEquals(0, thirdPage.getSkip());
+        assertEquals(JSON.parse("{'$or': [{'_id': {'$gt': 4}}]}"), thirdPage.getPageFilter());
+    }
+
+    @Test
+    public void nextPageSkipsWhenSortKeyIsNotProjected() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setProjection("{'_id': 0, 'label': 1}");
+        mongoQueryOptions.setResultLimit(2);
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'label': 'tata'}"));
+
+        assertEquals(2, nextPage.getSkip());
+        assertEquals(mongoQueryOptions.getFilter(), nextPage.getPageFilter());
+    }
+
+    @Test
+    public void nextPageSkipsForAggregation() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setOperations("[{'$match': {'price': 15}}]");
+        mongoQueryOptions.setResultLimit(2);
+
+        MongoQueryOptions nextPage = mongoQueryOptions.nextPage(document("{'_id': 2, 'price': 15}"));
+
+        assertEquals(2, nextPage.getSkip());
+        assertEquals(1, nextPage.getOperations().size());
+    }
+
+    @Test
+    public void batchSizeDefaultsToPageSize() throws Exception {
+        MongoQueryOptions mongoQueryOptions = new MongoQueryOptions();
+        mongoQueryOptions.setResultLimit(50);
+        assertEquals(50, mongoQueryOptions.getBatchSize());
+
+        mongoQueryOptions.setBatchSize(10);
+        assertEquals(10, mongoQueryOptions.forPage(1).getBatchSize());
+    }
+
+    private static DBObject document(String json) {
+        return (DBObject) JSON.parse(json);
+    }
+
+    private static List<DBObject> indexes(String... jsonIndexes) {
+        List<DBObject> indexes = new LinkedList<DBObject>();
+        for (String jsonIndex : jsonIndexes) {
+            indexes.add(document(jsonIndex));
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.utils;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Compares the shared UTC date formatter of {@link DateUtils} with the static {@link DateFormat} the descriptors
+ * used to share (fast but not thread-safe) and with the two ways of making it safe.
+ * Run it from the IDE; it is not part of the test suite.
+ */
+public class DateUtilsBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200000;
+    private static final int MEASURED_ITERATIONS = 1000000;
+
+    public static void main(String[] args) {
+        Date[] dates = new Date[1000];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = new Date(1420070400000L + i * 86461000L);
+        }
+
+        final DateFormat sharedFormat = DateUtils.utcDateTime(Locale.getDefault());
+        run("shared DateFormat (unsafe)", new DateFormatter() {
+            @Override
+            public String format(Date date) {
+                return sharedFormat.format(date);
+            }
+        }, dates);
+
+        run("DateFormat per call", new DateFormatter() {
+            @Override
+            public String format(Date date) {
+                return DateUtils.utcDateTime(Locale.getDefault()).format(date);
+            }
+        }, dates);
+
+        final DateFormat synchronizedFormat = DateUtils.utcDateTime(Locale.getDefault());
+        run("synchronized DateFormat", new DateFormatter() {
+            @Override
+            public String format(Date date) {
+                synchronized (synchronizedFormat) {
+                    return synchronizedFormat.format(date);
+                }
+            }
+        }, dates);
+
+        run("DateUtils.formatUtcDateTime", new DateFormatter() {
+            @Override
+            public String format(Date date) {
+                return DateUtils.formatUtcDateTime(date);
+            }
+        }, dates);
+    }
+
+    private static void run(String label, DateFormatter formatter, Date[] dates) {
+        int checksum = loop(formatter, dates, WARMUP_ITERATIONS);
+
+        long start = System.nanoTime();
+        checksum += loop(formatter, dates, MEASURED_ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%-30s %6d ns/op (checksum %d)", label, elapsed / MEASURED_ITERATIONS, checksum));
+    }
+
+    private static int loop(DateFormatter formatter, Date[] dates, int iterations) {
+        int checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += formatter.format(dates[i % dates.length]).length();
+        }
+        return checksum;
+    }
+
+    private interface DateFormatter {
+        String format(Date date);
+    }
+}
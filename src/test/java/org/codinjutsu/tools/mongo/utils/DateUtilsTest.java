@@ -18,10 +18,17 @@ package org.codinjutsu.tools.mongo.utils;
 
 import org.junit.Test;
 
+import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -54,4 +61,52 @@ public class DateUtilsTest {
         Date time = calendar.getTime();
         assertEquals("11:00:00 PM", DateUtils.utcTime(Locale.US).format(time));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sharedUtcDateTimeFormatMatchesTheDateFormatOne() throws Exception {
+        Date date = new Date(1420070400000L);
+
+        String formattedDate = DateUtils.formatUtcDateTime(date);
+
+        DateFormat dateFormat = DateUtils.utcDateTime(Locale.getDefault());
+        assertEquals(dateFormat.format(date), formattedDate);
+        assertEquals(date, dateFormat.parse(formattedDate));
+    }
+
+    @Test
+    public void utcDateTimeCanBeFormattedAndParsedConcurrently() throws Exception {
+        final DateFormat referenceFormat = DateUtils.utcDateTime(Locale.getDefault());
+        final List<Date> dates = new ArrayList<Date>();
+        final List<String> expectedTexts = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            Date date = new Date(1420070400000L + i * 86461000L);
+            dates.add(date);
+            expectedTexts.add(referenceFormat.format(date));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int thread = 0; thread < 4; thread++) {
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    DateFormat parser = DateUtils.utcDateTime(Locale.getDefault());
+                    for (int loop = 0; loop < 50; loop++) {
+                        for (int i = 0; i < dates.size(); i++) {
+                            String text = DateUtils.formatUtcDateTime(dates.get(i));
+                            if (!expectedTexts.get(i).equals(text) || !dates.get(i).equals(parser.parse(text))) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        executor.shutdown();
+
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+    }
+}
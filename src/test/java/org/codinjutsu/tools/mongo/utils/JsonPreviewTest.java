@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.utils;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonPreviewTest {
+
+    @Test
+    public void shortDocumentIsWrittenLikeTheDriverSerializer() throws Exception {
+        BasicDBList tags = new BasicDBList();
+        tags.add("tdd");
+        tags.add(new BasicDBObject("level", 2));
+        tags.add(new BasicDBList());
+        DBObject document = new BasicDBObject("_id", new ObjectId("50b8d63414f85401b9268b99"))
+                .append("label", "to\"to")
+                .append("image", null)
+                .append("createdAt", new Date(0))
+                .append("tags", tags)
+                .append("inner", new BasicDBObject());
+
+        assertEquals(JSON.serialize(document), JsonPreview.preview(document, 500));
+    }
+
+    @Test
+    public void longDocumentIsCutAtTheRequestedLength() throws Exception {
+        BasicDBList values = new BasicDBList();
+        for (int i = 0; i < 1000; i++) {
+            values.add(new BasicDBObject("value", i));
+        }
+        DBObject document = new BasicDBObject("values", values);
+
+        String preview = JsonPreview.preview(document, 40);
+
+        assertEquals(40, preview.length());
+        assertEquals(JSON.serialize(document).substring(0, 37) + "...", preview);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.codinjutsu.tools.mongo.view;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdminTaskTest {
+
+    private static final Runnable NOT_CANCELLED = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private AtomicInteger successRefreshCount;
+    private AtomicInteger cancelRefreshCount;
+    private AdminTask adminTask;
+
+    @Test
+    public void refreshOnSuccess() throws Exception {
+        FutureTask<Object> operation = new FutureTask<Object>(NOT_CANCELLED, null);
+        operation.run();
+
+        adminTask.await(operation, NOT_CANCELLED);
+
+        assertNull(adminTask.completed());
+        assertEquals(1, successRefreshCount.get());
+        assertEquals(0, cancelRefreshCount.get());
+    }
+
+    @Test
+    public void keepTheFailureOfTheOperationWithoutRefreshing() throws Exception {
+        final IllegalStateException operationFailure = new IllegalStateException("not authorized");
+        FutureTask<Object> operation = new FutureTask<Object>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                throw operationFailure;
+            }
+        });
+        operation.run();
+
+        adminTask.await(operation, NOT_CANCELLED);
+
+        assertSame(operationFailure, adminTask.completed());
+        assertEquals(0, successRefreshCount.get());
+    }
+
+    @Test
+    public void stopWaitingWhenCancelled() throws Exception {
+        FutureTask<Object> operation = new FutureTask<Object>(NOT_CANCELLED, null);
+        final AtomicInteger checkCount = new AtomicInteger();
+
+        try {
+            adminTask.await(operation, new Runnable() {
+                @Override
+                public void run() {
+                    if (checkCount.incrementAndGet() == 2) {
+                        throw new CancellationCheckException();
+                    }
+                }
+            });
+            fail("the cancellation should stop the wait");
+        } catch (CancellationCheckException ex) {
+            adminTask.cancelled();
+        }
+
+        assertEquals(2, checkCount.get());
+        assertFalse(operation.isDone());
+        assertEquals(1, cancelRefreshCount.get());
+        assertEquals(0, successRefreshCount.get());
+    }
+
+    @Test
+    public void keepTheInterruptionOfTheWaitingThread() throws Exception {
+        FutureTask<Object> operation = new FutureTask<Object>(NOT_CANCELLED, null);
+
+        Thread.currentThread().interrupt();
+        adminTask.await(operation, NOT_CANCELLED);
+
+        assertTrue(Thread.interrupted());
+        assertTrue(adminTask.completed() instanceof InterruptedException);
+        assertEquals(0, successRefreshCount.get());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        successRefreshCount = new AtomicInteger();
+        cancelRefreshCount = new AtomicInteger();
+        adminTask = new AdminTask(new Runnable() {
+            @Override
+            public void run() {
+                successRefreshCount.incrementAndGet();
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                cancelRefreshCount.incrementAndGet();
+            }
+        });
+    }
+
+    private static class CancellationCheckException extends RuntimeException {
+    }
+}
@@ -62,6 +62,16 @@ public class MongoEditionPanelTest {
                     @Override
                     void buildPopupMenu() {
                     }
+
+                    @Override
+                    void executeInBackground(Runnable task) {
+                        task.run();
+                    }
+
+                    @Override
+                    void runInSwingThread(Runnable task) {
+                        task.run();
+                    }
                 };
                 return panel.init(mockMongoOperations, mockActionCallback);
             }
@@ -99,9 +109,12 @@ public class MongoEditionPanelTest {
 
         frameFixture.button("saveButton").click();
 
+        ArgumentCaptor<DBObject> originalArgument = ArgumentCaptor.forClass(DBObject.class);
         ArgumentCaptor<DBObject> argument = ArgumentCaptor.forClass(DBObject.class);
-        verify(mockMongoOperations).updateMongoDocument(argument.capture());
+        verify(mockMongoOperations).updateMongoDocument(originalArgument.capture(), argument.capture());
 
+        Assert.assertEquals("{ \"_id\" : { \"$oid\" : \"50b8d63414f85401b9268b99\"} , \"label\" : \"toto\" , \"visible\" : false , \"image\" :  null }",
+                originalArgument.getValue().toString());
         Assert.assertEquals("{ \"_id\" : { \"$oid\" : \"50b8d63414f85401b9268b99\"} , \"label\" : \"Hello\" , \"visible\" : false , \"image\" :  null }",
                 argument.getValue().toString());
 
@@ -120,7 +133,7 @@ public class MongoEditionPanelTest {
                 .enterValue("Hello");
 
         frameFixture.button("cancelButton").click();
-        verify(mockMongoOperations, times(0)).updateMongoDocument(any(DBObject.class));
+        verify(mockMongoOperations, times(0)).updateMongoDocument(any(DBObject.class), any(DBObject.class));
 
         verify(mockActionCallback, times(1)).onOperationCancelled(any(String.class));
     }
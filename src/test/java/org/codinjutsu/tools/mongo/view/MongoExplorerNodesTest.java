@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.codinjutsu.tools.mongo.view;
+
+import org.codinjutsu.tools.mongo.ServerConfiguration;
+import org.codinjutsu.tools.mongo.model.MongoCollection;
+import org.codinjutsu.tools.mongo.model.MongoCollectionIndexes;
+import org.codinjutsu.tools.mongo.model.MongoCollectionSchema;
+import org.codinjutsu.tools.mongo.model.MongoDatabase;
+import org.codinjutsu.tools.mongo.model.MongoServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MongoExplorerNodesTest {
+
+    private ServerConfiguration configuration;
+    private MongoServer mongoServer;
+    private DefaultMutableTreeNode serverNode;
+    private DefaultTreeModel treeModel;
+
+    @Test
+    public void keepTheNodesOfTheDatabasesStillListedAndInsertTheNewOnes() throws Exception {
+        MongoDatabase adminDatabase = databaseWithCollections("admin", "system.users");
+        MongoDatabase testDatabase = databaseWithCollections("test", "dummyCollection");
+        mongoServer.setDatabases(Arrays.asList(adminDatabase, testDatabase));
+        DefaultMutableTreeNode adminNode = MongoExplorerNodes.createDatabaseNode(adminDatabase, configuration);
+        serverNode.add(adminNode);
+        serverNode.add(MongoExplorerNodes.createDatabaseNode(new MongoDatabase("old"), configuration));
+        DefaultMutableTreeNode testNode = MongoExplorerNodes.createDatabaseNode(testDatabase, configuration);
+        serverNode.add(testNode);
+
+        MongoDatabase listedAdminDatabase = new MongoDatabase("admin");
+        mongoServer.setDatabases(Arrays.asList(listedAdminDatabase, new MongoDatabase("local"), new MongoDatabase("test")));
+        MongoExplorerNodes.mergeDatabaseNodes(treeModel, serverNode, mongoServer);
+
+        assertEquals(Arrays.asList("admin", "local", "test"), childNames(serverNode));
+        assertSame(adminNode, serverNode.getChildAt(0));
+        assertSame(listedAdminDatabase, adminNode.getUserObject());
+        assertEquals(Collections.singletonList("system.users"), childNames(adminNode));
+        assertSame(testNode, serverNode.getChildAt(2));
+        assertEquals(Collections.singletonList("dummyCollection"), childNames(testNode));
+        assertTrue(MongoExplorerNodes.isNotLoaded((DefaultMutableTreeNode) serverNode.getChildAt(1)));
+    }
+
+    @Test
+    public void removeTheNodesOfTheDroppedDatabases() throws Exception {
+        mongoServer.setDatabases(Arrays.asList(new MongoDatabase("admin"), new MongoDatabase("test")));
+        for (MongoDatabase mongoDatabase : mongoServer.getDatabases()) {
+            serverNode.add(MongoExplorerNodes.createDatabaseNode(mongoDatabase, configuration));
+        }
+
+        mongoServer.setDatabases(Collections.singletonList(new MongoDatabase("test")));
+        MongoExplorerNodes.mergeDatabaseNodes(treeModel, serverNode, mongoServer);
+
+        assertEquals(Collections.singletonList("test"), childNames(serverNode));
+
+        mongoServer.setDatabases(Collections.<MongoDatabase>emptyList());
+        MongoExplorerNodes.mergeDatabaseNodes(treeModel, serverNode, mongoServer);
+
+        assertEquals(0, serverNode.getChildCount());
+    }
+
+    @Test
+    public void replaceTheLoadingPlaceholderByTheListedCollections() throws Exception {
+        MongoDatabase testDatabase = new MongoDatabase("test");
+        DefaultMutableTreeNode databaseNode = MongoExplorerNodes.createDatabaseNode(testDatabase, configuration);
+        serverNode.add(databaseNode);
+        assertTrue(MongoExplorerNodes.isNotLoaded(databaseNode));
+
+        testDatabase.setCollections(Arrays.asList(new MongoCollection("movies", "test"), new MongoCollection("books", "test")));
+        MongoExplorerNodes.mergeCollectionNodes(treeModel, databaseNode, testDatabase, configuration);
+
+        assertFalse(MongoExplorerNodes.isNotLoaded(databaseNode));
+        assertEquals(Arrays.asList("books", "movies"), childNames(databaseNode));
+        DefaultMutableTreeNode collectionNode = (DefaultMutableTreeNode) databaseNode.getChildAt(0);
+        assertTrue(((DefaultMutableTreeNode) collectionNode.getChildAt(0)).getUserObject() instanceof MongoCollectionIndexes);
+        assertTrue(MongoExplorerNodes.isNotLoaded((DefaultMutableTreeNode) collectionNode.getChildAt(0)));
+        assertTrue(((DefaultMutableTreeNode) collectionNode.getChildAt(1)).getUserObject() instanceof MongoCollectionSchema);
+    }
+
+    @Test
+    public void replaceTheLoadingFailedPlaceholderByTheListedCollections() throws Exception {
+        MongoDatabase testDatabase = new MongoDatabase("test");
+        DefaultMutableTreeNode databaseNode = MongoExplorerNodes.createDatabaseNode(testDatabase, configuration);
+        serverNode.add(databaseNode);
+        ((DefaultMutableTreeNode) databaseNode.getFirstChild()).setUserObject(MongoExplorerNodes.LOADING_FAILED_PLACEHOLDER);
+        assertTrue(MongoExplorerNodes.isLoadingFailed(databaseNode));
+
+        testDatabase.setCollections(Collections.singletonList(new MongoCollection("movies", "test")));
+        MongoExplorerNodes.mergeCollectionNodes(treeModel, databaseNode, testDatabase, configuration);
+
+        assertFalse(MongoExplorerNodes.isLoadingFailed(databaseNode));
+        assertEquals(Collections.singletonList("movies"), childNames(databaseNode));
+    }
+
+    @Test
+    public void keepTheNodesOfTheCollectionsStillListed() throws Exception {
+        MongoDatabase testDatabase = databaseWithCollections("test", "books", "movies", "songs");
+        DefaultMutableTreeNode databaseNode = MongoExplorerNodes.createDatabaseNode(testDatabase, configuration);
+        serverNode.add(databaseNode);
+        DefaultMutableTreeNode booksNode = (DefaultMutableTreeNode) databaseNode.getChildAt(0);
+        DefaultMutableTreeNode songsNode = (DefaultMutableTreeNode) databaseNode.getChildAt(2);
+        DefaultMutableTreeNode booksIndexesNode = (DefaultMutableTreeNode) booksNode.getChildAt(0);
+        booksIndexesNode.removeAllChildren();
+
+        testDatabase.setCollections(Arrays.asList(new MongoCollection("books", "test"), new MongoCollection("comics", "test"),
+                new MongoCollection("songs", "test"), new MongoCollection("zines", "test")));
+        MongoExplorerNodes.mergeCollectionNodes(treeModel, databaseNode, testDatabase, configuration);
+
+        assertEquals(Arrays.asList("books", "comics", "songs", "zines"), childNames(databaseNode));
+        assertSame(booksNode, databaseNode.getChildAt(0));
+        assertSame(booksIndexesNode, booksNode.getChildAt(0));
+        assertSame(songsNode, databaseNode.getChildAt(2));
+    }
+
+    @Test
+    public void leaveOutTheIgnoredCollections() throws Exception {
+        configuration.setCollectionsToIgnore(Collections.singletonList("system.indexes"));
+        MongoDatabase testDatabase = databaseWithCollections("test", "movies", "system.indexes");
+        DefaultMutableTreeNode databaseNode = MongoExplorerNodes.createDatabaseNode(testDatabase, configuration);
+        serverNode.add(databaseNode);
+
+        assertEquals(Collections.singletonList("movies"), childNames(databaseNode));
+
+        testDatabase.setCollections(Arrays.asList(new MongoCollection("books", "test"), new MongoCollection("system.indexes", "test")));
+        MongoExplorerNodes.mergeCollectionNodes(treeModel, databaseNode, testDatabase, configuration);
+
+        assertEquals(Collections.singletonList("books"), childNames(databaseNode));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        configuration = new ServerConfiguration();
+        configuration.setServerUrls(Collections.singletonList("localhost:27017"));
+        mongoServer = new MongoServer(configuration);
+        serverNode = new DefaultMutableTreeNode(mongoServer);
+        treeModel = new DefaultTreeModel(new DefaultMutableTreeNode());
+        ((DefaultMutableTreeNode) treeModel.getRoot()).add(serverNode);
+    }
+
+    private static MongoDatabase databaseWithCollections(String databaseName, String... collectionNames) {
+        MongoDatabase mongoDatabase = new MongoDatabase(databaseName);
+        List<MongoCollection> mongoCollections = new ArrayList<MongoCollection>();
+        for (String collectionName : collectionNames) {
+            mongoCollections.add(new MongoCollection(collectionName, databaseName));
+        }
+        mongoDatabase.setCollections(mongoCollections);
+        return mongoDatabase;
+    }
+
+    private static List<String> childNames(DefaultMutableTreeNode node) {
+        List<String> childNames = new ArrayList<String>();
+        for (int i = 0; i < node.getChildCount(); i++) {
+            Object userObject = ((DefaultMutableTreeNode) node.getChildAt(i)).getUserObject();
+            if (userObject instanceof MongoDatabase) {
+                childNames.add(((MongoDatabase) userObject).getName());
+            } else if (userObject instanceof MongoCollection) {
+                childNames.add(((MongoCollection) userObject).getName());
+            } else {
+                childNames.add(String.valueOf(userObject));
+            }
+        }
+        return childNames;
+    }
+}
@@ -18,6 +18,7 @@ package org.codinjutsu.tools.mongo.view;
 
 import com.intellij.openapi.command.impl.DummyProject;
 import com.intellij.util.ui.tree.TreeUtil;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import com.mongodb.util.JSON;
 import org.apache.commons.io.IOUtils;
@@ -28,6 +29,8 @@ import org.assertj.swing.fixture.Containers;
 import org.assertj.swing.fixture.FrameFixture;
 import org.assertj.swing.fixture.JTableFixture;
 import org.codinjutsu.tools.mongo.model.MongoCollectionResult;
+import org.codinjutsu.tools.mongo.view.model.JsonTreeModel;
+import org.codinjutsu.tools.mongo.view.model.JsonTreeNode;
 import org.codinjutsu.tools.mongo.view.nodedescriptor.MongoNodeDescriptor;
 import org.jetbrains.annotations.NotNull;
 import org.junit.After;
@@ -37,7 +40,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import javax.swing.*;
+import javax.swing.tree.TreePath;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -65,6 +72,11 @@ public class MongoResultPanelTest {
                     @Override
                     void buildPopupMenu() {
                     }
+
+                    @Override
+                    void runInSwingThread(Runnable task) {
+                        task.run();
+                    }
                 };
             }
         });
@@ -206,6 +218,153 @@ public class MongoResultPanelTest {
                 mongoResultPanel.getSelectedNodeStringifiedValue());
     }
 
+    @Test
+    public void appendDocumentsWhileStreaming() throws Exception {
+        final DBObject document = (DBObject) JSON.parse(IOUtils.toString(getClass().getResourceAsStream("simpleDocument.json")));
+
+        GuiActionRunner.execute(new GuiQuery<Object>() {
+            protected Object executeInEDT() {
+                mongoResultPanel.startResultTableTree(new MongoCollectionResult("mycollec"));
+                mongoResultPanel.appendResultNodes(JsonTreeModel.buildDocumentNodes(0, Collections.singletonList(document)));
+                mongoResultPanel.appendResultNodes(JsonTreeModel.buildDocumentNodes(1, Collections.singletonList(document)));
+                return null;
+            }
+        });
+
+        getResultTable().requireColumnCount(2)
+                .requireContents(new String[][]{
+                        {"[0]", "{ \"id\" : 0 , \"label\" : \"toto\" , \"visible\" : false , \"image\" :  null }"},
+                        {"\"id\"", "0"},
+                        {"\"label\"", "\"toto\""},
+                        {"\"visible\"", "false"},
+                        {"\"image\"", "null"},
+                        {"[1]", "{ \"id\" : 0 , \"label\" : \"toto\" , \"visible\" : false , \"image\" :  null }"},
+                        {"\"id\"", "0"},
+                        {"\"label\"", "\"toto\""},
+                        {"\"visible\"", "false"},
+                        {"\"image\"", "null"}
+                });
+    }
+
+    @Test
+    public void displayDocumentsAsAFlatTable() throws Exception {
+        final DBObject document = (DBObject) JSON.parse(IOUtils.toString(getClass().getResourceAsStream("simpleDocument.json")));
+
+        final MongoCollectionResult result = new MongoCollectionResult("mycollec");
+        GuiActionRunner.execute(new GuiQuery<Object>() {
+            protected Object executeInEDT() {
+                mongoResultPanel.startResultTableTree(result);
+                mongoResultPanel.setFlatTableMode(true);
+                mongoResultPanel.appendResultNodes(JsonTreeModel.buildDocumentNodes(0, Collections.singletonList(result.add(document))));
+                return null;
+            }
+        });
+
+        JTable flatTable = frameFixture.table("resultFlatTable").requireRowCount(1).requireColumnCount(4).target();
+        assertEquals("label", flatTable.getColumnName(1));
+        assertEquals("toto", flatTable.getValueAt(0, 1));
+        assertEquals(false, flatTable.getValueAt(0, 2));
+    }
+
+    @Test
+    public void replaceAnEditedDocument() throws Exception {
+        final MongoCollectionResult result = displayDocumentsWithIds(3);
+
+        GuiActionRunner.execute(new GuiQuery<Object>() {
+            protected Object executeInEDT() {
+                mongoResultPanel.replaceMongoDocument(2, new BasicDBObject("_id", 2).append("label", "edited").append("doc", new BasicDBObject("title", "new title")));
+                return null;
+            }
+        });
+
+        getResultTable().requireContents(new String[][]{
+                {"[0]", "{ \"_id\" : 1 , \"label\" : \"label1\" , \"doc\" : { \"title\" : \"title1\"}}"},
+                {"\"_id\"", "1"},
+                {"\"label\"", "\"label1\""},
+                {"\"doc\"", "{ \"title\" : \"title1\"}"},
+                {"[1]", "{ \"_id\" : 2 , \"label\" : \"edited\" , \"doc\" : { \"title\" : \"new title\"}}"},
+                {"\"_id\"", "2"},
+                {"\"label\"", "\"edited\""},
+                {"\"doc\"", "{ \"title\" : \"new title\"}"},
+                {"[2]", "{ \"_id\" : 3 , \"label\" : \"label3\" , \"doc\" : { \"title\" : \"title3\"}}"},
+                {"\"_id\"", "3"},
+                {"\"label\"", "\"label3\""},
+                {"\"doc\"", "{ \"title\" : \"title3\"}"},
+        });
+        assertEquals("edited", result.getMongoObjects().get(1).get("label"));
+    }
+
+    @Test
+    public void keepTheExpandedNodesOfAReplacedDocument() throws Exception {
+        displayDocumentsWithIds(2);
+
+        GuiActionRunner.execute(new GuiQuery<Object>() {
+            protected Object executeInEDT() {
+                JTree tree = mongoResultPanel.resultTableView.getTree();
+                JsonTreeNode rootNode = (JsonTreeNode) tree.getModel().getRoot();
+                tree.expandPath(new TreePath(((JsonTreeNode) rootNode.getChildAt(1).getChildAt(2)).getPath()));
+                tree.collapsePath(new TreePath(((JsonTreeNode) rootNode.getChildAt(0)).getPath()));
+
+                mongoResultPanel.replaceMongoDocument(2, new BasicDBObject("_id", 2).append("label", "edited").append("doc", new BasicDBObject("title", "new title")));
+                return null;
+            }
+        });
+
+        getResultTable().requireContents(new String[][]{
+                {"[0]", "{ \"_id\" : 1 , \"label\" : \"label1\" , \"doc\" : { \"title\" : \"title1\"}}"},
+                {"[1]", "{ \"_id\" : 2 , \"label\" : \"edited\" , \"doc\" : { \"title\" : \"new title\"}}"},
+                {"\"_id\"", "2"},
+                {"\"label\"", "\"edited\""},
+                {"\"doc\"", "{ \"title\" : \"new title\"}"},
+                {"\"title\"", "\"new title\""},
+        });
+    }
+
+    @Test
+    public void removeADeletedDocumentAndRenumberTheNextOnes() throws Exception {
+        final MongoCollectionResult result = displayDocumentsWithIds(3);
+
+        GuiActionRunner.execute(new GuiQuery<Object>() {
+            protected Object executeInEDT() {
+                mongoResultPanel.removeMongoDocument(1);
+                return null;
+            }
+        });
+
+        getResultTable().requireContents(new String[][]{
+                {"[0]", "{ \"_id\" : 2 , \"label\" : \"label2\" , \"doc\" : { \"title\" : \"title2\"}}"},
+                {"\"_id\"", "2"},
+                {"\"label\"", "\"label2\""},
+                {"\"doc\"", "{ \"title\" : \"title2\"}"},
+                {"[1]", "{ \"_id\" : 3 , \"label\" : \"label3\" , \"doc\" : { \"title\" : \"title3\"}}"},
+                {"\"_id\"", "3"},
+                {"\"label\"", "\"label3\""},
+                {"\"doc\"", "{ \"title\" : \"title3\"}"},
+        });
+        assertEquals(2, result.getMongoObjects().size());
+        assertEquals(-1, result.indexOf(1));
+        assertEquals(1, result.indexOf(3));
+    }
+
+    /**
+     * Displays documents with the <code>_id</code>s 1 to <code>documentCount</code>, expanded as they are when streamed in
+     */
+    private MongoCollectionResult displayDocumentsWithIds(final int documentCount) {
+        final MongoCollectionResult result = new MongoCollectionResult("mycollec");
+        GuiActionRunner.execute(new GuiQuery<Object>() {
+            protected Object executeInEDT() {
+                mongoResultPanel.startResultTableTree(result);
+                List<DBObject> documents = new ArrayList<DBObject>();
+                for (int id = 1; id <= documentCount; id++) {
+                    documents.add(result.add(new BasicDBObject("_id", id).append("label", "label" + id).append("doc", new BasicDBObject("title", "title" + id))));
+                }
+                mongoResultPanel.appendResultNodes(JsonTreeModel.buildDocumentNodes(0, documents));
+                return null;
+            }
+        });
+        return result;
+    }
+
     private MongoCollectionResult createCollectionResults(String data, String collectionName) throws IOException {
         DBObject jsonObject = (DBObject) JSON.parse(IOUtils.toString(getClass().getResourceAsStream(data)));
 
@@ -114,6 +114,63 @@ public class ServerConfigurationPanelTest {
         frameFixture.comboBox("readPreferenceComboBox").requireSelection("nearest");
     }
 
+    @Test
+    public void validateFormWithPoolAndTimeouts() throws Exception {
+        frameFixture.textBox("serverUrlsField").setText("localhost:25");
+        frameFixture.textBox("maxConnectionsPerHostField").setText("50");
+        frameFixture.textBox("serverSelectionTimeoutField").setText("2000");
+        frameFixture.textBox("socketTimeoutField").setText("");
+        frameFixture.textBox("maxQueryTimeField").setText("5000");
+        frameFixture.textBox("resultHeapBudgetField").setText("16");
+        frameFixture.textBox("resultSizeLimitField").setText("128");
+
+        ServerConfiguration configuration = new ServerConfiguration();
+        configurationPanel.applyConfigurationData(configuration);
+
+        assertEquals(50, configuration.getMaxConnectionsPerHost());
+        assertEquals(2000, configuration.getServerSelectionTimeout());
+        assertEquals(ServerConfiguration.DEFAULT_SOCKET_TIMEOUT, configuration.getSocketTimeout());
+        assertEquals(ServerConfiguration.DEFAULT_CONNECT_TIMEOUT, configuration.getConnectTimeout());
+        assertEquals(5000, configuration.getMaxQueryTime());
+        assertEquals(16, configuration.getResultHeapBudget());
+        assertEquals(128, configuration.getResultSizeLimit());
+    }
+
+    @Test
+    public void loadFormWithPoolAndTimeouts() throws Exception {
+        ServerConfiguration configuration = new ServerConfiguration();
+        configuration.setServerUrls(Collections.singletonList("localhost:25"));
+        configuration.setMaxConnectionsPerHost(5);
+        configuration.setConnectTimeout(1500);
+
+        configurationPanel.loadConfigurationData(configuration);
+
+        frameFixture.textBox("maxConnectionsPerHostField").requireText("5");
+        frameFixture.textBox("connectTimeoutField").requireText("1500");
+    }
+
+    @Test
+    public void validateFormWithZeroPoolSizeShouldThrowAConfigurationException() {
+        thrown.expect(ConfigurationException.class);
+        thrown.expectMessage("Max pool size should be greater than 0");
+
+        frameFixture.textBox("serverUrlsField").setText("localhost:25");
+        frameFixture.textBox("maxConnectionsPerHostField").setText("0");
+
+        configurationPanel.applyConfigurationData(new ServerConfiguration());
+    }
+
+    @Test
+    public void validateFormWithTooLongTimeoutShouldThrowAConfigurationException() {
+        thrown.expect(ConfigurationException.class);
+        thrown.expectMessage("Socket timeout should be a number lower than 2147483647");
+
+        frameFixture.textBox("serverUrlsField").setText("localhost:25");
+        frameFixture.textBox("socketTimeoutField").setText("99999999999");
+
+        configurationPanel.applyConfigurationData(new ServerConfiguration());
+    }
+
     @Test
     public void validateFormWithMissingMongoUrlShouldThrowAConfigurationException() {
         thrown.expect(ConfigurationException.class);
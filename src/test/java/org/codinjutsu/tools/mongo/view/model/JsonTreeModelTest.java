@@ -20,12 +20,19 @@ import com.mongodb.BasicDBList;
 import com.mongodb.DBObject;
 import com.mongodb.util.JSON;
 import org.apache.commons.io.IOUtils;
+import org.codinjutsu.tools.mongo.model.MongoCollectionResult;
 import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class JsonTreeModelTest {
 
@@ -114,4 +121,53 @@ public class JsonTreeModelTest {
 
         assertEquals(first, JsonTreeModel.findDocument((JsonTreeNode) treeNode.getChildAt(0)));
     }
+
+    @Test
+    public void buildDetachedDocumentNodesNumberedFromTheGivenIndex() throws Exception {
+        BasicDBList dbList = (BasicDBList) JSON.parse(IOUtils.toString(getClass().getResourceAsStream("arrayOfDocuments.json")));
+
+        List<JsonTreeNode> documentNodes = JsonTreeModel.buildDocumentNodes(10, Arrays.asList((DBObject) dbList.get(0), (DBObject) dbList.get(1)));
+
+        assertEquals(2, documentNodes.size());
+        assertEquals("[10]", documentNodes.get(0).getDescriptor().getFormattedKey());
+        assertEquals("[11]", documentNodes.get(1).getDescriptor().getFormattedKey());
+        assertNull(documentNodes.get(0).getParent());
+
+        JsonTreeNode rootNode = (JsonTreeNode) JsonTreeModel.buildEmptyJsonTree("mycollec");
+        assertArrayEquals(new int[]{0, 1}, JsonTreeModel.addDocumentNodes(rootNode, documentNodes));
+        assertEquals(dbList.get(1), JsonTreeModel.findDocument((JsonTreeNode) rootNode.getChildAt(1)));
+    }
+
+    @Test
+    public void subDocumentNodesAreOnlyBuiltWhenRequested() throws Exception {
+        DBObject jsonObject = (DBObject) JSON.parse(IOUtils.toString(getClass().getResourceAsStream("simpleDocumentWithSubList.json")));
+
+        JsonTreeNode treeNode = (JsonTreeNode) JsonTreeModel.buildJsonTree(jsonObject);
+        JsonTreeNode innerListNode = (JsonTreeNode) treeNode.getChildAt(3);
+
+        assertFalse(innerListNode.isChildrenLoaded());
+        assertFalse(innerListNode.isLeaf());
+        assertTrue(((JsonTreeNode) treeNode.getChildAt(1)).isLeaf());
+
+        assertEquals(3, innerListNode.getChildCount());
+        assertTrue(innerListNode.isChildrenLoaded());
+        assertFalse(((JsonTreeNode) innerListNode.getChildAt(2)).isChildrenLoaded());
+
+        assertEquals(jsonObject.toString(), JsonTreeModel.buildDBObject(treeNode).toString());
+    }
+
+    @Test
+    public void buildTreeFromStoredDocuments() throws Exception {
+        DBObject jsonObject = (DBObject) JSON.parse(IOUtils.toString(getClass().getResourceAsStream("simpleDocumentWithSubList.json")));
+        MongoCollectionResult result = new MongoCollectionResult("mycollec");
+        result.add(jsonObject);
+
+        JsonTreeNode rootNode = (JsonTreeNode) JsonTreeModel.buildJsonTree(result);
+        JsonTreeNode documentNode = (JsonTreeNode) rootNode.getChildAt(0);
+
+        assertEquals(4, documentNode.getChildCount());
+        assertEquals("\"tags\"", ((JsonTreeNode) documentNode.getChildAt(2)).getDescriptor().getFormattedKey());
+        assertEquals(3, documentNode.getChildAt(2).getChildCount());
+        assertEquals(jsonObject.toString(), JsonTreeModel.buildDBObject(documentNode).toString());
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016 David Boissier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codinjutsu.tools.mongo.view.model;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.codinjutsu.tools.mongo.model.MongoCollectionResult;
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ResultTableModelTest {
+
+    @Test
+    public void inferColumnsFromTheTopLevelFieldsOfAllDocuments() throws Exception {
+        MongoCollectionResult result = new MongoCollectionResult("mycollec");
+        result.add(new BasicDBObject("_id", 1).append("label", "toto").append("doc", new BasicDBObject("title", "hello")));
+        result.add(new BasicDBObject("_id", 2).append("visible", true));
+
+        ResultTableModel tableModel = new ResultTableModel(result.getMongoObjects(), false);
+
+        assertEquals(2, tableModel.getRowCount());
+        assertEquals(Arrays.asList("_id", "label", "doc", "visible"), columnNames(tableModel));
+        assertEquals("toto", tableModel.getValueAt(0, 1));
+        assertEquals("{ \"title\" : \"hello\"}", tableModel.getValueAt(0, 2).toString());
+        assertSame(ResultTableModel.NO_VALUE, tableModel.getValueAt(1, 1));
+        assertEquals(true, tableModel.getValueAt(1, 3));
+    }
+
+    @Test
+    public void flattenSubDocumentsWithDottedPaths() throws Exception {
+        BasicDBList tags = new BasicDBList();
+        tags.add("tdd");
+        List<DBObject> documents = new ArrayList<DBObject>();
+        documents.add(new BasicDBObject("_id", 1).append("doc", new BasicDBObject("title", "hello").append("author", new BasicDBObject("name", "john"))).append("tags", tags));
+        documents.add(new BasicDBObject("_id", 2).append("doc", "none").append("image", null));
+
+        ResultTableModel tableModel = new ResultTableModel(documents, true);
+
+        assertEquals(Arrays.asList("_id", "doc.title", "doc.author.name", "tags", "doc", "image"), columnNames(tableModel));
+        assertEquals("john", tableModel.getValueAt(0, 2));
+        assertSame(ResultTableModel.NO_VALUE, tableModel.getValueAt(1, 2));
+        assertEquals("{ \"title\" : \"hello\" , \"author\" : { \"name\" : \"john\"}}", tableModel.getValueAt(0, 4).toString());
+        assertEquals("none", tableModel.getValueAt(1, 4));
+        assertEquals(null, tableModel.getValueAt(1, 5));
+    }
+
+    @Test
+    public void refreshAddsTheNewDocumentsAndTheirColumns() throws Exception {
+        List<DBObject> documents = new ArrayList<DBObject>();
+        documents.add(new BasicDBObject("_id", 1));
+        ResultTableModel tableModel = new ResultTableModel(documents, false);
+        final List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        tableModel.addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent event) {
+                events.add(event);
+            }
+        });
+
+        documents.add(new BasicDBObject("_id", 2));
+        tableModel.refresh();
+        documents.add(new BasicDBObject("_id", 3).append("label", "toto"));
+        tableModel.refresh();
+
+        assertEquals(3, tableModel.getRowCount());
+        assertEquals(Arrays.asList("_id", "label"), columnNames(tableModel));
+        assertEquals(2, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+        // a new column must not reset the widths and the sort keys of the table
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+        assertEquals(2, events.get(1).getFirstRow());
+    }
+
+    @Test
+    public void replacedAndRemovedDocumentsUpdateTheirRows() throws Exception {
+        List<DBObject> documents = new ArrayList<DBObject>();
+        documents.add(new BasicDBObject("_id", 1));
+        documents.add(new BasicDBObject("_id", 2));
+        ResultTableModel tableModel = new ResultTableModel(documents, false);
+        final List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        tableModel.addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent event) {
+                events.add(event);
+            }
+        });
+
+        documents.set(0, new BasicDBObject("_id", 1));
+        tableModel.documentReplaced(0);
+        documents.set(1, new BasicDBObject("_id", 2).append("label", "toto"));
+        tableModel.documentReplaced(1);
+        documents.remove(0);
+        tableModel.documentRemoved(0);
+
+        assertEquals(1, tableModel.getRowCount());
+        assertEquals(Arrays.asList("_id", "label"), columnNames(tableModel));
+        assertEquals("toto", tableModel.getValueAt(0, 1));
+        assertEquals(3, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(TableModelEvent.UPDATE, events.get(1).getType());
+        assertEquals(1, events.get(1).getFirstRow());
+        assertEquals(TableModelEvent.DELETE, events.get(2).getType());
+    }
+
+    @Test
+    public void sortValuesByTypeThenByValue() throws Exception {
+        List<Object> values = new ArrayList<Object>(Arrays.asList(ResultTableModel.NO_VALUE, "b", 10, new Date(0), 2.5, null, "a", true));
+
+        Collections.sort(values, ResultTableModel.VALUE_COMPARATOR);
+
+        assertEquals(Arrays.asList(null, 2.5, 10, "a", "b", new Date(0), true, ResultTableModel.NO_VALUE), values);
+    }
+
+    @Test
+    public void sortLongsBeyondDoublePrecisionExactly() throws Exception {
+        long big = (1L << 53) + 1;
+        List<Object> values = new ArrayList<Object>(Arrays.<Object>asList(big + 1, 3.5, big, big - 1, 2));
+
+        Collections.sort(values, ResultTableModel.VALUE_COMPARATOR);
+
+        assertEquals(Arrays.<Object>asList(2, 3.5, big - 1, big, big + 1), values);
+    }
+
+    private static List<String> columnNames(ResultTableModel tableModel) {
+        List<String> columnNames = new ArrayList<String>();
+        for (int column = 0; column < tableModel.getColumnCount(); column++) {
+            columnNames.add(tableModel.getColumnName(column));
+        }
+        return columnNames;
+    }
+}